@@ -0,0 +1,66 @@
+package com.rakbank.users.benchmark;
+
+import com.rakbank.users.config.AuditProperties;
+import com.rakbank.users.config.AuditProperties.FsyncPolicy;
+import com.rakbank.users.service.AuditJournal;
+import com.rakbank.users.service.AuditRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained rate of audit records for each fsync policy. The queue is kept small, so once it is full every
+ * recorded mutation waits for the writer and the score is the rate at which the journal writes to disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditJournalBenchmark {
+
+    @Param({"NEVER", "GROUP_COMMIT", "INTERVAL"})
+    public FsyncPolicy fsync;
+
+    private Path directory;
+    private AuditJournal journal;
+    private long userId;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("audit-benchmark");
+        AuditProperties properties = new AuditProperties();
+        properties.setDirectory(directory);
+        properties.setFsync(fsync);
+        properties.setQueueCapacity(1024);
+        journal = new AuditJournal(properties, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void record() {
+        journal.record(AuditRecord.Type.UPDATED, ++userId, "John Doe", "john.doe@email.com");
+    }
+}
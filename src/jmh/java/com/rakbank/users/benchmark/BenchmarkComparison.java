@@ -0,0 +1,114 @@
+package com.rakbank.users.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and flags regressions of the candidate run against the baseline.
+ * <p>
+ * A benchmark regresses when its score worsens by more than the tolerance and by more than the combined
+ * error margins of both runs (lower throughput, or higher time per operation), or when its normalized
+ * allocation rate, recorded with {@code -prof gc}, grows by more than the tolerance.
+ * Exits with status 1 when at least one regression is found.
+ * <p>
+ * Usage: {@code BenchmarkComparison <baseline.json> <candidate.json> [tolerance]}, tolerance defaulting to 0.05.
+ */
+public final class BenchmarkComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final double ALLOCATION_NOISE_BYTES = 16;
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <candidate.json> [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> candidate = read(new File(args[1]));
+
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-70s %14s %14s %8s %12s %12s%n",
+                "Benchmark", "Baseline", "Candidate", "Change", "Alloc B/op", "Alloc B/op");
+        for (Map.Entry<String, Result> entry : candidate.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %8s%n", entry.getKey(), "-", after.score, "new");
+                continue;
+            }
+            double change = (after.score - before.score) / before.score;
+            boolean slower = after.higherIsBetter ? -change > tolerance : change > tolerance;
+            boolean beyondError = Math.abs(after.score - before.score) > before.error + after.error;
+            boolean allocates = !Double.isNaN(before.allocation) && !Double.isNaN(after.allocation)
+                    && after.allocation - before.allocation > Math.max(ALLOCATION_NOISE_BYTES, before.allocation * tolerance);
+
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%% %12.1f %12.1f%s%n", entry.getKey(), before.score,
+                    after.score, change * 100, before.allocation, after.allocation,
+                    slower && beyondError || allocates ? "  REGRESSION" : "");
+            if (slower && beyondError) {
+                regressions.add(entry.getKey() + ": score " + (after.higherIsBetter ? "dropped" : "grew")
+                        + String.format(" by %.1f%% (%s)", Math.abs(change) * 100, after.unit));
+            }
+            if (allocates) {
+                regressions.add(entry.getKey() + String.format(": allocation grew from %.1f to %.1f B/op",
+                        before.allocation, after.allocation));
+            }
+        }
+        baseline.keySet().stream()
+                .filter(key -> !candidate.containsKey(key))
+                .forEach(key -> System.out.printf("%-70s %14.3f %14s %8s%n", key, baseline.get(key).score, "-", "missing"));
+
+        if (regressions.isEmpty()) {
+            System.out.println("No regression beyond " + tolerance * 100 + "%");
+            return;
+        }
+        System.out.println(regressions.size() + " regression(s):");
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        System.exit(1);
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode benchmark : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = benchmark.path("params").fields();
+            fields.forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            String key = benchmark.path("benchmark").asText() + (params.isEmpty() ? "" : params.toString());
+
+            JsonNode primary = benchmark.path("primaryMetric");
+            double allocation = Double.NaN;
+            Iterator<Map.Entry<String, JsonNode>> secondaries = benchmark.path("secondaryMetrics").fields();
+            while (secondaries.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondaries.next();
+                // older JMH versions prefix profiler metrics with a middle dot
+                if (metric.getKey().replace("·", "").equals(ALLOCATION_METRIC)) {
+                    allocation = metric.getValue().path("score").asDouble();
+                }
+            }
+            double error = primary.path("scoreError").asDouble(0);
+            results.put(key, new Result(
+                    primary.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    primary.path("scoreUnit").asText(),
+                    "thrpt".equals(benchmark.path("mode").asText()),
+                    allocation));
+        }
+        return results;
+    }
+
+    private record Result(double score, double error, String unit, boolean higherIsBetter, double allocation) {
+    }
+}
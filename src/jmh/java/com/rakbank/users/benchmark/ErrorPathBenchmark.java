@@ -0,0 +1,87 @@
+package com.rakbank.users.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakbank.users.config.HashingProperties;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.GlobalExceptionHandler;
+import com.rakbank.users.exceptions.UserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the error path of a failed lookup: throwing the business exception from deep in the call stack, as
+ * happens under the servlet filters, proxies and aspects of a request, then rendering its Problem JSON response.
+ * A plain RuntimeException stands for the business exceptions from before they dropped their stack trace.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    /**
+     * Frames between the request thread entry point and the service method throwing the exception.
+     */
+    @Param({"20", "150"})
+    public int depth;
+
+    private GlobalExceptionHandler handler;
+    private UserException notFound;
+    private UserException invalidRequest;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler(new HashingProperties(), new ObjectMapper());
+        notFound = new UserException(ErrorCode.USER_NOT_FOUND);
+        invalidRequest = new UserException(ErrorCode.INVALID_REQUEST, "Invalid cursor");
+    }
+
+    @Benchmark
+    public Object throwWithStackTrace() {
+        try {
+            return throwAt(depth, true);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object throwStackless() {
+        try {
+            return throwAt(depth, false);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> renderCachedProblem() {
+        return handler.handleUserException(notFound);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> renderSerializedProblem() {
+        return handler.handleUserException(invalidRequest);
+    }
+
+    private static Object throwAt(int depth, boolean withStackTrace) {
+        if (depth > 0) {
+            return throwAt(depth - 1, withStackTrace);
+        }
+        throw withStackTrace ? new RuntimeException("User not found") : new UserException(ErrorCode.USER_NOT_FOUND);
+    }
+}
@@ -0,0 +1,97 @@
+package com.rakbank.users.benchmark;
+
+import com.rakbank.users.UsersApplication;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of listing a page of users as a Page, which also counts every user, and as a Slice, which reads one
+ * more user instead, against an H2 file database seeded with {@code users} users. Pages are drawn among the
+ * first {@value #PAGES} so that the OFFSET scan stays small and the difference is the count. The H2 query cache
+ * is disabled, as it would otherwise answer the unchanged count query without running it.
+ * <p>
+ * Seeding 10M users takes several minutes per benchmark and about 4GB of disk in the temporary directory; the
+ * database is dropped when the benchmark ends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = 50;
+
+    @Param({"100000", "10000000"})
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        Path database = Path.of(System.getProperty("java.io.tmpdir"), "listing-benchmark-" + users);
+        // passed as arguments so they take precedence over application.yml and never touch the file database
+        context = new SpringApplicationBuilder(UsersApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:file:" + database + ";DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=0",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--server.port=0",
+                "--users.audit.enabled=false",
+                "--users.purge.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn");
+        userService = context.getBean(UserService.class);
+        // inserted by the database itself, as saving 10M entities through JPA would take far longer
+        context.getBean(JdbcTemplate.class).update(
+                "insert into user_t (id, name, email, password, created_at, version) "
+                        + "select x, concat('User ', x), concat('user', x, '@email.com'), "
+                        + "'$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3tV4xl6hGqMZpN5Nv0CkJcK', "
+                        + "dateadd('SECOND', x, timestamp '2024-01-01 00:00:00'), 0 from system_range(1, ?)",
+                users);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<UserDto> page() {
+        return userService.getUsers(randomPage());
+    }
+
+    @Benchmark
+    public Slice<UserDto> slice() {
+        return userService.getUserSlice(randomPage());
+    }
+
+    private static Pageable randomPage() {
+        return PageRequest.of(ThreadLocalRandom.current().nextInt(PAGES), PAGE_SIZE, Sort.by("id"));
+    }
+}
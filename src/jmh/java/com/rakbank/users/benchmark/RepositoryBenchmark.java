@@ -0,0 +1,111 @@
+package com.rakbank.users.benchmark;
+
+import com.rakbank.users.UsersApplication;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.entity.User;
+import com.rakbank.users.repository.UserKeysetRepository.KeysetColumn;
+import com.rakbank.users.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of the repository calls behind the read and availability paths, against an embedded H2 database
+ * seeded with {@value #USERS} users. findById hydrates the full entity and is kept as a reference for the
+ * DTO projections.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        // passed as arguments so they take precedence over application.yml and never touch the file database
+        context = new SpringApplicationBuilder(UsersApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--server.port=0",
+                "--users.audit.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn");
+        userRepository = context.getBean(UserRepository.class);
+        List<User> users = IntStream.range(0, USERS)
+                .mapToObj(i -> User.builder()
+                        .name("User " + i)
+                        .email("user" + i + "@email.com")
+                        .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3tV4xl6hGqMZpN5Nv0CkJcK")
+                        .build())
+                .toList();
+        ids = userRepository.saveAll(users).stream().map(User::getId).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<UserDto> findDtoById() {
+        return userRepository.findDtoById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Long> findVersionById() {
+        return userRepository.findVersionById(randomId());
+    }
+
+    @Benchmark
+    public Page<UserDto> findAllDtos() {
+        int page = ThreadLocalRandom.current().nextInt(USERS / PAGE_SIZE);
+        return userRepository.findAllDtos(PageRequest.of(page, PAGE_SIZE, Sort.by("id")));
+    }
+
+    @Benchmark
+    public List<UserDto> findKeysetPage() {
+        return userRepository.findKeysetPage(KeysetColumn.ID, Sort.Direction.ASC, null, randomId(), PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public boolean existsByEmail() {
+        return userRepository.existsByEmail("user" + ThreadLocalRandom.current().nextInt(USERS) + "@email.com");
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
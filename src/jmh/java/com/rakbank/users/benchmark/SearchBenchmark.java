@@ -0,0 +1,113 @@
+package com.rakbank.users.benchmark;
+
+import com.rakbank.users.TestUtil;
+import com.rakbank.users.config.SearchProperties;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.repository.UserRepository;
+import com.rakbank.users.service.UserSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latency of a page of search results from the search index, for a rare substring, a common substring and
+ * a short prefix, against a scan of every name and email as a LIKE '%query%' query would do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"john", "jane", "mary", "peter", "ahmed", "fatima", "li", "sofia",
+            "omar", "elena", "david", "aisha", "lucas", "mei", "ivan", "nora"};
+    private static final String[] LAST_NAMES = {"smith", "johnson", "khan", "garcia", "wang", "müller", "rossi",
+            "haddad", "silva", "kim", "novak", "okafor", "martin", "ali", "cohen", "dubois"};
+    private static final String[] DOMAINS = {"email.com", "mail.ae", "example.org", "corp.io"};
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private UserSearchIndex searchIndex;
+    private String[] names;
+    private String[] emails;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        names = new String[users];
+        emails = new String[users];
+        for (int i = 0; i < users; i++) {
+            String first = FIRST_NAMES[i % FIRST_NAMES.length];
+            String last = LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length];
+            names[i] = Character.toUpperCase(first.charAt(0)) + first.substring(1) + " "
+                    + Character.toUpperCase(last.charAt(0)) + last.substring(1);
+            emails[i] = first + "." + last + i + "@" + DOMAINS[i % DOMAINS.length];
+        }
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamAll()).thenReturn(IntStream.range(0, users)
+                .mapToObj(i -> new UserDto((long) i + 1, names[i], emails[i], null, 0)));
+        searchIndex = new UserSearchIndex(new SearchProperties(), userRepository,
+                TestUtil.unshardedUserShards(), mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry());
+        searchIndex.scheduleRebuild(true);
+        while (!searchIndex.isReady()) {
+            Thread.sleep(100);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        searchIndex.destroy();
+    }
+
+    @Benchmark
+    public UserSearchIndex.Hits indexRareSubstring() {
+        return searchIndex.search("johnson4242", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public UserSearchIndex.Hits indexCommonSubstring() {
+        return searchIndex.search("hadd", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public UserSearchIndex.Hits indexShortPrefix() {
+        return searchIndex.search("ha", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int scanRareSubstring() {
+        return scan("johnson4242");
+    }
+
+    private int scan(String query) {
+        int matches = 0;
+        for (int i = 0; i < users; i++) {
+            if (names[i].toLowerCase(Locale.ROOT).contains(query) || emails[i].contains(query)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,48 @@
+package com.rakbank.users.benchmark;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a User entity into the UserDto returned by the API, as done by UserService#mapToDto.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMappingBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = User.builder()
+                .id(42L)
+                .name("John Doe")
+                .email("john.doe@email.com")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3tV4xl6hGqMZpN5Nv0CkJcK")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .version(3L)
+                .build();
+    }
+
+    @Benchmark
+    public UserDto mapToDto() {
+        return new UserDto(user);
+    }
+}
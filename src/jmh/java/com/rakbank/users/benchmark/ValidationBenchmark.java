@@ -0,0 +1,101 @@
+package com.rakbank.users.benchmark;
+
+import com.rakbank.users.dto.UserPasswordDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import com.rakbank.users.service.UserDtoValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating each incoming DTO, for valid and invalid input: Jakarta Bean Validation against the
+ * precompiled UserDtoValidator that UserService runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserDtoValidator userDtoValidator;
+    private UserRegistrationDto validRegistration;
+    private UserRegistrationDto invalidRegistration;
+    private UserUpdateDto update;
+    private UserPasswordDto passwordChange;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        userDtoValidator = new UserDtoValidator(validator);
+        validRegistration = new UserRegistrationDto(null, "John Doe", "john.doe@email.com", "Password456");
+        invalidRegistration = new UserRegistrationDto(null, "", "not-an-email", "short");
+        update = new UserUpdateDto("Jane Doe", "jane.doe@email.com");
+        passwordChange = new UserPasswordDto("JohnDoe9876", "JohnDoe9876");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRegistrationDto>> validRegistration() {
+        return validator.validate(validRegistration);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRegistrationDto>> invalidRegistration() {
+        return validator.validate(invalidRegistration);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserUpdateDto>> update() {
+        return validator.validate(update);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserPasswordDto>> passwordChange() {
+        return validator.validate(passwordChange);
+    }
+
+    @Benchmark
+    public String precompiledValidRegistration() {
+        return userDtoValidator.errors(validRegistration);
+    }
+
+    @Benchmark
+    public String precompiledInvalidRegistration() {
+        return userDtoValidator.errors(invalidRegistration);
+    }
+
+    @Benchmark
+    public String precompiledUpdate() {
+        return userDtoValidator.errors(update);
+    }
+
+    @Benchmark
+    public String precompiledPasswordChange() {
+        return userDtoValidator.errors(passwordChange);
+    }
+}
@@ -0,0 +1,110 @@
+package com.rakbank.users.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and status codes recorded per operation during a run.
+ * Latencies are measured from the scheduled arrival time rather than from the actual send time, so time spent
+ * waiting behind slow requests is counted and the percentiles are free of coordinated omission.
+ */
+public class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    public void record(String operation, long latencyNanos, int status) {
+        OperationStats stats = stats(operation);
+        stats.histogram.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        stats.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records a request that got no HTTP response at all, because it failed or was dropped by the generator.
+     */
+    public void recordFailure(String operation) {
+        stats(operation).failures.increment();
+    }
+
+    private OperationStats stats(String operation) {
+        return operations.computeIfAbsent(operation, key -> new OperationStats());
+    }
+
+    /**
+     * Prints a summary table and writes it, with a JSON summary and the full percentile distribution of
+     * every operation, to the output directory.
+     */
+    public void write(Scenario scenario, Duration elapsed, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scenario", scenario.getName());
+        summary.put("seed", scenario.getSeed());
+        summary.put("ratePerSecond", scenario.getRatePerSecond());
+        summary.put("durationSeconds", scenario.getDuration().toSeconds());
+        Map<String, Object> perOperation = new LinkedHashMap<>();
+        summary.put("operations", perOperation);
+
+        StringBuilder table = new StringBuilder(String.format("Scenario %s, seed %d, %.0f req/s, %ds recorded%n",
+                scenario.getName(), scenario.getSeed(), scenario.getRatePerSecond(), scenario.getDuration().toSeconds()));
+        table.append(String.format("%-16s %8s %8s %9s %9s %9s %9s %9s  %s%n",
+                "Operation", "Count", "Failed", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "req/s", "Statuses"));
+        for (Map.Entry<String, OperationStats> entry : new TreeMap<>(operations).entrySet()) {
+            Histogram histogram = entry.getValue().histogram.copy();
+            Map<Integer, Long> statuses = new TreeMap<>();
+            entry.getValue().statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+            long failures = entry.getValue().failures.sum();
+            double throughput = histogram.getTotalCount() / (double) scenario.getDuration().toSeconds();
+
+            table.append(String.format("%-16s %8d %8d %9.2f %9.2f %9.2f %9.2f %9.1f  %s%n", entry.getKey(),
+                    histogram.getTotalCount(), failures, millis(histogram, 50), millis(histogram, 99),
+                    millis(histogram, 99.9), histogram.getMaxValue() / NANOS_PER_MILLI, throughput, statuses));
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("failures", failures);
+            stats.put("statuses", statuses);
+            stats.put("p50Millis", millis(histogram, 50));
+            stats.put("p99Millis", millis(histogram, 99));
+            stats.put("p999Millis", millis(histogram, 99.9));
+            stats.put("maxMillis", histogram.getMaxValue() / NANOS_PER_MILLI);
+            stats.put("meanMillis", histogram.getMean() / NANOS_PER_MILLI);
+            perOperation.put(entry.getKey(), stats);
+
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+        table.append(String.format("Elapsed %.1fs%n", elapsed.toMillis() / 1000d));
+
+        System.out.print(table);
+        Files.writeString(directory.resolve("report.txt"), table);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), summary);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    private static final class OperationStats {
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder failures = new LongAdder();
+    }
+}
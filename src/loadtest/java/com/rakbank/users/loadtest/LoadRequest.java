@@ -0,0 +1,29 @@
+package com.rakbank.users.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One HTTP request of a load test, relative to the base URL of the application under test.
+ */
+@Data
+@AllArgsConstructor
+public class LoadRequest {
+
+    private String method;
+
+    private String path;
+
+    /**
+     * JSON body, or null for requests without one.
+     */
+    private String body;
+
+    public static LoadRequest get(String path) {
+        return new LoadRequest("GET", path, null);
+    }
+
+    public static LoadRequest delete(String path) {
+        return new LoadRequest("DELETE", path, null);
+    }
+}
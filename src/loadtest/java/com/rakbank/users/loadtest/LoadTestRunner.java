@@ -0,0 +1,182 @@
+package com.rakbank.users.loadtest;
+
+import com.rakbank.users.UsersApplication;
+import com.rakbank.users.entity.User;
+import com.rakbank.users.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Boots the application on a random port against a fresh in-memory H2 database, seeds it, replays a scenario
+ * over loopback HTTP and writes the latency report to target/loadtest/&lt;scenario&gt;.
+ * <p>
+ * Usage: {@code LoadTestRunner [scenario] [--spring.property=value ...]}. The scenario defaults to read-heavy;
+ * its rate, duration and seed can be overridden with the loadtest.rate, loadtest.duration (seconds) and
+ * loadtest.seed system properties. Arguments starting with -- are passed to the application.
+ * <p>
+ * The loadtest.dbLatency system property adds a delay, in milliseconds, to every SQL statement, and
+ * loadtest.label is appended to the report directory so runs of the same scenario can be compared.
+ */
+public final class LoadTestRunner {
+
+    private static final String SEEDED_PASSWORD = "Password456";
+    private static final int MAX_OUTSTANDING_REQUESTS = 10_000;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String scenarioName = args.length > 0 && !args[0].startsWith("--") ? args[0] : "read-heavy";
+        Scenario scenario = Scenarios.all().get(scenarioName);
+        if (scenario == null) {
+            throw new IllegalArgumentException("Unknown scenario " + scenarioName + ", expected one of "
+                    + Scenarios.all().keySet());
+        }
+        scenario = withOverrides(scenario);
+
+        List<String> applicationArgs = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--server.port=0",
+                "--users.audit.directory=target/loadtest/audit",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn"));
+        Arrays.stream(args)
+                .flatMap(arg -> Arrays.stream(arg.trim().split("\\s+")))
+                .filter(arg -> arg.startsWith("--"))
+                .forEach(applicationArgs::add);
+        if (Long.getLong(SlowDatabaseStatementInspector.LATENCY_PROPERTY, 0) > 0) {
+            applicationArgs.add("--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                    + SlowDatabaseStatementInspector.class.getName());
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UsersApplication.class)
+                .run(applicationArgs.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<Long> seededIds = seed(context, scenario.getSeededUsers());
+            List<Scenario.Arrival> arrivals = scenario.schedule(seededIds);
+            System.out.printf("Replaying %d requests of scenario %s against port %d%n",
+                    arrivals.size(), scenario.getName(), port);
+
+            LatencyReport report = new LatencyReport();
+            long started = System.nanoTime();
+            replay(arrivals, "http://localhost:" + port, report);
+            String label = System.getProperty("loadtest.label", "");
+            report.write(scenario, Duration.ofNanos(System.nanoTime() - started),
+                    Path.of("target", "loadtest", label.isBlank() ? scenario.getName() : scenario.getName() + "-" + label));
+        }
+    }
+
+    private static Scenario withOverrides(Scenario scenario) {
+        Scenario.ScenarioBuilder builder = scenario.toBuilder();
+        override("loadtest.rate", value -> builder.ratePerSecond(Double.parseDouble(value)));
+        override("loadtest.duration", value -> builder.duration(Duration.ofSeconds(Long.parseLong(value))));
+        override("loadtest.seed", value -> builder.seed(Long.parseLong(value)));
+        return builder.build();
+    }
+
+    private static void override(String property, Consumer<String> setter) {
+        String value = System.getProperty(property);
+        if (value != null && !value.isBlank()) {
+            setter.accept(value.trim());
+        }
+    }
+
+    /**
+     * Inserts the seeded users directly through the repository, all sharing one password hash.
+     */
+    private static List<Long> seed(ConfigurableApplicationContext context, int count) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        String encodedPassword = context.getBean(PasswordEncoder.class).encode(SEEDED_PASSWORD);
+        List<User> users = IntStream.range(0, count)
+                .mapToObj(i -> User.builder()
+                        .name("Seeded user " + i)
+                        .email("seeded" + i + "@email.com")
+                        .password(encodedPassword)
+                        .build())
+                .toList();
+        return userRepository.saveAll(users).stream().map(User::getId).toList();
+    }
+
+    /**
+     * Sends every request at its scheduled offset without waiting for earlier responses.
+     * Requests that would exceed the outstanding limit are recorded as failures instead of being delayed.
+     */
+    private static void replay(List<Scenario.Arrival> arrivals, String baseUrl, LatencyReport report)
+            throws InterruptedException {
+        ExecutorService responseExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(responseExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Semaphore outstanding = new Semaphore(MAX_OUTSTANDING_REQUESTS);
+        List<CompletableFuture<?>> responses = new ArrayList<>(arrivals.size());
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+
+        for (Scenario.Arrival arrival : arrivals) {
+            long scheduled = start + arrival.offsetNanos();
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!outstanding.tryAcquire()) {
+                if (arrival.recorded()) {
+                    report.recordFailure(arrival.operation());
+                }
+                continue;
+            }
+            responses.add(client.sendAsync(toHttpRequest(baseUrl, arrival.request()), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        outstanding.release();
+                        if (!arrival.recorded()) {
+                            return;
+                        }
+                        if (failure != null) {
+                            report.recordFailure(arrival.operation());
+                        } else {
+                            report.record(arrival.operation(), System.nanoTime() - scheduled, response.statusCode());
+                        }
+                    }));
+        }
+        try {
+            CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            System.err.println("Some requests did not complete: " + e);
+        } finally {
+            responseExecutor.shutdownNow();
+        }
+    }
+
+    private static HttpRequest toHttpRequest(String baseUrl, LoadRequest request) {
+        HttpRequest.BodyPublisher body = request.getBody() == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(request.getBody());
+        return HttpRequest.newBuilder(URI.create(baseUrl + request.getPath()))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .method(request.getMethod(), body)
+                .build();
+    }
+}
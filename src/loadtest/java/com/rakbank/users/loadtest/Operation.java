@@ -0,0 +1,28 @@
+package com.rakbank.users.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * A weighted kind of request in a scenario, such as reading a user by id.
+ */
+@Getter
+@AllArgsConstructor
+public class Operation {
+
+    private final String name;
+
+    /**
+     * Relative share of the arrivals, weights of a scenario do not need to add up to 100.
+     */
+    private final double weight;
+
+    /**
+     * Builds the request of one arrival. Called in arrival order while the schedule is generated,
+     * so it may update the scenario state, and must only draw randomness from the given generator.
+     */
+    private final BiFunction<ScenarioState, Random, LoadRequest> request;
+}
@@ -0,0 +1,105 @@
+package com.rakbank.users.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An open-model workload: requests arrive at a fixed average rate whatever the response times, so slow
+ * responses queue up instead of slowing the load down. Arrivals follow a Poisson process and each one picks
+ * an operation by weight; both are drawn from a generator seeded with {@link #seed}, so a scenario replays
+ * exactly the same requests at the same offsets on every run.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class Scenario {
+
+    private final String name;
+
+    @Builder.Default
+    private final long seed = 42;
+
+    /**
+     * Average number of arrivals per second.
+     */
+    private final double ratePerSecond;
+
+    /**
+     * Initial part of the run whose latencies are not recorded.
+     */
+    @Builder.Default
+    private final Duration warmup = Duration.ofSeconds(10);
+
+    /**
+     * Recorded part of the run, after the warmup.
+     */
+    private final Duration duration;
+
+    /**
+     * Number of users inserted before the run.
+     */
+    @Builder.Default
+    private final int seededUsers = 10_000;
+
+    /**
+     * Share of the seeded users reserved for deletions.
+     */
+    @Builder.Default
+    private final double deletableShare = 0.1;
+
+    @Singular
+    private final List<Operation> operations;
+
+    /**
+     * Generates the arrivals of a run against the given seeded users.
+     *
+     * @param seededIds the ids of the seeded users, in insertion order
+     * @return the arrivals, ordered by offset
+     */
+    public List<Arrival> schedule(List<Long> seededIds) {
+        Random random = new Random(seed);
+        ScenarioState state = new ScenarioState("s" + seed, seededIds, deletableShare);
+        double totalWeight = operations.stream().mapToDouble(Operation::getWeight).sum();
+        long end = warmup.plus(duration).toNanos();
+        double meanGap = 1_000_000_000d / ratePerSecond;
+
+        List<Arrival> arrivals = new ArrayList<>();
+        double offset = 0;
+        while (true) {
+            offset += -Math.log(1 - random.nextDouble()) * meanGap;
+            if (offset >= end) {
+                return arrivals;
+            }
+            Operation operation = pick(random.nextDouble() * totalWeight);
+            LoadRequest request = operation.getRequest().apply(state, random);
+            arrivals.add(new Arrival((long) offset, operation.getName(), request, offset >= warmup.toNanos()));
+        }
+    }
+
+    private Operation pick(double point) {
+        double cumulated = 0;
+        for (Operation operation : operations) {
+            cumulated += operation.getWeight();
+            if (point < cumulated) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    /**
+     * One scheduled request.
+     *
+     * @param offsetNanos time of the arrival since the start of the run
+     * @param operation name of the operation the request belongs to
+     * @param request the request to send
+     * @param recorded false during the warmup
+     */
+    public record Arrival(long offsetNanos, String operation, LoadRequest request, boolean recorded) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.rakbank.users.loadtest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * What the schedule generator knows about the data of the application under test.
+ * The seeded users are split in two: most of them are read and updated, the others are reserved for deletion
+ * so that no request targets a user deleted earlier in the run.
+ */
+public class ScenarioState {
+
+    private final String runId;
+    private final List<Long> stableIds;
+    private final Deque<Long> deletableIds;
+    private long sequence;
+
+    ScenarioState(String runId, List<Long> seededIds, double deletableShare) {
+        this.runId = runId;
+        int stable = Math.max(1, (int) Math.round(seededIds.size() * (1 - deletableShare)));
+        this.stableIds = List.copyOf(seededIds.subList(0, stable));
+        this.deletableIds = new ArrayDeque<>(seededIds.subList(stable, seededIds.size()));
+    }
+
+    /**
+     * @return a seeded user that is never deleted
+     */
+    public long anyUserId(Random random) {
+        return stableIds.get(random.nextInt(stableIds.size()));
+    }
+
+    /**
+     * @return a seeded user not deleted yet, or a stable user once the reserve is exhausted (the delete then fails)
+     */
+    public long nextDeletableUserId(Random random) {
+        Long id = deletableIds.pollFirst();
+        return id != null ? id : anyUserId(random);
+    }
+
+    /**
+     * @return a number unique within the run, used to build unique emails and passwords
+     */
+    public long nextSequence() {
+        return ++sequence;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public int getUserCount() {
+        return stableIds.size() + deletableIds.size();
+    }
+}
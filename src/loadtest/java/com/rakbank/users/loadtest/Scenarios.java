@@ -0,0 +1,121 @@
+package com.rakbank.users.loadtest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Catalog of the scenarios run before a release. Every route of UserController appears in each mix.
+ */
+public final class Scenarios {
+
+    private static final int PAGE_SIZE = 20;
+
+    private Scenarios() {
+    }
+
+    /**
+     * Production-like mix dominated by profile reads.
+     */
+    public static Scenario readHeavy() {
+        return Scenario.builder()
+                .name("read-heavy")
+                .ratePerSecond(200)
+                .duration(Duration.ofSeconds(60))
+                .operation(new Operation("getUserById", 90, Scenarios::getUserById))
+                .operation(new Operation("register", 5, Scenarios::register))
+                .operation(new Operation("getUsers", 2, Scenarios::getUsers))
+                .operation(new Operation("updateUser", 1.5, Scenarios::updateUser))
+                .operation(new Operation("changePassword", 1, Scenarios::changePassword))
+                .operation(new Operation("deleteUser", 0.5, Scenarios::deleteUser))
+                .build();
+    }
+
+    /**
+     * Mix with a much larger share of writes, to size the hashing pool and the connection pool.
+     */
+    public static Scenario writeHeavy() {
+        return Scenario.builder()
+                .name("write-heavy")
+                .ratePerSecond(50)
+                .duration(Duration.ofSeconds(60))
+                .operation(new Operation("getUserById", 40, Scenarios::getUserById))
+                .operation(new Operation("register", 25, Scenarios::register))
+                .operation(new Operation("getUsers", 5, Scenarios::getUsers))
+                .operation(new Operation("updateUser", 15, Scenarios::updateUser))
+                .operation(new Operation("changePassword", 10, Scenarios::changePassword))
+                .operation(new Operation("deleteUser", 5, Scenarios::deleteUser))
+                .build();
+    }
+
+    /**
+     * Short run of the read-heavy mix, to check the harness itself.
+     */
+    public static Scenario smoke() {
+        return readHeavy().toBuilder()
+                .name("smoke")
+                .ratePerSecond(50)
+                .warmup(Duration.ofSeconds(2))
+                .duration(Duration.ofSeconds(10))
+                .seededUsers(1_000)
+                .build();
+    }
+
+    /**
+     * High-concurrency mix dominated by uncached database reads and writes, meant to be run with a simulated
+     * database latency to compare platform and virtual threads.
+     */
+    public static Scenario slowDatabase() {
+        return Scenario.builder()
+                .name("slow-database")
+                .ratePerSecond(1000)
+                .duration(Duration.ofSeconds(60))
+                .operation(new Operation("getUsers", 60, Scenarios::getUsers))
+                .operation(new Operation("updateUser", 25, Scenarios::updateUser))
+                .operation(new Operation("getUserById", 10, Scenarios::getUserById))
+                .operation(new Operation("register", 3, Scenarios::register))
+                .operation(new Operation("changePassword", 1.5, Scenarios::changePassword))
+                .operation(new Operation("deleteUser", 0.5, Scenarios::deleteUser))
+                .build();
+    }
+
+    public static Map<String, Scenario> all() {
+        return Map.of(
+                "read-heavy", readHeavy(),
+                "write-heavy", writeHeavy(),
+                "slow-database", slowDatabase(),
+                "smoke", smoke());
+    }
+
+    private static LoadRequest getUserById(ScenarioState state, Random random) {
+        return LoadRequest.get("/api/user/" + state.anyUserId(random));
+    }
+
+    private static LoadRequest register(ScenarioState state, Random random) {
+        long n = state.nextSequence();
+        return new LoadRequest("POST", "/api/user/register", String.format(
+                "{\"name\":\"Load user %d\",\"email\":\"load-%s-%d@email.com\",\"password\":\"Password%d\"}",
+                n, state.getRunId(), n, n));
+    }
+
+    private static LoadRequest getUsers(ScenarioState state, Random random) {
+        // the first pages are the ones clients actually browse
+        int page = Math.min(random.nextInt(5), state.getUserCount() / PAGE_SIZE);
+        return LoadRequest.get("/api/user?page=" + page + "&size=" + PAGE_SIZE);
+    }
+
+    private static LoadRequest updateUser(ScenarioState state, Random random) {
+        return new LoadRequest("PUT", "/api/user/" + state.anyUserId(random),
+                "{\"name\":\"Updated user " + state.nextSequence() + "\"}");
+    }
+
+    private static LoadRequest changePassword(ScenarioState state, Random random) {
+        String password = "NewPassword" + state.nextSequence();
+        return new LoadRequest("PATCH", "/api/user/" + state.anyUserId(random),
+                "{\"password\":\"" + password + "\",\"confirmPassword\":\"" + password + "\"}");
+    }
+
+    private static LoadRequest deleteUser(ScenarioState state, Random random) {
+        return LoadRequest.delete("/api/user/" + state.nextDeletableUserId(random));
+    }
+}
@@ -0,0 +1,28 @@
+package com.rakbank.users.loadtest;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delays every SQL statement by the loadtest.dbLatency system property, in milliseconds, to simulate a remote
+ * database. The delay is spent on the calling thread while it holds its connection, like a network round trip,
+ * and outside any lock of the JDBC driver.
+ */
+public class SlowDatabaseStatementInspector implements StatementInspector {
+
+    static final String LATENCY_PROPERTY = "loadtest.dbLatency";
+
+    private final long latencyNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(LATENCY_PROPERTY, 0));
+
+    @Override
+    public String inspect(String sql) {
+        long deadline = System.nanoTime() + latencyNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,68 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "users.audit")
+public class AuditProperties {
+
+    /**
+     * Whether the mutations of users are written to the audit journal.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Directory of the journal segments. Only one application may write to it at a time.
+     */
+    private Path directory = Path.of(System.getProperty("user.home"), "users-audit");
+
+    /**
+     * Size of each memory-mapped segment file. A new segment is started when the next record does not fit.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Maximum number of records written between two group commits.
+     */
+    private int groupCommitSize = 256;
+
+    /**
+     * When written records are forced to disk.
+     */
+    private FsyncPolicy fsync = FsyncPolicy.GROUP_COMMIT;
+
+    /**
+     * Time between two forces with the INTERVAL policy.
+     */
+    private Duration fsyncInterval = Duration.ofMillis(100);
+
+    /**
+     * Time a full segment is kept before it is deleted.
+     */
+    private Duration retention = Duration.ofDays(365);
+
+    /**
+     * Number of records waiting for the writer above which mutations wait for it to catch up.
+     */
+    private int queueCapacity = 100_000;
+
+    public enum FsyncPolicy {
+        /**
+         * Never force; records survive a crash of the application but not of the operating system.
+         */
+        NEVER,
+        /**
+         * Force once after every group commit, so one fsync covers every record written since the last one.
+         */
+        GROUP_COMMIT,
+        /**
+         * Force at most once per fsync interval.
+         */
+        INTERVAL
+    }
+}
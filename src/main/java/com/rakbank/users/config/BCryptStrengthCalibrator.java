@@ -0,0 +1,64 @@
+package com.rakbank.users.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the highest BCrypt cost whose hashing time on this host fits the configured budget.
+ */
+public final class BCryptStrengthCalibrator {
+    private static final Logger log = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "Calibration2024";
+    private static final int WARM_UP_STRENGTH = 4;
+    private static final int WARM_UP_ROUNDS = 5;
+
+    private BCryptStrengthCalibrator() {}
+
+    /**
+     * Resolves the BCrypt cost to use, measuring the host when no fixed strength is configured.
+     *
+     * @param properties the password settings
+     * @return the BCrypt cost
+     */
+    public static int resolveStrength(PasswordProperties properties) {
+        if (properties.getStrength() != null) {
+            return properties.getStrength();
+        }
+        return calibrate(properties.getTargetHashTime(), properties.getMinStrength(), properties.getMaxStrength());
+    }
+
+    /**
+     * Measures hashing time for increasing costs until the budget is exceeded.
+     * Every increment doubles the work, so the measurement stops after at most one hash over budget.
+     *
+     * @param budget the latency budget for a single hash
+     * @param minStrength the lowest cost that may be returned
+     * @param maxStrength the highest cost that may be returned
+     * @return the highest cost within the budget, bounded by the min and max strength
+     */
+    static int calibrate(Duration budget, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder warmUp = new BCryptPasswordEncoder(WARM_UP_STRENGTH);
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            warmUp.encode(SAMPLE_PASSWORD);
+        }
+
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            log.debug("BCrypt cost {} took {} ms", strength, elapsed.toMillis());
+            if (elapsed.compareTo(budget) > 0) {
+                break;
+            }
+            chosen = strength;
+        }
+        log.info("Calibrated BCrypt cost {} for a {} ms budget", chosen, budget.toMillis());
+        return chosen;
+    }
+}
@@ -0,0 +1,39 @@
+package com.rakbank.users.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+
+    /**
+     * Bounded Caffeine cache of users by id. Evictions issued inside a transaction are deferred until it
+     * commits, so a concurrent read cannot put back the row being replaced. Statistics are recorded so the
+     * hit, miss and eviction counts are published as cache metrics.
+     *
+     * @param cacheProperties the cache settings
+     * @return the cache manager, or a no-op one when caching is disabled
+     */
+    @Bean
+    public CacheManager cacheManager(UserCacheProperties cacheProperties) {
+        if (!cacheProperties.isEnabled()) {
+            return new NoOpCacheManager();
+        }
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(USERS_CACHE);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getTimeToLive())
+                .recordStats());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,49 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "users.changes")
+public class ChangeFeedProperties {
+
+    /**
+     * Number of recent events kept for resuming subscribers, rounded up to a power of two. A subscriber falling
+     * further behind is sent a reset event and disconnected.
+     */
+    private int bufferSize = 4096;
+
+    /**
+     * Threads writing events to subscribers. Subscribers are served in turn, so no thread is held per subscriber.
+     */
+    private int dispatchThreads = 4;
+
+    /**
+     * Maximum number of events written to a subscriber before the next subscriber is served.
+     */
+    private int batchSize = 256;
+
+    /**
+     * Maximum number of concurrent subscribers. Further subscriptions are answered with 503 Service Unavailable.
+     */
+    private int maxSubscribers = 10_000;
+
+    /**
+     * Time between two comments sent to idle subscribers, keeping their connection open through proxies and
+     * detecting the subscribers that went away.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Time a write to a subscriber may block before the subscriber is considered stalled, because its client
+     * stopped reading, and disconnected. Its dispatch thread is replaced meanwhile.
+     */
+    private Duration writeTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Time after which a subscription is closed; clients reconnect and resume with Last-Event-ID.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+}
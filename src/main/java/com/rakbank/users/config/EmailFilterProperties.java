@@ -0,0 +1,25 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "users.email-filter")
+public class EmailFilterProperties {
+
+    /**
+     * Number of emails the filter is sized for. The filter is rebuilt larger when it holds more.
+     */
+    private long expectedInsertions = 1_000_000;
+
+    /**
+     * Target false positive probability at the expected number of emails.
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Number of emails deleted or changed since the last build, as a share of the expected insertions,
+     * that triggers a rebuild.
+     */
+    private double staleRatio = 0.1;
+}
@@ -0,0 +1,35 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "users.hashing")
+public class HashingProperties {
+
+    /**
+     * Number of threads hashing passwords. Defaults to the number of available cores.
+     */
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of hashing tasks allowed to wait for a free thread before requests are rejected.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * Number of passwords of a batch hashed by one task. Registrations queued meanwhile run between two chunks.
+     */
+    private int batchChunkSize = 4;
+
+    /**
+     * Share of the hashing threads a single batch may occupy at once, at least one thread, so that a large batch
+     * does not hold up the other registrations.
+     */
+    private double batchShare = 0.5;
+
+    /**
+     * Value of the Retry-After header sent when the hashing queue is full.
+     */
+    private int retryAfterSeconds = 1;
+}
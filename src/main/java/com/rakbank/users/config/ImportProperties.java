@@ -0,0 +1,35 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "users.import")
+public class ImportProperties {
+
+    /**
+     * Number of rows committed together. Capped by users.registration.batch-max-size.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Number of import jobs running at the same time. Further jobs wait for a free slot.
+     */
+    private int concurrentJobs = 2;
+
+    /**
+     * Number of import jobs allowed to wait for a free slot. Further uploads are answered with 503 Service
+     * Unavailable.
+     */
+    private int queuedJobs = 10;
+
+    /**
+     * Maximum number of rejected rows kept in a job report. Further rejections are only counted.
+     */
+    private int maxReportedRejections = 1000;
+
+    /**
+     * Number of finished jobs whose status stays available.
+     */
+    private int retainedJobs = 100;
+}
@@ -0,0 +1,19 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "users.pagination")
+public class PaginationProperties {
+
+    /**
+     * Page size used by cursor pagination when the client does not ask for one.
+     */
+    private int defaultPageSize = 20;
+
+    /**
+     * Largest page size a client may ask for in cursor pagination.
+     */
+    private int maxPageSize = 100;
+}
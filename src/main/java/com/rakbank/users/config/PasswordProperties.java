@@ -0,0 +1,31 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "users.password")
+public class PasswordProperties {
+
+    /**
+     * Fixed BCrypt cost. When not set the cost is calibrated at startup against {@link #targetHashTime}.
+     */
+    private Integer strength;
+
+    /**
+     * Latency budget for a single hash used by the startup calibration.
+     */
+    private Duration targetHashTime = Duration.ofMillis(100);
+
+    /**
+     * Lowest cost the calibration may pick, whatever the host speed.
+     */
+    private int minStrength = 10;
+
+    /**
+     * Highest cost the calibration may pick.
+     */
+    private int maxStrength = 16;
+}
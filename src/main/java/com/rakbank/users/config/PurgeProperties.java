@@ -0,0 +1,37 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "users.purge")
+public class PurgeProperties {
+
+    /**
+     * Whether deleted users are purged in the background. When disabled, deleted users stay in the table,
+     * hidden from every read.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Time a deleted user is kept before it is purged.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Time between the end of a purge and the start of the next one.
+     */
+    private Duration interval = Duration.ofMinutes(5);
+
+    /**
+     * Number of users purged per DELETE statement, each in its own short transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Pause between two batches, leaving the database to the request path.
+     */
+    private Duration batchPause = Duration.ofMillis(50);
+}
@@ -0,0 +1,77 @@
+package com.rakbank.users.config;
+
+import com.rakbank.users.service.ReplicaRouting;
+import com.rakbank.users.service.ReplicaRouting.Route;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Hands out connections from the primary or from the replica as decided by {@link ReplicaRouting}, and from
+ * the primary when the replica cannot hand one out in time. The decision is made when a connection is taken,
+ * so this data source is meant to be wrapped in a LazyConnectionDataSourceProxy, which only takes one at the
+ * first statement of a transaction, once the transaction is known to be read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaRouting replicaRouting;
+    private final Map<Route, Counter> connections = new EnumMap<>(Route.class);
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaRouting replicaRouting,
+                                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaRouting = replicaRouting;
+        for (Route route : Route.values()) {
+            connections.put(route, Counter.builder("users.datasource.connections")
+                    .description("Connections taken from each pool, by routing reason")
+                    .tag("pool", route == Route.READ ? "replica" : "primary")
+                    .tag("reason", route.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("users.datasource.replica.available", replicaRouting,
+                        routing -> routing.isReplicaAvailable() ? 1 : 0)
+                .description("Whether reads are currently sent to the replica")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Route route = replicaRouting.route();
+        if (route == Route.READ) {
+            try {
+                Connection connection = replica.getConnection();
+                connections.get(Route.READ).increment();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                replicaRouting.replicaFailed(e);
+                route = Route.REPLICA_DOWN;
+            }
+        }
+        Connection connection = primary.getConnection();
+        connections.get(route).increment();
+        return connection;
+    }
+
+    /**
+     * Not supported: the primary and replica pools connect with their own credentials, and pools hand out
+     * connections for those only.
+     *
+     * @throws SQLFeatureNotSupportedException always
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The primary and replica pools have their own credentials");
+    }
+}
@@ -0,0 +1,14 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "users.registration")
+public class RegistrationProperties {
+
+    /**
+     * Maximum number of users accepted by a single batch registration.
+     */
+    private int batchMaxSize = 1000;
+}
@@ -0,0 +1,60 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "users.replica")
+public class ReplicaProperties {
+
+    /**
+     * Whether read-only service methods read from the replica. When disabled, everything uses the
+     * spring.datasource connection pool.
+     */
+    private boolean enabled = false;
+
+    /**
+     * JDBC URL of the replica. The driver is the one of spring.datasource.
+     */
+    private String url;
+
+    /**
+     * Login user of the replica, defaults to the one of spring.datasource.
+     */
+    private String username;
+
+    /**
+     * Login password of the replica, defaults to the one of spring.datasource.
+     */
+    private String password;
+
+    /**
+     * Maximum number of connections to the replica. The primary pool is sized by
+     * spring.datasource.hikari.maximum-pool-size.
+     */
+    private int maximumPoolSize = 10;
+
+    /**
+     * Maximum time to wait for a replica connection before reading from the primary instead.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Time after a failed replica connection during which every read goes to the primary, before the
+     * replica is tried again.
+     */
+    private Duration retryInterval = Duration.ofSeconds(10);
+
+    /**
+     * Time after a user is created or changed during which that user is read from the primary. Should exceed
+     * the replication lag.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    /**
+     * Maximum number of recently changed users remembered for read-your-writes.
+     */
+    private long readYourWritesMaxUsers = 100_000;
+}
@@ -0,0 +1,19 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "users.search")
+public class SearchProperties {
+
+    /**
+     * Longest accepted search query, in characters.
+     */
+    private int maxQueryLength = 100;
+
+    /**
+     * Share of the index taken by removed or replaced users that triggers a compaction of the index.
+     */
+    private double staleRatio = 0.25;
+}
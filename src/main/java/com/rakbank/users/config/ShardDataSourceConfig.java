@@ -0,0 +1,108 @@
+package com.rakbank.users.config;
+
+import com.rakbank.users.service.UserShards;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(prefix = "users.sharding", name = "enabled", havingValue = "true")
+public class ShardDataSourceConfig {
+
+    /**
+     * Pool of shard 0, configured like the default pool by the spring.datasource properties. Shard 0 also
+     * holds the email directory.
+     *
+     * @param dataSourceProperties the spring.datasource settings
+     * @param replicaProperties the replica settings, which cannot be combined with sharding
+     * @return the pool of shard 0
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource shardZeroDataSource(DataSourceProperties dataSourceProperties,
+                                                ReplicaProperties replicaProperties) {
+        if (replicaProperties.isEnabled()) {
+            throw new IllegalStateException("users.replica and users.sharding cannot be enabled together");
+        }
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("shard-0");
+        return dataSource;
+    }
+
+    /**
+     * Data source taking each transaction's connection from the pool of the shard bound to the thread. The
+     * pools of shards 1 and up are created here, as their number depends on the configuration, and publish
+     * the same hikaricp metrics as the pool of shard 0.
+     *
+     * @param shardZeroDataSource the pool of shard 0
+     * @param dataSourceProperties the spring.datasource settings, for the driver and default credentials
+     * @param shardingProperties the shard settings
+     * @param userShards the shard bindings
+     * @param meterRegistry the registry of the pool metrics
+     * @return the routing data source
+     */
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource shardZeroDataSource,
+                                                         DataSourceProperties dataSourceProperties,
+                                                         ShardingProperties shardingProperties,
+                                                         UserShards userShards, MeterRegistry meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        pools.add(shardZeroDataSource);
+        for (ShardingProperties.Shard shard : shardingProperties.getShards()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(shard.getUrl())
+                    .username(shard.getUsername() != null
+                            ? shard.getUsername() : dataSourceProperties.determineUsername())
+                    .password(shard.getPassword() != null
+                            ? shard.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            dataSource.setPoolName("shard-" + pools.size());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(dataSource);
+        }
+        return new ShardRoutingDataSource(userShards, pools);
+    }
+
+    /**
+     * Data source used by JPA.
+     *
+     * @param shardRoutingDataSource the routing data source
+     * @return the routing data source, taking its connection at the first statement
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    /**
+     * Applies the schema of the user table to every shard when the session factory starts.
+     *
+     * @param userShards the shard bindings
+     * @return the customizer registering {@link ShardSchemaIntegrator}
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(UserShards userShards) {
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator(userShards)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.rakbank.users.config;
+
+import com.rakbank.users.service.UserShards;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool of the shard bound to the current thread by {@link UserShards}. The
+ * shard is looked up when a connection is taken, so this data source is meant to be wrapped in a
+ * LazyConnectionDataSourceProxy, which only takes one at the first statement of a transaction.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final UserShards userShards;
+    private final List<HikariDataSource> shardPools;
+
+    /**
+     * @param userShards the shard bindings
+     * @param shardPools the pools of every shard, by shard; the pool of shard 0 is left to its own bean
+     */
+    public ShardRoutingDataSource(UserShards userShards, List<HikariDataSource> shardPools) {
+        this.userShards = userShards;
+        this.shardPools = shardPools;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardPools.size(); shard++) {
+            targets.put(shard, shardPools.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shardPools.get(0));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return userShards.current();
+    }
+
+    @Override
+    public void destroy() {
+        shardPools.subList(1, shardPools.size()).forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,84 @@
+package com.rakbank.users.config;
+
+import com.rakbank.users.entity.User;
+import com.rakbank.users.service.UserShards;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Applies the schema action configured for the session factory, such as spring.jpa.hibernate.ddl-auto, to the
+ * shards after shard 0, which Hibernate itself only applies to the database it connects to first. The user
+ * id sequence of each shard is then moved to the first id of the shard, so its users get ids encoding it.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaIntegrator.class);
+
+    private final UserShards userShards;
+
+    public ShardSchemaIntegrator(UserShards userShards) {
+        this.userShards = userShards;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        JdbcConnectionAccess connectionAccess = sessionFactory.getJdbcServices().getBootstrapJdbcConnectionAccess();
+        for (int shard = 1; shard < userShards.count(); shard++) {
+            int target = shard;
+            userShards.on(target, () -> {
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(),
+                        sessionFactory.getProperties(), action -> { });
+                alignIdSequence(target, dialect, connectionAccess);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    /**
+     * Restarts the user id sequence of a shard at the first id of the shard, unless it is already past it.
+     *
+     * @param shard the shard, bound to the current thread
+     * @param dialect the dialect of the shards
+     * @param connectionAccess access to the connections of the current shard
+     */
+    private void alignIdSequence(int shard, Dialect dialect, JdbcConnectionAccess connectionAccess) {
+        long start = UserShards.firstId(shard) - 1 + User.ID_ALLOCATION_SIZE;
+        try {
+            Connection connection = connectionAccess.obtainConnection();
+            try (Statement statement = connection.createStatement()) {
+                long next;
+                try (ResultSet result = statement.executeQuery(
+                        dialect.getSequenceSupport().getSequenceNextValString(User.ID_SEQUENCE))) {
+                    result.next();
+                    next = result.getLong(1);
+                }
+                if (next < start) {
+                    statement.execute("alter sequence " + User.ID_SEQUENCE + " restart with " + start);
+                    log.info("Started the user ids of shard {} at {}", shard, UserShards.firstId(shard));
+                }
+            } finally {
+                connectionAccess.releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot align the user id sequence of shard " + shard, e);
+        }
+    }
+}
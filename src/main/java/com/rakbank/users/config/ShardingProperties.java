@@ -0,0 +1,60 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "users.sharding")
+public class ShardingProperties {
+
+    /**
+     * Whether users are spread over several databases. The spring.datasource database is shard 0, which also
+     * holds the email directory; the shards listed below are shards 1 and up.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Databases of the shards after shard 0, in order. Once users were created on a shard, its position in
+     * the list must not change, as user ids refer to it.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * Number of threads querying the shards in parallel for the reads that span every shard.
+     */
+    private int queryThreads = 8;
+
+    /**
+     * Time the shard of a user read from the email directory is trusted before it is read again, so users
+     * moved by another instance are found on their new shard within that time.
+     */
+    private Duration locationCacheTtl = Duration.ofSeconds(1);
+
+    @Data
+    public static class Shard {
+
+        /**
+         * JDBC URL of the shard. The driver is the one of spring.datasource.
+         */
+        private String url;
+
+        /**
+         * Login user of the shard, defaults to the one of spring.datasource.
+         */
+        private String username;
+
+        /**
+         * Login password of the shard, defaults to the one of spring.datasource.
+         */
+        private String password;
+
+        /**
+         * Maximum number of connections to the shard.
+         */
+        private int maximumPoolSize = 10;
+    }
+}
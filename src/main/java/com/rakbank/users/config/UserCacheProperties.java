@@ -0,0 +1,26 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "users.cache")
+public class UserCacheProperties {
+
+    /**
+     * Whether user lookups are cached. Disable to compare against uncached reads.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of users kept in the cache. The least recently used entries are evicted first.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Time after which a cached user is reloaded from the database, whatever the writes.
+     */
+    private Duration timeToLive = Duration.ofMinutes(10);
+}
@@ -0,0 +1,21 @@
+package com.rakbank.users.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "users.virtual-threads")
+public class VirtualThreadProperties {
+
+    /**
+     * Shortest time a virtual thread has to stay pinned to its carrier thread to be reported.
+     */
+    private Duration pinningThreshold = Duration.ofMillis(20);
+
+    /**
+     * Number of stack frames logged for each distinct pinning location.
+     */
+    private int pinningStackDepth = 12;
+}
@@ -1,19 +1,35 @@
 package com.rakbank.users.controller;
 
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.CursorPage;
+import com.rakbank.users.dto.EmailAvailabilityDto;
+import com.rakbank.users.dto.SlicePage;
 import com.rakbank.users.dto.UserDto;
 import com.rakbank.users.dto.UserPasswordDto;
 import com.rakbank.users.dto.UserRegistrationDto;
 import com.rakbank.users.dto.UserUpdateDto;
+import com.rakbank.users.service.UserChangeFeed;
+import com.rakbank.users.service.UserExportService;
 import com.rakbank.users.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.*;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/user")
@@ -21,25 +37,51 @@ import java.util.Optional;
 public class UserController {
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserChangeFeed userChangeFeed;
 
     /**
      * Creates a new user.
      *
+     * The password is hashed on the hashing pool, so the request thread is released while it runs.
+     *
      * @param userDto the user registration data transfer object containing user details
-     * @return ResponseEntity containing the created UserDto
+     * @return CompletableFuture of the ResponseEntity containing the created UserDto
      */
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<UserDto> createUser(@RequestBody UserRegistrationDto userDto) {
+    public CompletableFuture<ResponseEntity<UserDto>> createUser(@RequestBody UserRegistrationDto userDto) {
         log.info("Creating user: {}", userDto.getEmail());
-        var result = userService.createUser(userDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        return userService.createUserAsync(userDto)
+                .thenApply(result -> ResponseEntity.status(HttpStatus.CREATED).body(result));
+    }
+
+    /**
+     * Registers a batch of users in one call.
+     * Entries that fail validation or use an email that is already taken are reported as rejected,
+     * the others are created.
+     *
+     * @param userDtos the user registration data transfer objects
+     * @return CompletableFuture of the ResponseEntity containing one result per entry
+     */
+    @PostMapping("/register/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<ResponseEntity<List<BatchRegistrationResult>>> registerBatch(@RequestBody List<UserRegistrationDto> userDtos) {
+        log.info("Registering a batch of {} users", userDtos.size());
+        return userService.registerBatch(userDtos)
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
      * Retrieves a paginated list of all users.
      *
+     * The page carries a strong ETag derived from the versions of its users; a matching If-None-Match
+     * is answered with 304 Not Modified without serializing the page.
+     *
      * @param pageable the pagination information
      * @return ResponseEntity containing a page of UserDto objects
      */
@@ -48,51 +90,174 @@ public class UserController {
     public ResponseEntity<Page<UserDto>> getAllUsers(Pageable pageable) {
         log.info("Getting all users");
         var result = userService.getUsers(pageable);
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok().eTag(UserETags.of(result)).body(result);
+    }
+
+    /**
+     * Retrieves a page of users without counting them, for clients that only page forward and backward.
+     * The body only tells whether a next page exists, which saves the count query over the whole table that
+     * the paginated list runs. Like the paginated list, the page carries an ETag and honours If-None-Match.
+     *
+     * @param pageable the pagination information
+     * @return ResponseEntity containing the users of the page and whether a next page exists
+     */
+    @GetMapping(params = "mode=slice")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<SlicePage<UserDto>> getUserSlice(Pageable pageable) {
+        log.info("Getting users without count");
+        var result = SlicePage.of(userService.getUserSlice(pageable));
+        return ResponseEntity.ok().eTag(UserETags.of(result)).body(result);
+    }
+
+    /**
+     * Retrieves a page of users with cursor pagination.
+     * Pages are sorted by id or createdAt and linked by opaque cursors, so their cost does not grow with depth.
+     * Like the paginated list, the page carries an ETag and honours If-None-Match.
+     *
+     * @param cursor the cursor returned by a previous page, or absent for the first page
+     * @param sort the sort of the first page, on id or createdAt
+     * @param size the page size, capped to the configured maximum
+     * @return ResponseEntity containing the page and the cursors of the neighbouring pages
+     */
+    @GetMapping(params = "mode=cursor")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPage<UserDto>> getUsersByCursor(@RequestParam(required = false) String cursor,
+                                                               @SortDefault(sort = "id") Sort sort,
+                                                               @RequestParam(required = false) Integer size) {
+        log.info("Getting users by cursor");
+        var result = userService.getUsersByCursor(cursor, sort, size);
+        return ResponseEntity.ok().eTag(UserETags.of(result)).body(result);
+    }
+
+    /**
+     * Searches users by part of their name or email, ignoring case, best matches first.
+     *
+     * @param q the text to search for; queries shorter than three characters only match the start of a word
+     * @param pageable the pagination information; its sort is ignored
+     * @return ResponseEntity containing a page of the matching UserDto objects
+     */
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<Page<UserDto>> searchUsers(@RequestParam String q, Pageable pageable) {
+        log.info("Searching users");
+        return ResponseEntity.ok(userService.searchUsers(q, pageable));
+    }
+
+    /**
+     * Streams the users created, updated and deleted from now on as Server-Sent Events, each carrying a
+     * UserChangeEvent and its sequence number as event id.
+     * A client reconnecting with Last-Event-ID receives the events it missed, as long as they are still buffered;
+     * otherwise, as when it reads too slowly, it is sent a reset event and disconnected, and should reload the
+     * users before subscribing again.
+     *
+     * @param lastEventId the id of the last event received before reconnecting, if any
+     * @return SseEmitter streaming the events
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.info("Subscribing to user changes");
+        return userChangeFeed.subscribe(lastEventId);
+    }
+
+    /**
+     * Exports every user as NDJSON or CSV, depending on the Accept header (NDJSON by default).
+     * Users are streamed from the database straight to the response, so memory use stays flat
+     * whatever the number of users.
+     *
+     * @param accept the Accept header of the request
+     * @param response the response the users are written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    public void exportUsers(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        boolean csv = prefersCsv(accept);
+        log.info("Exporting users as {}", csv ? "CSV" : "NDJSON");
+        response.setStatus(HttpStatus.OK.value());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType((csv ? CSV : NDJSON).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(csv ? "users.csv" : "users.ndjson")
+                .build()
+                .toString());
+        if (csv) {
+            userExportService.exportCsv(response.getOutputStream());
+        } else {
+            userExportService.exportNdjson(response.getOutputStream());
+        }
+    }
+
+    /**
+     * Checks whether an email can still be used to register.
+     *
+     * @param email the email to check
+     * @return ResponseEntity containing the email and whether it is available
+     */
+    @GetMapping("/email-available")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<EmailAvailabilityDto> isEmailAvailable(@RequestParam String email) {
+        var result = userService.isEmailAvailable(email);
+        return ResponseEntity.ok(new EmailAvailabilityDto(email, result));
     }
 
     /**
      * Retrieves a user by their ID.
+     * The response carries the version of the user as a strong ETag. When If-None-Match is sent, only the
+     * version is looked up and a matching request is answered with 304 Not Modified.
      *
      * @param userId the ID of the user to retrieve
-     * @return ResponseEntity containing the UserDto of the requested user
+     * @param request the current request, used to evaluate If-None-Match
+     * @return ResponseEntity containing the UserDto of the requested user, or an empty 304 response
      */
     @GetMapping("/{userId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long userId) {
+    public ResponseEntity<UserDto> getUserById(@PathVariable Long userId, WebRequest request) {
         log.info("Getting user: {}", userId);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = UserETags.ofVersion(userService.getUserVersion(userId));
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         var result = userService.getUserById(userId);
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok().eTag(UserETags.of(result)).body(result);
     }
 
     /**
      * Updates an existing user.
+     * An If-Match header holding the ETag of the user makes the update conditional: it fails with
+     * 412 Precondition Failed if the user was modified since.
      *
      * @param userId the ID of the user to update
      * @param user the user update data transfer object containing updated user details
+     * @param ifMatch the optional If-Match header
      * @return ResponseEntity containing the updated UserDto, if found
      */
     @PutMapping("/{userId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Optional<UserDto>> updateUser(@PathVariable Long userId, @RequestBody UserUpdateDto user) {
+    public ResponseEntity<Optional<UserDto>> updateUser(@PathVariable Long userId, @RequestBody UserUpdateDto user,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                        String ifMatch) {
         log.info("Updating user: {}", userId);
-        var result = userService.updateUser(userId, user);
-        return ResponseEntity.ok(result);
+        var result = userService.updateUser(userId, user, UserETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(UserETags.of(result.orElseThrow())).body(result);
     }
 
     /**
      * Changes the password of a user.
      *
+     * The password is hashed on the hashing pool, so the request thread is released while it runs.
+     *
      * @param userId the ID of the user whose password is to be changed
      * @param user the user password data transfer object containing the new password
-     * @return ResponseEntity with a message indicating the result of the operation
+     * @return CompletableFuture of the ResponseEntity with a message indicating the result of the operation
      */
     @PatchMapping("/{userId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<String> changePassword( @PathVariable Long userId, @RequestBody UserPasswordDto user) {
+    public CompletableFuture<ResponseEntity<String>> changePassword( @PathVariable Long userId, @RequestBody UserPasswordDto user) {
         log.info("change password for user with id : {}", userId);
-        var result = userService.changePassword(userId, user);
-        return ResponseEntity.ok(result);
+        return userService.changePasswordAsync(userId, user)
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -109,5 +274,23 @@ public class UserController {
         return ResponseEntity.ok(result);
     }
 
-
+    /**
+     * Tells if the client prefers CSV over NDJSON, following the quality and specificity of the Accept header.
+     */
+    private static boolean prefersCsv(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> acceptedTypes = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            if (acceptedType.isCompatibleWith(NDJSON)) {
+                return false;
+            }
+            if (acceptedType.isCompatibleWith(CSV)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
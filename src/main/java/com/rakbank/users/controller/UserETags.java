@@ -0,0 +1,83 @@
+package com.rakbank.users.controller;
+
+import com.rakbank.users.dto.CursorPage;
+import com.rakbank.users.dto.SlicePage;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.exceptions.PreconditionFailedException;
+import org.springframework.data.domain.Page;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Strong ETags of user resources. A user's ETag is its row version; a page's ETag is a digest of the
+ * ids and versions it contains and of its paging metadata, so it changes whenever its body would.
+ */
+public final class UserETags {
+
+    private UserETags() {
+    }
+
+    public static String of(UserDto user) {
+        return ofVersion(user.getVersion());
+    }
+
+    public static String ofVersion(long version) {
+        return "\"" + version + "\"";
+    }
+
+    public static String of(Page<UserDto> page) {
+        StringBuilder state = new StringBuilder()
+                .append(page.getNumber()).append('/')
+                .append(page.getSize()).append('/')
+                .append(page.getTotalElements()).append(';');
+        return digest(state, page.getContent());
+    }
+
+    public static String of(SlicePage<UserDto> page) {
+        StringBuilder state = new StringBuilder()
+                .append(page.getPage()).append('/')
+                .append(page.getSize()).append('/')
+                .append(page.isHasNext()).append(';');
+        return digest(state, page.getContent());
+    }
+
+    public static String of(CursorPage<UserDto> page) {
+        StringBuilder state = new StringBuilder()
+                .append(page.getSize()).append('/')
+                .append(page.getNextCursor()).append('/')
+                .append(page.getPrevCursor()).append(';');
+        return digest(state, page.getContent());
+    }
+
+    /**
+     * Reads the version a conditional update expects from its If-Match header.
+     * Only a single strong ETag or "*" is supported.
+     *
+     * @param ifMatch the If-Match header, may be null
+     * @return the expected version, or null if any version is accepted
+     * @throws PreconditionFailedException if the header cannot match the ETag of a user
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            try {
+                return Long.parseLong(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through to the precondition failure
+            }
+        }
+        throw new PreconditionFailedException();
+    }
+
+    private static String digest(StringBuilder state, List<UserDto> users) {
+        for (UserDto user : users) {
+            state.append(user.getId()).append(':').append(user.getVersion()).append(',');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
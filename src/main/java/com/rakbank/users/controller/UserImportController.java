@@ -0,0 +1,58 @@
+package com.rakbank.users.controller;
+
+import com.rakbank.users.dto.ImportJobStatus;
+import com.rakbank.users.service.UserImportService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/user/import")
+@RequiredArgsConstructor
+public class UserImportController {
+    private static final Logger log = LoggerFactory.getLogger(UserImportController.class);
+
+    private final UserImportService userImportService;
+
+    /**
+     * Starts importing users from an uploaded CSV or NDJSON file.
+     * CSV files need a header with name, email and password columns, NDJSON files one registration object per line.
+     *
+     * @param file the uploaded file
+     * @return ResponseEntity containing the status of the queued job, with its location
+     * @throws IOException if the upload cannot be stored
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ResponseEntity<ImportJobStatus> importUsers(@RequestParam("file") MultipartFile file) throws IOException {
+        log.info("Importing users from file: {}", file.getOriginalFilename());
+        var result = userImportService.startImport(file);
+        var location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{jobId}")
+                .buildAndExpand(result.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(result);
+    }
+
+    /**
+     * Retrieves the progress of an import job, including the rows rejected so far.
+     *
+     * @param jobId the ID of the import job
+     * @return ResponseEntity containing the status of the job
+     */
+    @GetMapping("/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<ImportJobStatus> getImportJob(@PathVariable String jobId) {
+        log.info("Getting import job: {}", jobId);
+        var result = userImportService.getJob(jobId);
+        return ResponseEntity.ok(result);
+    }
+}
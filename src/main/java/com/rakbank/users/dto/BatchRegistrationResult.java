@@ -0,0 +1,33 @@
+package com.rakbank.users.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchRegistrationResult {
+
+    public enum Status { CREATED, REJECTED }
+
+    private int index;
+
+    private String email;
+
+    private Status status;
+
+    private UserDto user;
+
+    private String error;
+
+    public static BatchRegistrationResult created(int index, UserDto user) {
+        return new BatchRegistrationResult(index, user.getEmail(), Status.CREATED, user, null);
+    }
+
+    public static BatchRegistrationResult rejected(int index, String email, String error) {
+        return new BatchRegistrationResult(index, email, Status.REJECTED, null, error);
+    }
+}
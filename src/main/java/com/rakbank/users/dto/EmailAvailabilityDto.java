@@ -0,0 +1,17 @@
+package com.rakbank.users.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailAvailabilityDto {
+
+    private String email;
+
+    private boolean available;
+}
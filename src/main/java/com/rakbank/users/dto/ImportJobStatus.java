@@ -0,0 +1,52 @@
+package com.rakbank.users.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobStatus {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private String id;
+
+    private String fileName;
+
+    private State state;
+
+    private long rowsRead;
+
+    private long imported;
+
+    private long rejected;
+
+    private double rowsPerSecond;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private String error;
+
+    private List<RejectedRow> rejectedRows;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RejectedRow {
+
+        private long line;
+
+        private String email;
+
+        private String error;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rakbank.users.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserChangeEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    /**
+     * Position of the event in the feed, also sent as the SSE event id.
+     */
+    private long sequence;
+
+    private Type type;
+
+    private Long userId;
+
+    /**
+     * The name of the user after the change, absent for deletions.
+     */
+    private String name;
+
+    /**
+     * The email of the user after the change, absent for deletions.
+     */
+    private String email;
+
+    /**
+     * The version of the user after the change, absent for deletions.
+     */
+    private Long version;
+
+    private Instant timestamp;
+}
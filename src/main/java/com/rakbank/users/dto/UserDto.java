@@ -1,5 +1,6 @@
 package com.rakbank.users.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.rakbank.users.entity.User;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -30,10 +31,18 @@ public class UserDto {
 
     private LocalDateTime createdAt;
 
+    @JsonIgnore
+    private long version;
+
+    public UserDto(Long id, String name, String email, LocalDateTime createdAt) {
+        this(id, name, email, createdAt, 0);
+    }
+
     public UserDto(User user) {
         this.id = user.getId();
         this.name = user.getName();
         this.email = user.getEmail();
         this.createdAt = user.getCreatedAt();
+        this.version = user.getVersion() == null ? 0 : user.getVersion();
     }
 }
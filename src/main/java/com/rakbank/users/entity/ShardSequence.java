@@ -0,0 +1,17 @@
+package com.rakbank.users.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Draws the ids of an entity from the {@link User#ID_SEQUENCE} sequence of the shard it is inserted on.
+ */
+@IdGeneratorType(ShardSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ShardSequence {
+}
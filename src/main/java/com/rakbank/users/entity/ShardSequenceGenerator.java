@@ -0,0 +1,46 @@
+package com.rakbank.users.entity;
+
+import com.rakbank.users.service.UserShards;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerDescriptor;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sequence generator keeping one block of ids per shard. A single block shared by every shard would hand out
+ * ids drawn from the sequence of one shard to users inserted on another, and the id of a user would no
+ * longer tell its home shard.
+ */
+public class ShardSequenceGenerator extends SequenceStyleGenerator {
+
+    private final Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+    private OptimizerDescriptor optimizationStrategy;
+    private int incrementSize;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.setProperty(SEQUENCE_PARAM, User.ID_SEQUENCE);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(User.ID_ALLOCATION_SIZE));
+        super.configure(type, parameters, serviceRegistry);
+        incrementSize = determineIncrementSize(parameters);
+        optimizationStrategy = determineOptimizationStrategy(parameters, incrementSize);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        int shard = UserShards.boundShard();
+        if (shard == 0) {
+            return super.generate(session, object);
+        }
+        Optimizer optimizer = optimizers.computeIfAbsent(shard, key -> OptimizerFactory.buildOptimizer(
+                optimizationStrategy, getIdentifierType().getReturnedClass(), incrementSize, -1));
+        return optimizer.generate(getDatabaseStructure().buildCallback(session));
+    }
+}
@@ -1,5 +1,6 @@
 package com.rakbank.users.entity;
 
+import com.rakbank.users.service.UserSearchIndexListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -8,6 +9,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.validator.constraints.Length;
 
 import java.time.LocalDateTime;
@@ -17,11 +19,35 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "user_t")
+@EntityListeners(UserSearchIndexListener.class)
+@Table(name = "user_t", indexes = {
+        @Index(name = "idx_user_t_created_at_id", columnList = "created_at, id")
+}, uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"))
+@SQLRestriction(User.NOT_DELETED)
 public class User {
 
+    /**
+     * Condition on the rows of live users. Entity queries add it on their own; native queries must add it.
+     */
+    public static final String NOT_DELETED = "deleted_at is null";
+
+    /**
+     * Unique constraint on the email column, which a registration losing the race for an email violates.
+     */
+    public static final String EMAIL_CONSTRAINT = "uk_user_email";
+
+    /**
+     * Sequence the ids are drawn from, one per shard.
+     */
+    public static final String ID_SEQUENCE = "user_t_seq";
+
+    /**
+     * Number of ids taken from the sequence at once.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardSequence
     private Long id;
 
     @NotBlank(message = "Name is mandatory")
@@ -31,7 +57,7 @@ public class User {
 
     @NotBlank(message = "Email is mandatory")
     @Email(message = "Email should be valid")
-    @Column(name = "email", nullable = false, unique = true)
+    @Column(name = "email", nullable = false)
     private String email;
 
     @NotBlank(message = "Password is mandatory")
@@ -41,6 +67,23 @@ public class User {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    /**
+     * Incremented on every change of the public columns, and used as the ETag of the user.
+     * Rows created before this column existed hold null, which is read as 0.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    /**
+     * When the user was deleted. Deleted users are hidden from every entity query until they are purged.
+     * The column is deliberately not indexed: an index would be chosen for the "deleted_at is null" condition
+     * of every listing, which then sorts all users instead of reading them in index order. The background
+     * purge scans the table instead.
+     */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
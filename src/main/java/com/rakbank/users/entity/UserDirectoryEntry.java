@@ -0,0 +1,34 @@
+package com.rakbank.users.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Email of a user, registered in the directory on shard 0 so that emails stay unique across shards, with
+ * the shard the user lives on. An entry without a user is the reservation of an email being registered.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_directory_t", indexes = @Index(name = "idx_user_directory_t_user_id", columnList = "user_id"))
+public class UserDirectoryEntry {
+
+    @Id
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "shard")
+    private Integer shard;
+}
@@ -0,0 +1,53 @@
+package com.rakbank.users.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Catalogue of the errors reported by the user API. Each code has the HTTP status it is answered with and,
+ * unless the detail depends on the request, the message it is reported with.
+ */
+public enum ErrorCode {
+    /**
+     * The request is malformed: wrong parameters, unsupported sort, invalid cursor or upload.
+     */
+    INVALID_REQUEST(HttpStatus.BAD_REQUEST, null),
+    /**
+     * The request body breaks the constraints of its DTO; the detail lists every violation.
+     */
+    VALIDATION_FAILED(HttpStatus.UNPROCESSABLE_ENTITY, null),
+    PASSWORDS_DO_NOT_MATCH(HttpStatus.UNPROCESSABLE_ENTITY, "Passwords do not match"),
+    PASSWORD_NOT_CHANGED(HttpStatus.UNPROCESSABLE_ENTITY, "Your password must be different from your current password"),
+    USER_NOT_FOUND(HttpStatus.NOT_FOUND, "User not found"),
+    IMPORT_JOB_NOT_FOUND(HttpStatus.NOT_FOUND, "Import job not found"),
+    EMAIL_ALREADY_EXISTS(HttpStatus.CONFLICT, "Email already exist"),
+    /**
+     * A conditional request does not match the current version of the user.
+     */
+    USER_MODIFIED(HttpStatus.PRECONDITION_FAILED, "User was modified by another request"),
+    /**
+     * The password hashing pool is saturated; the request can be retried later.
+     */
+    SERVICE_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please retry later");
+
+    private final HttpStatus status;
+    private final String message;
+
+    ErrorCode(HttpStatus status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * @return the HTTP status this error is answered with
+     */
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the message of this error, or null if it depends on the request
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -1,27 +1,127 @@
 package com.rakbank.users.exceptions;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakbank.users.config.HashingProperties;
+import com.rakbank.users.entity.User;
 import jakarta.validation.ConstraintViolationException;
-import org.springframework.http.HttpStatus;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Answers errors with an RFC 9457 Problem JSON body carrying the {@link ErrorCode}, for example
+ * {"title":"Not Found","status":404,"detail":"User not found","code":"USER_NOT_FOUND"}.
+ * <p>
+ * The body of every error with a fixed message is serialized once, at startup; only errors whose detail
+ * depends on the request are serialized when they happen.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final HashingProperties hashingProperties;
+    private final ObjectMapper objectMapper;
+    private final Map<ErrorCode, byte[]> cachedBodies = new EnumMap<>(ErrorCode.class);
+
+    public GlobalExceptionHandler(HashingProperties hashingProperties, ObjectMapper objectMapper) {
+        this.hashingProperties = hashingProperties;
+        this.objectMapper = objectMapper;
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            if (errorCode.getMessage() != null) {
+                cachedBodies.put(errorCode, serialize(errorCode, errorCode.getMessage()));
+            }
+        }
+    }
+
     @ExceptionHandler(UserException.class)
-    public ResponseEntity<String> handleUserException(UserException ex) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    public ResponseEntity<byte[]> handleUserException(UserException ex) {
+        return status(ex.getErrorCode()).body(body(ex.getErrorCode(), ex.getMessage()));
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
-    public ResponseEntity<String> handleConstraintViolationException(ConstraintViolationException ex) {
+    public ResponseEntity<byte[]> handleConstraintViolationException(ConstraintViolationException ex) {
         StringBuilder message = new StringBuilder("Validation errors: ");
         ex.getConstraintViolations().forEach(violation ->
                 message.append(violation.getMessage()).append("; ")
         );
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(message.toString());
+        return status(ErrorCode.VALIDATION_FAILED).body(body(ErrorCode.VALIDATION_FAILED, message.toString()));
     }
 
-    // Add more exception handlers as needed
+    /**
+     * Answers a registration or update that lost the race for an email with 409, as its duplicate check
+     * passed before a concurrent request inserted the same email. Other integrity violations are left to the
+     * default handling.
+     *
+     * @param ex the violation
+     * @return the EMAIL_ALREADY_EXISTS problem
+     * @throws DataIntegrityViolationException if the violation is not on {@link User#EMAIL_CONSTRAINT}
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<byte[]> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        if (!violates(ex, User.EMAIL_CONSTRAINT)) {
+            throw ex;
+        }
+        return status(ErrorCode.EMAIL_ALREADY_EXISTS)
+                .body(body(ErrorCode.EMAIL_ALREADY_EXISTS, ErrorCode.EMAIL_ALREADY_EXISTS.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<byte[]> handleRejectedExecutionException(RejectedExecutionException ex) {
+        return status(ErrorCode.SERVICE_BUSY)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(hashingProperties.getRetryAfterSeconds()))
+                .body(body(ErrorCode.SERVICE_BUSY, ErrorCode.SERVICE_BUSY.getMessage()));
+    }
+
+    /**
+     * @return whether a constraint violation in the cause chain names the constraint. Databases may report
+     * the name upper-cased or qualified with the table, so the name is matched case-insensitively within it.
+     */
+    private static boolean violates(Throwable ex, String constraintName) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof org.hibernate.exception.ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraintName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity.BodyBuilder status(ErrorCode errorCode) {
+        return ResponseEntity.status(errorCode.getStatus()).contentType(MediaType.APPLICATION_PROBLEM_JSON);
+    }
+
+    /**
+     * @return the cached body of the error code when the detail is its default message, a new body otherwise
+     */
+    private byte[] body(ErrorCode errorCode, String detail) {
+        return Objects.equals(detail, errorCode.getMessage())
+                ? cachedBodies.get(errorCode)
+                : serialize(errorCode, detail);
+    }
+
+    private byte[] serialize(ErrorCode errorCode, String detail) {
+        try {
+            return objectMapper.writeValueAsBytes(new Problem(errorCode.getStatus().getReasonPhrase(),
+                    errorCode.getStatus().value(), detail, errorCode.name()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the problem " + errorCode, e);
+        }
+    }
+
+    /**
+     * Problem JSON body. The type member is left out, which stands for about:blank: the title is the reason
+     * phrase of the status and the code tells errors apart.
+     */
+    record Problem(String title, int status, String detail, String code) {
+    }
 }
@@ -0,0 +1,12 @@
+package com.rakbank.users.exceptions;
+
+/**
+ * Thrown when a conditional request does not match the current version of a user.
+ */
+public class PreconditionFailedException extends UserException {
+    private static final long serialVersionUID = 1L;
+
+    public PreconditionFailedException() {
+        super(ErrorCode.USER_MODIFIED);
+    }
+}
@@ -1,13 +1,31 @@
 package com.rakbank.users.exceptions;
 
+/**
+ * Expected business error of the user API, identified by its {@link ErrorCode}.
+ * <p>
+ * These errors are part of normal traffic (unknown ids, taken emails, invalid input) and are fully described by
+ * their code and message, so they are created without a stack trace: filling it in is most of the cost of
+ * throwing an exception from deep in a request.
+ */
 public class UserException extends RuntimeException {
     private static final long serialVersionUID = 1L;
 
-    public UserException(String message) {
-        super(message);
+    private final ErrorCode errorCode;
+
+    public UserException(ErrorCode errorCode) {
+        this(errorCode, errorCode.getMessage());
+    }
+
+    public UserException(ErrorCode errorCode, String message) {
+        this(errorCode, message, null);
+    }
+
+    public UserException(ErrorCode errorCode, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.errorCode = errorCode;
     }
 
-    public UserException(String message, Throwable cause) {
-        super(message, cause);
+    public ErrorCode getErrorCode() {
+        return errorCode;
     }
 }
@@ -0,0 +1,75 @@
+package com.rakbank.users.repository;
+
+import com.rakbank.users.entity.UserDirectoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface UserDirectoryRepository extends JpaRepository<UserDirectoryEntry, String> {
+
+    @Query("select d.email from UserDirectoryEntry d where d.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Reserves an email with a plain INSERT, failing on the primary key if it is already registered.
+     *
+     * @return the number of inserted rows
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into user_directory_t (email) values (:email)", nativeQuery = true)
+    int reserve(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query("update UserDirectoryEntry d set d.userId = :userId, d.shard = :shard where d.email = :email")
+    int assign(@Param("email") String email, @Param("userId") Long userId, @Param("shard") int shard);
+
+    @Transactional
+    @Modifying
+    @Query("update UserDirectoryEntry d set d.shard = :shard where d.userId = :userId")
+    int relocate(@Param("userId") Long userId, @Param("shard") int shard);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserDirectoryEntry d where d.email = :email")
+    int release(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserDirectoryEntry d where d.userId = :userId")
+    int releaseUser(@Param("userId") Long userId);
+
+    /**
+     * Registers the users of shard 0 missing from the directory, such as those created before sharding.
+     *
+     * @return the number of registered users
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into user_directory_t (email, user_id, shard) select u.email, u.id, 0 from user_t u "
+            + "where u.deleted_at is null and not exists (select 1 from user_directory_t d where d.email = u.email)", nativeQuery = true)
+    int registerUnlisted();
+
+    /**
+     * A user changing its email briefly holds two entries, both with the shard it lives on.
+     *
+     * @return the shard the user lives on, or null if the user is not in the directory
+     */
+    @Query("select max(d.shard) from UserDirectoryEntry d where d.userId = :userId")
+    Integer findShardOf(@Param("userId") Long userId);
+
+    /**
+     * @return the shards the users in the directory live on, as (user id, shard) pairs
+     */
+    @Query("select d.userId, max(d.shard) from UserDirectoryEntry d where d.userId in :userIds group by d.userId")
+    List<Object[]> findShardsOf(@Param("userIds") Collection<Long> userIds);
+}
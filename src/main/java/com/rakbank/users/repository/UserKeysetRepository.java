@@ -0,0 +1,41 @@
+package com.rakbank.users.repository;
+
+import com.rakbank.users.dto.UserDto;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UserKeysetRepository {
+
+    /**
+     * Columns a keyset page may be sorted by. Both are backed by an index ending with the id.
+     */
+    enum KeysetColumn {
+        ID("id"),
+        CREATED_AT("createdAt");
+
+        private final String property;
+
+        KeysetColumn(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+    }
+
+    /**
+     * Seeks the users following a position in the given order, without an OFFSET and without a count.
+     *
+     * @param column the sort column
+     * @param direction the scan direction
+     * @param createdAt the creation date of the last seen user, only used when sorting by creation date
+     * @param id the id of the last seen user, or null to start from the beginning
+     * @param limit the maximum number of users to return
+     * @return the users after the position, in scan order, projected without their password hash
+     */
+    List<UserDto> findKeysetPage(KeysetColumn column, Sort.Direction direction, LocalDateTime createdAt,
+                                 Long id, int limit);
+}
@@ -0,0 +1,56 @@
+package com.rakbank.users.repository;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class UserKeysetRepositoryImpl implements UserKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<UserDto> findKeysetPage(KeysetColumn column, Sort.Direction direction, LocalDateTime createdAt,
+                                        Long id, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<UserDto> query = cb.createQuery(UserDto.class);
+        Root<User> user = query.from(User.class);
+        Expression<Long> userId = user.get("id");
+        query.select(cb.construct(UserDto.class, userId, user.get("name"), user.get("email"), user.get("createdAt"),
+                cb.coalesce(user.<Long>get("version"), 0L)));
+        boolean ascending = direction.isAscending();
+
+        if (id != null) {
+            Predicate afterId = ascending ? cb.greaterThan(userId, id) : cb.lessThan(userId, id);
+            if (column == KeysetColumn.CREATED_AT) {
+                Expression<LocalDateTime> userCreatedAt = user.get("createdAt");
+                Predicate afterCreatedAt = ascending
+                        ? cb.greaterThan(userCreatedAt, createdAt)
+                        : cb.lessThan(userCreatedAt, createdAt);
+                query.where(cb.or(afterCreatedAt, cb.and(cb.equal(userCreatedAt, createdAt), afterId)));
+            } else {
+                query.where(afterId);
+            }
+        }
+
+        Order byId = ascending ? cb.asc(userId) : cb.desc(userId);
+        if (column == KeysetColumn.CREATED_AT) {
+            Expression<LocalDateTime> userCreatedAt = user.get("createdAt");
+            query.orderBy(ascending ? cb.asc(userCreatedAt) : cb.desc(userCreatedAt), byId);
+        } else {
+            query.orderBy(byId);
+        }
+        return em.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
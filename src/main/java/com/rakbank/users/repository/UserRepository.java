@@ -1,10 +1,216 @@
 package com.rakbank.users.repository;
 
+import com.rakbank.users.dto.UserDto;
 import com.rakbank.users.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserKeysetRepository {
+    String STREAM_FETCH_SIZE = "1000";
+
     boolean existsByEmail(String email);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Loads a page of users as DTOs. Only the public columns are selected, so the password hash is never
+     * read and no entity is attached to the persistence context.
+     */
+    @Query(value = "select new com.rakbank.users.dto.UserDto(u.id, u.name, u.email, u.createdAt, coalesce(u.version, 0L)) "
+            + "from User u",
+            countQuery = "select count(u) from User u")
+    Page<UserDto> findAllDtos(Pageable pageable);
+
+    /**
+     * Loads a page of users as DTOs like {@link #findAllDtos(Pageable)}, without counting the users: one more
+     * user than the page size is read to tell whether a next page exists.
+     */
+    @Query("select new com.rakbank.users.dto.UserDto(u.id, u.name, u.email, u.createdAt, coalesce(u.version, 0L)) "
+            + "from User u")
+    Slice<UserDto> findDtoSlice(Pageable pageable);
+
+    /**
+     * Loads the public columns of a user, without the password hash and without attaching an entity.
+     */
+    @Query("select new com.rakbank.users.dto.UserDto(u.id, u.name, u.email, u.createdAt, coalesce(u.version, 0L)) "
+            + "from User u where u.id = :id")
+    Optional<UserDto> findDtoById(@Param("id") Long id);
+
+    /**
+     * Loads the public columns of the given users, in no particular order. Unknown ids are skipped.
+     */
+    @Query("select new com.rakbank.users.dto.UserDto(u.id, u.name, u.email, u.createdAt, coalesce(u.version, 0L)) "
+            + "from User u where u.id in :ids")
+    List<UserDto> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Loads a page of the users whose lower-cased name or email matches a LIKE pattern escaped with a backslash.
+     * The pattern starts with a wildcard, so every row is scanned.
+     */
+    @Query(value = "select new com.rakbank.users.dto.UserDto(u.id, u.name, u.email, u.createdAt, coalesce(u.version, 0L)) "
+            + "from User u where lower(u.name) like :pattern escape '\\' or lower(u.email) like :pattern escape '\\'",
+            countQuery = "select count(u) from User u "
+                    + "where lower(u.name) like :pattern escape '\\' or lower(u.email) like :pattern escape '\\'")
+    Page<UserDto> searchDtos(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Loads a user with its password hash and locks its row until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findForUpdate(@Param("id") Long id);
+
+    /**
+     * Loads the ids of the most recently created users, highest id first.
+     */
+    @Query("select u.id from User u order by u.id desc")
+    List<Long> findNewestIds(Pageable pageable);
+
+    /**
+     * Inserts a copy of a user, such as one moved from another shard, keeping its id and version.
+     *
+     * @return the number of inserted rows
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into user_t (id, name, email, password, created_at, version) "
+            + "values (:#{#user.id}, :#{#user.name}, :#{#user.email}, :#{#user.password}, :#{#user.createdAt}, "
+            + ":#{#user.version})", nativeQuery = true)
+    int insertCopy(@Param("user") User user);
+
+    @Query("select coalesce(u.version, 0L) from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select u.password from User u where u.id = :id")
+    Optional<String> findPasswordById(@Param("id") Long id);
+
+    /**
+     * Overwrites the name and email of a user in a single statement and increments its version.
+     * When a version is given the row is only updated if it still holds that version.
+     *
+     * @return the number of updated rows, 0 if the user does not exist or holds another version
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.name = :name, u.email = :email, u.version = coalesce(u.version, 0) + 1 "
+            + "where u.id = :id and (:version is null or coalesce(u.version, 0) = :version)")
+    int updateProfile(@Param("id") Long id, @Param("name") String name, @Param("email") String email,
+                      @Param("version") Long version);
+
+    /**
+     * Overwrites the password hash of a user in a single statement.
+     *
+     * @return the number of updated rows, 0 if the user does not exist
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    /**
+     * Deletes a user in a single statement, without loading it first.
+     *
+     * @return the number of deleted rows, 0 if the user does not exist
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int removeById(@Param("id") Long id);
+
+    /**
+     * Marks a user as deleted in a single statement, leaving the row for {@link #purgeByIds(Collection)}.
+     *
+     * @return the number of updated rows, 0 if the user does not exist or is already deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.deletedAt = :deletedAt where u.id = :id and u.deletedAt is null")
+    int markDeleted(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Loads the next deleted users after an id, in id order, so that the deleted users are found by walking
+     * the primary key in batches, each resuming where the previous one stopped.
+     * <p>
+     * The deletion date is not indexed, as H2 would then pick that index for the "deleted_at is null"
+     * condition of every listing. On PostgreSQL, a partial index on user_t (id) where deleted_at is not null
+     * lets this query read the deleted users only, without being usable by the listings.
+     */
+    @Query(value = "select id, deleted_at as deletedAt from user_t where id > :afterId and deleted_at is not null "
+            + "order by id limit :limit", nativeQuery = true)
+    List<Tombstone> findDeletedAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * Removes deleted users for good.
+     *
+     * @return the number of removed rows
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "delete from user_t where id in (:ids) and deleted_at is not null", nativeQuery = true)
+    int purgeByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Removes the deleted users still holding one of the given emails, so that the emails can be used again.
+     *
+     * @return the number of removed rows
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "delete from user_t where email in (:emails) and deleted_at is not null", nativeQuery = true)
+    int purgeByEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * A deleted user awaiting purge.
+     */
+    interface Tombstone {
+
+        Long getId();
+
+        LocalDateTime getDeletedAt();
+    }
+
+    /**
+     * Streams every user as a DTO, ordered by id. The rows are fetched from the database in chunks
+     * and never attached to the persistence context, so memory use does not depend on the table size.
+     * Must be consumed inside a transaction and closed after use.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.rakbank.users.dto.UserDto(u.id, u.name, u.email, u.createdAt, coalesce(u.version, 0L)) "
+            + "from User u order by u.id")
+    Stream<UserDto> streamAll();
+
+    /**
+     * Streams the email of every user, fetched from the database in chunks.
+     * Must be consumed inside a transaction and closed after use.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
 }
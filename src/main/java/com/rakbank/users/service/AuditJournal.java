@@ -0,0 +1,484 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.AuditProperties;
+import com.rakbank.users.config.AuditProperties.FsyncPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of the mutations of users, written through memory-mapped segment files.
+ * <p>
+ * Mutations are recorded once their transaction commits: the calling thread only puts the record on a
+ * lock-free queue, and a single writer thread appends the records to the current segment. The writer forces
+ * the written records to disk according to the configured {@link FsyncPolicy}: by default once per group
+ * commit, after draining up to the group commit size from the queue, so a burst of mutations shares one fsync.
+ * <p>
+ * Segments are named after the sequence number of their first record. Each record is laid out as
+ * <pre>
+ * int length | int crc32c | long sequence | long timestamp | byte type | long userId | string name | string email
+ * </pre>
+ * where length and the CRC cover everything after the CRC, and strings are an int byte count, -1 for null,
+ * followed by their UTF-8 bytes. The length is written last, so a reader never sees a record before it is
+ * complete, and the unused end of a segment is zero. On startup the last segment is scanned and everything
+ * after its last intact record, such as a record torn by a crash, is discarded. Full segments are deleted once
+ * older than the retention.
+ */
+@Component
+public class AuditJournal implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(AuditJournal.class);
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 8;
+    private static final int MIN_BODY_BYTES = 8 + 8 + 1 + 8 + 4 + 4;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BACKPRESSURE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AuditProperties properties;
+    private final Queue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter records;
+    private final Timer forces;
+    private final CRC32C crc = new CRC32C();
+    private final Thread writer;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private volatile boolean running;
+    private boolean closed;
+    private volatile boolean idle;
+
+    // only used by the writer thread once started
+    private Segment segment;
+    private long nextSequence;
+    private long lastForce;
+
+    public AuditJournal(AuditProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.records = Counter.builder("users.audit.records")
+                .description("Records written to the audit journal").register(meterRegistry);
+        this.forces = Timer.builder("users.audit.fsync")
+                .description("Time spent forcing audit records to disk").register(meterRegistry);
+        Gauge.builder("users.audit.queue", queued, AtomicInteger::get)
+                .description("Records waiting for the audit journal writer").register(meterRegistry);
+        if (!properties.isEnabled()) {
+            this.writer = null;
+            return;
+        }
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the audit journal in " + properties.getDirectory(), e);
+        }
+        this.running = true;
+        this.writer = new Thread(this::writeLoop, "audit-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Records a mutation of a user once the current transaction commits, or immediately outside a transaction.
+     * A rolled back mutation is not recorded.
+     *
+     * @param type the kind of mutation
+     * @param userId the ID of the user
+     * @param name the name of the user after the mutation, or null when it did not change the profile
+     * @param email the email of the user after the mutation, or null when it did not change the profile
+     */
+    public void record(AuditRecord.Type type, long userId, String name, String email) {
+        if (writer == null) {
+            return;
+        }
+        AfterCommit.run(() -> append(new AuditRecord(0, Instant.now(), type, userId, name, email)));
+    }
+
+    private void append(AuditRecord record) {
+        while (queued.get() >= properties.getQueueCapacity() && running) {
+            LockSupport.parkNanos(this, BACKPRESSURE_PARK_NANOS);
+        }
+        if (!running) {
+            log.warn("Audit journal closed, dropping {} of user {}", record.type(), record.userId());
+            return;
+        }
+        queued.incrementAndGet();
+        queue.offer(record);
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Replays the records of the journal, in sequence order.
+     *
+     * @param fromSequence the sequence number of the first record to replay
+     * @param consumer the consumer of the records
+     * @return the sequence number following the last replayed record, or fromSequence if none was replayed
+     */
+    public long replay(long fromSequence, Consumer<AuditRecord> consumer) {
+        return replay(properties.getDirectory(), fromSequence, consumer);
+    }
+
+    /**
+     * Replays the records of a journal directory, in sequence order. Records can be replayed while the journal
+     * is being written; records of full segments that were deleted by the retention are skipped.
+     * A segment is read up to its first damaged record, then the replay goes on with the next segment.
+     *
+     * @param directory the directory of the journal segments
+     * @param fromSequence the sequence number of the first record to replay
+     * @param consumer the consumer of the records
+     * @return the sequence number following the last replayed record, or fromSequence if none was replayed
+     */
+    public static long replay(Path directory, long fromSequence, Consumer<AuditRecord> consumer) {
+        long[] next = {fromSequence};
+        try {
+            List<Long> bases = segmentBases(directory);
+            for (int i = 0; i < bases.size(); i++) {
+                if (i + 1 < bases.size() && bases.get(i + 1) <= fromSequence) {
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(segmentPath(directory, bases.get(i)), StandardOpenOption.READ)) {
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    int end = readSegment(buffer, bases.get(i), new CRC32C(), record -> {
+                        if (record.sequence() >= fromSequence) {
+                            consumer.accept(record);
+                            next[0] = record.sequence() + 1;
+                        }
+                    });
+                    if (buffer.limit() - end >= 4 && buffer.getInt(end) != 0) {
+                        log.warn("Damaged audit record in segment {} at offset {}", bases.get(i), end);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the audit journal in " + directory, e);
+        }
+        return next[0];
+    }
+
+    /**
+     * Stops the writer once every queued record is written and forced to disk.
+     */
+    public synchronized void close() {
+        if (writer == null || closed) {
+            return;
+        }
+        closed = true;
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            segment.channel.close();
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Could not close the audit journal", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        close();
+    }
+
+    /**
+     * Locks the directory, then recovers the last segment: the writer resumes after its last intact record
+     * and anything written after it is zeroed.
+     */
+    private void open() throws IOException {
+        Path directory = properties.getDirectory();
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("The audit journal in " + directory + " is used by another process");
+        }
+
+        List<Long> bases = segmentBases(directory);
+        long base = bases.isEmpty() ? 1 : bases.get(bases.size() - 1);
+        segment = Segment.open(segmentPath(directory, base), base, segmentBytes());
+        long[] last = {base - 1};
+        int end = readSegment(segment.buffer, base, crc, record -> last[0] = record.sequence());
+        if (zeroFrom(segment.buffer, end)) {
+            segment.buffer.force();
+            log.warn("Discarded a damaged audit record at offset {} of segment {}", end, base);
+        }
+        segment.position = end;
+        segment.forced = end;
+        nextSequence = last[0] + 1;
+        lastForce = System.nanoTime();
+        deleteExpiredSegments();
+        log.info("Opened audit journal in {} at sequence {}", directory, nextSequence);
+    }
+
+    private void writeLoop() {
+        FsyncPolicy fsync = properties.getFsync();
+        long fsyncIntervalNanos = properties.getFsyncInterval().toNanos();
+        try {
+            while (running || !queue.isEmpty()) {
+                int written = 0;
+                AuditRecord record;
+                while (written < properties.getGroupCommitSize() && (record = queue.poll()) != null) {
+                    write(record);
+                    written++;
+                }
+                if (written > 0) {
+                    queued.addAndGet(-written);
+                    records.increment(written);
+                    if (fsync == FsyncPolicy.GROUP_COMMIT) {
+                        force();
+                    }
+                }
+                if (fsync == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+                    force();
+                }
+                if (written == 0) {
+                    idle = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.parkNanos(this, fsync == FsyncPolicy.INTERVAL ? fsyncIntervalNanos : IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                }
+            }
+            force();
+        } catch (IOException | RuntimeException e) {
+            running = false;
+            log.error("Audit journal writer stopped, mutations are no longer audited", e);
+        }
+    }
+
+    private void write(AuditRecord record) throws IOException {
+        byte[] name = utf8(record.name());
+        byte[] email = utf8(record.email());
+        int bodyLength = MIN_BODY_BYTES + (name == null ? 0 : name.length) + (email == null ? 0 : email.length);
+        int recordLength = HEADER_BYTES + bodyLength;
+        if (recordLength > segmentBytes()) {
+            log.error("Audit record of user {} does not fit in a segment, dropping it", record.userId());
+            return;
+        }
+        if (segment.buffer.capacity() - segment.position < recordLength) {
+            roll();
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        int start = segment.position;
+        buffer.position(start + HEADER_BYTES);
+        buffer.putLong(nextSequence)
+                .putLong(record.timestamp().toEpochMilli())
+                .put((byte) record.type().ordinal())
+                .putLong(record.userId());
+        putString(buffer, name);
+        putString(buffer, email);
+        crc.reset();
+        crc.update(buffer.duplicate().position(start + HEADER_BYTES).limit(start + recordLength));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, bodyLength);
+        segment.position = start + recordLength;
+        nextSequence++;
+    }
+
+    /**
+     * Forces the current segment and starts a new one at the next sequence number.
+     */
+    private void roll() throws IOException {
+        force();
+        segment.channel.close();
+        segment = Segment.open(segmentPath(properties.getDirectory(), nextSequence), nextSequence, segmentBytes());
+        deleteExpiredSegments();
+    }
+
+    private void force() {
+        if (segment.position > segment.forced) {
+            int from = segment.forced;
+            int length = segment.position - from;
+            forces.record(() -> segment.buffer.force(from, length));
+            segment.forced = segment.position;
+        }
+        lastForce = System.nanoTime();
+    }
+
+    private void deleteExpiredSegments() throws IOException {
+        long expiry = System.currentTimeMillis() - properties.getRetention().toMillis();
+        for (long base : segmentBases(properties.getDirectory())) {
+            Path path = segmentPath(properties.getDirectory(), base);
+            if (base != segment.baseSequence && Files.getLastModifiedTime(path).toMillis() <= expiry) {
+                Files.delete(path);
+                log.info("Deleted audit segment {} past its retention", base);
+            }
+        }
+    }
+
+    private int segmentBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, properties.getSegmentSize().toBytes());
+    }
+
+    /**
+     * Reads the intact records of a segment, stopping at the end of the data or at the first record that is
+     * truncated, fails its CRC or is out of sequence.
+     *
+     * @return the offset following the last intact record
+     */
+    private static int readSegment(ByteBuffer buffer, long baseSequence, CRC32C crc, Consumer<AuditRecord> consumer) {
+        int position = 0;
+        long expected = baseSequence;
+        while (buffer.limit() - position >= HEADER_BYTES) {
+            int length = buffer.getInt(position);
+            if (length < MIN_BODY_BYTES || length > buffer.limit() - position - HEADER_BYTES) {
+                break;
+            }
+            int body = position + HEADER_BYTES;
+            crc.reset();
+            crc.update(buffer.duplicate().position(body).limit(body + length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            AuditRecord record = decode(buffer, body, body + length);
+            if (record == null || record.sequence() != expected) {
+                break;
+            }
+            consumer.accept(record);
+            expected++;
+            position = body + length;
+        }
+        return position;
+    }
+
+    /**
+     * @return the record, or null if its type or strings are malformed
+     */
+    private static AuditRecord decode(ByteBuffer buffer, int from, int to) {
+        ByteBuffer body = buffer.duplicate().position(from).limit(to);
+        long sequence = body.getLong();
+        long timestamp = body.getLong();
+        int type = body.get();
+        long userId = body.getLong();
+        if (type < 0 || type >= AuditRecord.Type.values().length) {
+            return null;
+        }
+        String[] strings = new String[2];
+        for (int i = 0; i < strings.length; i++) {
+            int length = body.getInt();
+            int following = 4 * (strings.length - 1 - i);
+            if (length < -1 || length > body.remaining() - following) {
+                return null;
+            }
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                body.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        if (body.hasRemaining()) {
+            return null;
+        }
+        return new AuditRecord(sequence, Instant.ofEpochMilli(timestamp), AuditRecord.Type.values()[type], userId,
+                strings[0], strings[1]);
+    }
+
+    /**
+     * Zeroes a buffer from an offset to its end.
+     *
+     * @return true if any non-zero byte was found
+     */
+    private static boolean zeroFrom(ByteBuffer buffer, int from) {
+        boolean dirty = false;
+        int position = from;
+        for (; position + 8 <= buffer.limit(); position += 8) {
+            if (buffer.getLong(position) != 0) {
+                buffer.putLong(position, 0);
+                dirty = true;
+            }
+        }
+        for (; position < buffer.limit(); position++) {
+            if (buffer.get(position) != 0) {
+                buffer.put(position, (byte) 0);
+                dirty = true;
+            }
+        }
+        return dirty;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Long> segmentBases(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(Path directory, long baseSequence) {
+        return directory.resolve(String.format("%020d%s", baseSequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A segment file mapped in full. The mapping stays valid after its channel is closed.
+     */
+    private static final class Segment {
+        private final long baseSequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int forced;
+
+        private Segment(long baseSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.baseSequence = baseSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Opens or creates a segment, growing its file to the given size if it is smaller.
+         */
+        static Segment open(Path path, long baseSequence, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long mappedSize = Math.max(size, Math.min(Integer.MAX_VALUE, channel.size()));
+            return new Segment(baseSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.rakbank.users.service;
+
+import java.time.Instant;
+
+/**
+ * A mutation of a user, as written to the {@link AuditJournal}.
+ *
+ * @param sequence the position of the record in the journal, starting at 1 and without gaps
+ * @param timestamp the time the mutation was committed, to the millisecond
+ * @param type the kind of mutation
+ * @param userId the ID of the user
+ * @param name the name of the user after the mutation, or null when it did not change the profile
+ * @param email the email of the user after the mutation, or null when it did not change the profile
+ */
+public record AuditRecord(long sequence, Instant timestamp, Type type, long userId, String name, String email) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        PASSWORD_CHANGED,
+        DELETED
+    }
+}
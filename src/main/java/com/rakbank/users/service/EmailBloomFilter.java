@@ -0,0 +1,304 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.EmailFilterProperties;
+import com.rakbank.users.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of every registered email.
+ * A negative answer is definitive, so most availability checks never reach the database; a positive answer
+ * only means the email may be taken and has to be confirmed with {@link UserRepository#existsByEmail}.
+ * <p>
+ * Bloom filters cannot forget an email, so deleted or changed emails stay in the filter as false positives
+ * until the filter is rebuilt from the database. Until the first build completes every email is reported
+ * as possibly present.
+ */
+@Component
+public class EmailBloomFilter implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private final EmailFilterProperties properties;
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong staleEntries = new AtomicLong();
+    /**
+     * Held shared by adds and exclusively while a rebuild installs or swaps in the new filter, so an add
+     * writes to the filter in use and to the one being built as of the same instant.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    private volatile Bits bits;
+    private volatile Bits building;
+    private volatile boolean ready;
+
+    public EmailBloomFilter(EmailFilterProperties properties, UserRepository userRepository, UserShards userShards,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.userShards = userShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("email-filter-"));
+        this.bits = new Bits(properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+
+        this.negatives = Counter.builder("users.email.filter.checks").tag("result", "negative")
+                .description("Email checks answered by the filter alone").register(meterRegistry);
+        this.positives = Counter.builder("users.email.filter.checks").tag("result", "positive")
+                .description("Email checks that had to be confirmed by the database").register(meterRegistry);
+        this.falsePositives = Counter.builder("users.email.filter.false.positives")
+                .description("Positive answers the database did not confirm").register(meterRegistry);
+        Gauge.builder("users.email.filter.memory", this, filter -> filter.bits.memoryBytes())
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("users.email.filter.insertions", this, filter -> filter.bits.insertions.get())
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.expected.fpp", this, filter -> filter.bits.expectedFalsePositiveRate())
+                .description("False positive probability expected from the current fill of the filter")
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.observed.fpp", this, EmailBloomFilter::observedFalsePositiveRate)
+                .description("Share of positive answers the database did not confirm")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the filter in the background once the application is up. Until then every check reaches the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        scheduleRebuild();
+    }
+
+    /**
+     * @return whether a rebuild is scheduled or running
+     */
+    boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * @return true once the filter has been built from the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param email the email to check
+     * @return false if the email is certainly not registered, true if it may be
+     */
+    public boolean mightContain(String email) {
+        if (!ready) {
+            return true;
+        }
+        boolean result = bits.mightContain(email);
+        (result ? positives : negatives).increment();
+        return result;
+    }
+
+    /**
+     * Records a positive answer that the database did not confirm.
+     */
+    public void recordFalsePositive() {
+        if (ready) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Adds a newly registered email. Must be called once the registration commits: a rebuild scanning the
+     * database meanwhile does not see an uncommitted email, which would then be lost when the rebuilt filter
+     * is swapped in.
+     *
+     * @param email the registered email
+     */
+    public void add(String email) {
+        swapLock.readLock().lock();
+        try {
+            bits.put(email);
+            Bits next = building;
+            if (next != null) {
+                next.put(email);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (ready && bits.insertions.get() > bits.expectedInsertions) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Records that a registered email was deleted or replaced. The filter keeps answering positively for it
+     * and is rebuilt once the stale entries reach the configured share of its capacity.
+     */
+    public void recordRemoval() {
+        long stale = staleEntries.incrementAndGet();
+        if (ready && stale > properties.getStaleRatio() * bits.expectedInsertions) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the filter from a streaming scan of the database, sized for the current number of emails.
+     * Emails added while the scan runs are written to both the old and the new filter; the new filter is
+     * installed and swapped in while no add is running, so none is written to the old filter only.
+     */
+    public void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild();
+                rebuilding.set(false);
+                ready = true;
+            } catch (RuntimeException e) {
+                swap(() -> building = null);
+                rebuilding.set(false);
+                log.warn("Could not build the email filter, email checks fall back to the database", e);
+            }
+        });
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        long expected = Math.max(properties.getExpectedInsertions(), 2 * bits.insertions.get());
+        Bits next = new Bits(expected, properties.getFalsePositiveRate());
+        swap(() -> building = next);
+        long staleBefore = staleEntries.get();
+        readOnlyTransaction.executeWithoutResult(status -> userShards.eachShard(() -> {
+            try (Stream<String> emails = userRepository.streamAllEmails()) {
+                emails.forEach(next::put);
+            }
+        }));
+        swap(() -> {
+            bits = next;
+            building = null;
+        });
+        staleEntries.addAndGet(-staleBefore);
+        log.info("Built email filter with {} emails in {} ms, {} KiB, expected false positive rate {}",
+                next.insertions.get(), (System.nanoTime() - start) / 1_000_000, next.memoryBytes() / 1024,
+                String.format("%.4f", next.expectedFalsePositiveRate()));
+    }
+
+    private void swap(Runnable change) {
+        swapLock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double positiveAnswers = positives.count();
+        return positiveAnswers == 0 ? 0 : falsePositives.count() / positiveAnswers;
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Lock-free bit array with double hashing: the k probe positions are h1 + i * h2.
+     */
+    private static final class Bits {
+        private final long expectedInsertions;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray words;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Bits(long expectedInsertions, double falsePositiveRate) {
+            this.expectedInsertions = Math.max(1, expectedInsertions);
+            long optimalBits = (long) Math.ceil(-this.expectedInsertions * Math.log(falsePositiveRate)
+                    / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = 64L * wordCount;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.expectedInsertions * Math.log(2)));
+        }
+
+        void put(String email) {
+            long hash1 = hash(email);
+            long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(String email) {
+            long hash1 = hash(email);
+            long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long memoryBytes() {
+            return 8L * words.length();
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+        }
+
+        /**
+         * 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3 mixer.
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb9fe1a85ec53L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
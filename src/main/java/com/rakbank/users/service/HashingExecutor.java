@@ -0,0 +1,204 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.HashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fixed size pool dedicated to password hashing, so BCrypt work never runs on servlet threads.
+ * The queue is bounded: once it is full new tasks are rejected instead of letting latency grow.
+ * <p>
+ * When virtual threads are enabled, futures are completed on a virtual thread so the database work chained
+ * after hashing does not hold one of the hashing threads.
+ */
+@Component
+public class HashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final int batchChunkSize;
+    private final int batchParallelism;
+    private final Timer queueWait;
+    private final Executor completionExecutor;
+
+    @Autowired
+    public HashingExecutor(HashingProperties properties, MeterRegistry meterRegistry, Environment environment) {
+        this(properties, meterRegistry, Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("hashing-completion-")
+                : null);
+    }
+
+    public HashingExecutor(HashingProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, (Executor) null);
+    }
+
+    private HashingExecutor(HashingProperties properties, MeterRegistry meterRegistry, Executor completionExecutor) {
+        this.completionExecutor = completionExecutor;
+        this.batchChunkSize = Math.max(1, properties.getBatchChunkSize());
+        this.batchParallelism = Math.max(1, (int) (properties.getPoolSize() * properties.getBatchShare()));
+        this.executor = new ThreadPoolExecutor(
+                properties.getPoolSize(),
+                properties.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queueWait = Timer.builder("users.hashing.queue.wait")
+                .description("Time a hashing task waits in the queue before a thread picks it up")
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(executor, "users.hashing", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Runs a task on the hashing pool.
+     *
+     * @param task the task to run
+     * @return a future completed with the task result
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<T> result = CompletableFuture.supplyAsync(() -> {
+            queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            return task.get();
+        }, executor);
+        return completionExecutor == null ? result : result.thenApplyAsync(Function.identity(), completionExecutor);
+    }
+
+    /**
+     * Applies a task to every item on the hashing pool.
+     * The items are split into small chunks, of which only a share of the pool runs at once: the next chunk is
+     * queued when one completes, behind the tasks queued meanwhile, so a large batch neither monopolizes the
+     * hashing threads nor floods their queue. If a chunk is rejected or fails, the batch fails and its chunks
+     * still queued are cancelled.
+     *
+     * @param items the items to process
+     * @param task the task applied to each item
+     * @return a future completed with the results, in the order of the items, or failed with a
+     * RejectedExecutionException if the hashing queue filled up while the batch ran
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(List<T> items, Function<T, R> task) {
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        Batch<T, R> batch = new Batch<>(items, task);
+        int parallelism = Math.min(batchParallelism, batch.chunks);
+        for (int i = 0; i < parallelism; i++) {
+            try {
+                batch.submitNext();
+            } catch (RejectedExecutionException e) {
+                batch.fail(e);
+                throw e;
+            }
+        }
+        return completionExecutor == null
+                ? batch.result
+                : batch.result.thenApplyAsync(Function.identity(), completionExecutor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private final class Batch<T, R> {
+        private final List<T> items;
+        private final Function<T, R> task;
+        private final Object[] results;
+        private final int chunks;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger remainingChunks;
+        private final Queue<CompletableFuture<Void>> submitted = new ConcurrentLinkedQueue<>();
+        private final CompletableFuture<List<R>> result = new CompletableFuture<>();
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        Batch(List<T> items, Function<T, R> task) {
+            this.items = items;
+            this.task = task;
+            this.results = new Object[items.size()];
+            this.chunks = (items.size() + batchChunkSize - 1) / batchChunkSize;
+            this.remainingChunks = new AtomicInteger(chunks);
+        }
+
+        /**
+         * Queues the next chunk on the hashing pool, if any is left and the batch has not failed.
+         *
+         * @throws RejectedExecutionException if the hashing queue is full
+         */
+        void submitNext() {
+            int chunk = nextChunk.getAndIncrement();
+            if (chunk >= chunks || failed.get()) {
+                return;
+            }
+            int from = chunk * batchChunkSize;
+            int to = Math.min(from + batchChunkSize, items.size());
+            long enqueuedAt = System.nanoTime();
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                for (int i = from; i < to; i++) {
+                    results[i] = task.apply(items.get(i));
+                }
+            }, executor);
+            submitted.add(future);
+            if (failed.get()) {
+                future.cancel(false);
+                return;
+            }
+            future.whenComplete((done, ex) -> {
+                if (ex != null) {
+                    fail(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                } else if (remainingChunks.decrementAndGet() == 0) {
+                    complete();
+                } else {
+                    try {
+                        submitNext();
+                    } catch (RejectedExecutionException e) {
+                        fail(e);
+                    }
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete() {
+            result.complete((List<R>) Arrays.asList(results));
+        }
+
+        /**
+         * Cancels the chunks of the batch, which a hashing thread then skips when it dequeues them, then fails
+         * the batch, so that the caller never sees the failure while chunks may still run. Only the first
+         * failure counts, not the cancellations it causes.
+         */
+        void fail(Throwable ex) {
+            if (failed.compareAndSet(false, true)) {
+                submitted.forEach(future -> future.cancel(false));
+                result.completeExceptionally(ex);
+            }
+        }
+    }
+}
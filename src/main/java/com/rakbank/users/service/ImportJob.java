@@ -0,0 +1,113 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.ImportJobStatus;
+import com.rakbank.users.dto.ImportJobStatus.RejectedRow;
+import com.rakbank.users.dto.ImportJobStatus.State;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of an import, updated by the import thread and read by status requests.
+ */
+final class ImportJob {
+
+    @Getter
+    private final String id;
+    private final String fileName;
+    private final int maxReportedRejections;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<RejectedRow> rejectedRows = new ArrayList<>();
+
+    private volatile State state = State.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private volatile String error;
+
+    ImportJob(String id, String fileName, int maxReportedRejections) {
+        this.id = id;
+        this.fileName = fileName;
+        this.maxReportedRejections = maxReportedRejections;
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+        startedAt = LocalDateTime.now();
+        state = State.RUNNING;
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void imported() {
+        imported.incrementAndGet();
+    }
+
+    void reject(long line, String email, String reason) {
+        rejected.incrementAndGet();
+        synchronized (rejectedRows) {
+            if (rejectedRows.size() < maxReportedRejections) {
+                rejectedRows.add(new RejectedRow(line, email, reason));
+            }
+        }
+    }
+
+    void complete() {
+        finish(State.COMPLETED, null);
+    }
+
+    void fail(String reason) {
+        finish(State.FAILED, reason);
+    }
+
+    boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    private void finish(State finalState, String reason) {
+        finishNanos = System.nanoTime();
+        finishedAt = LocalDateTime.now();
+        error = reason;
+        state = finalState;
+    }
+
+    /**
+     * @return a consistent enough copy of the progress, safe to serialize while the import runs
+     */
+    ImportJobStatus snapshot() {
+        State currentState = state;
+        long processed = imported.get() + rejected.get();
+        double rowsPerSecond = 0;
+        if (currentState != State.QUEUED) {
+            long end = currentState == State.RUNNING ? System.nanoTime() : finishNanos;
+            double seconds = (end - startNanos) / 1_000_000_000d;
+            rowsPerSecond = seconds > 0 ? processed / seconds : 0;
+        }
+        List<RejectedRow> rejections;
+        synchronized (rejectedRows) {
+            rejections = List.copyOf(rejectedRows);
+        }
+        return ImportJobStatus.builder()
+                .id(id)
+                .fileName(fileName)
+                .state(currentState)
+                .rowsRead(rowsRead.get())
+                .imported(imported.get())
+                .rejected(rejected.get())
+                .rowsPerSecond(rowsPerSecond)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .error(error)
+                .rejectedRows(rejections)
+                .build();
+    }
+}
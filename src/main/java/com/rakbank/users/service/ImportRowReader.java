@@ -0,0 +1,182 @@
+package com.rakbank.users.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.UserException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads an import file one row at a time, so files of any size are parsed with constant memory.
+ * A row that cannot be parsed is returned with an error instead of stopping the import.
+ */
+abstract class ImportRowReader implements Closeable {
+
+    enum Format { CSV, NDJSON }
+
+    /**
+     * A parsed row: either a registration or the reason it could not be parsed.
+     */
+    record Row(long line, UserRegistrationDto user, String error) {}
+
+    private final BufferedReader reader;
+    private long line;
+
+    private ImportRowReader(Path file) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    static ImportRowReader open(Path file, Format format, ObjectMapper objectMapper) throws IOException {
+        return format == Format.CSV ? new Csv(file) : new Ndjson(file, objectMapper);
+    }
+
+    /**
+     * @return the next non blank row, or null at the end of the file
+     * @throws IOException if reading fails
+     */
+    Row next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            if (line == 1 && !text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                text = text.substring(1);
+            }
+        } while (text.isBlank());
+        return parse(line, text);
+    }
+
+    abstract Row parse(long line, String text);
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class Ndjson extends ImportRowReader {
+        private final ObjectMapper objectMapper;
+
+        private Ndjson(Path file, ObjectMapper objectMapper) throws IOException {
+            super(file);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row parse(long line, String text) {
+            try {
+                return new Row(line, objectMapper.readValue(text, UserRegistrationDto.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static final class Csv extends ImportRowReader {
+        private static final Row HEADER = new Row(0, null, null);
+
+        private int nameColumn = -1;
+        private int emailColumn = -1;
+        private int passwordColumn = -1;
+        private int columns;
+
+        private Csv(Path file) throws IOException {
+            super(file);
+        }
+
+        @Override
+        Row next() throws IOException {
+            Row row = super.next();
+            return row == HEADER ? super.next() : row;
+        }
+
+        @Override
+        Row parse(long line, String text) {
+            List<String> fields;
+            try {
+                fields = split(text);
+            } catch (IllegalArgumentException e) {
+                if (columns == 0) {
+                    throw new UserException(ErrorCode.INVALID_REQUEST, "Malformed CSV header: " + e.getMessage());
+                }
+                return new Row(line, null, e.getMessage());
+            }
+            if (columns == 0) {
+                readHeader(fields);
+                return HEADER;
+            }
+            if (fields.size() != columns) {
+                return new Row(line, null, "Expected " + columns + " columns but found " + fields.size());
+            }
+            UserRegistrationDto user = UserRegistrationDto.builder()
+                    .name(fields.get(nameColumn))
+                    .email(fields.get(emailColumn))
+                    .password(fields.get(passwordColumn))
+                    .build();
+            return new Row(line, user, null);
+        }
+
+        private void readHeader(List<String> fields) {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                positions.put(fields.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!positions.keySet().containsAll(List.of("name", "email", "password"))) {
+                throw new UserException(ErrorCode.INVALID_REQUEST,
+                        "CSV header must contain name, email and password columns");
+            }
+            nameColumn = positions.get("name");
+            emailColumn = positions.get("email");
+            passwordColumn = positions.get("password");
+            columns = fields.size();
+        }
+
+        /**
+         * Splits a CSV record following RFC 4180 quoting. Quoted fields may not span several lines.
+         */
+        private static List<String> split(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.rakbank.users.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rakbank.users.config.ReplicaProperties;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Decides whether a database connection is taken from the primary or from the replica.
+ * <p>
+ * Only the read-only transactions of the service methods annotated {@code @Transactional(readOnly = true)}
+ * read from the replica; everything else, including the read-only transactions of the repositories, the
+ * email filter and the search index, uses the primary, so duplicate checks and rebuilds never see a lagging
+ * copy. A user created or changed within the read-your-writes window is read from the primary, and all reads
+ * go to the primary for a while after the replica failed to hand out a connection.
+ */
+@Aspect
+@Component
+public class ReplicaRouting {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouting.class);
+
+    /**
+     * Where a connection is taken from, and why.
+     */
+    public enum Route {
+        /**
+         * Primary, outside a read-only service method.
+         */
+        WRITE,
+        /**
+         * Replica.
+         */
+        READ,
+        /**
+         * Primary, reading a user changed within the read-your-writes window.
+         */
+        READ_YOUR_WRITES,
+        /**
+         * Primary, as the replica recently failed.
+         */
+        REPLICA_DOWN
+    }
+
+    private final ReplicaProperties properties;
+    private final Cache<Long, Boolean> recentWrites;
+    private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+
+    /**
+     * Time in nanoseconds until which the replica is considered down.
+     */
+    private volatile long replicaDownUntil = System.nanoTime();
+
+    public ReplicaRouting(ReplicaProperties properties) {
+        this.properties = properties;
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getReadYourWrites())
+                .maximumSize(properties.getReadYourWritesMaxUsers())
+                .build();
+    }
+
+    @Around("execution(public * com.rakbank.users.service.*Service.*(..)) && @annotation(transactional)")
+    public Object routeReadOnly(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        if (!properties.isEnabled() || !transactional.readOnly()) {
+            return joinPoint.proceed();
+        }
+        Scope outer = scope.get();
+        scope.set(new Scope());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (outer == null) {
+                scope.remove();
+            } else {
+                scope.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Remembers that a user was created or changed, once the current transaction commits, so that it is read
+     * from the primary during the read-your-writes window.
+     *
+     * @param userId the ID of the user
+     */
+    public void recordWrite(Long userId) {
+        if (properties.isEnabled()) {
+            AfterCommit.run(() -> recentWrites.put(userId, Boolean.TRUE));
+        }
+    }
+
+    /**
+     * Reads from the primary for the rest of the current service method if the user was created or changed
+     * within the read-your-writes window, as the replica may not have it yet.
+     *
+     * @param userId the ID of the user about to be read
+     */
+    public void readYourWrites(Long userId) {
+        Scope current = scope.get();
+        if (current != null && recentWrites.getIfPresent(userId) != null) {
+            current.primary = true;
+        }
+    }
+
+    /**
+     * @return where the connection about to be taken for the current thread should come from
+     */
+    public Route route() {
+        Scope current = scope.get();
+        if (current == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.WRITE;
+        }
+        if (current.primary) {
+            return Route.READ_YOUR_WRITES;
+        }
+        if (!isReplicaAvailable()) {
+            return Route.REPLICA_DOWN;
+        }
+        return Route.READ;
+    }
+
+    /**
+     * Sends every read to the primary for the retry interval.
+     *
+     * @param failure why no replica connection could be taken
+     */
+    public void replicaFailed(Exception failure) {
+        log.warn("Reading from the primary for {}, the replica failed: {}", properties.getRetryInterval(),
+                failure.getMessage());
+        replicaDownUntil = System.nanoTime() + properties.getRetryInterval().toNanos();
+    }
+
+    /**
+     * @return false during the retry interval following a replica failure
+     */
+    public boolean isReplicaAvailable() {
+        return System.nanoTime() - replicaDownUntil >= 0;
+    }
+
+    /**
+     * Routing state of a read-only service method call.
+     */
+    private static final class Scope {
+        private boolean primary;
+    }
+}
@@ -0,0 +1,132 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.entity.User;
+import com.rakbank.users.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint showing how many users each shard holds, and moving users between shards.
+ * <p>
+ * A user is moved while its row on the source shard is locked: it is copied to the target shard with its id,
+ * the email directory is pointed at the target, and the source row is deleted. Changes to the user wait for
+ * the move, and those that read the source shard before it completed fail as if the user did not exist.
+ * Where moved users live is also kept in memory, so moves assume a single instance of the service.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(prefix = "users.sharding", name = "enabled", havingValue = "true")
+public class ShardRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final UserShards userShards;
+    private final UserDirectory userDirectory;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transaction;
+
+    public ShardRebalancer(UserShards userShards, UserDirectory userDirectory, UserRepository userRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.userShards = userShards;
+        this.userDirectory = userDirectory;
+        this.userRepository = userRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return the number of users of each shard, by shard
+     */
+    @ReadOperation
+    public Map<Integer, Long> userCounts() {
+        List<Long> counts = userShards.gather(shard -> userRepository.count());
+        Map<Integer, Long> countsByShard = new LinkedHashMap<>();
+        for (int shard = 0; shard < counts.size(); shard++) {
+            countsByShard.put(shard, counts.get(shard));
+        }
+        return countsByShard;
+    }
+
+    /**
+     * Moves the most recently created users of the shards holding more than their share to the shards
+     * holding the fewest, until every shard holds at most one user more than the others.
+     *
+     * @return the number of users of each shard after the moves, by shard
+     */
+    @WriteOperation
+    public synchronized Map<Integer, Long> rebalance() {
+        Map<Integer, Long> counts = userCounts();
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        long share = (total + counts.size() - 1) / counts.size();
+        int moved = 0;
+        for (int source = 0; source < counts.size(); source++) {
+            long excess = counts.get(source) - share;
+            if (excess <= 0) {
+                continue;
+            }
+            List<Long> userIds = userShards.on(source,
+                    () -> userRepository.findNewestIds(PageRequest.of(0, (int) Math.min(excess, Integer.MAX_VALUE))));
+            for (Long userId : userIds) {
+                int target = leastLoaded(counts);
+                if (counts.get(target) + 1 >= counts.get(source)) {
+                    break;
+                }
+                moveUser(userId, source, target);
+                counts.merge(source, -1L, Long::sum);
+                counts.merge(target, 1L, Long::sum);
+                moved++;
+            }
+        }
+        log.info("Rebalanced the shards, moving {} users", moved);
+        return counts;
+    }
+
+    /**
+     * Moves a user to another shard.
+     *
+     * @param userId the ID of the user
+     * @param shard the shard to move the user to
+     * @throws InvalidEndpointRequestException if the shard does not exist or the user is not found
+     */
+    @WriteOperation
+    public synchronized void move(@Selector Long userId, int shard) {
+        if (shard < 0 || shard >= userShards.count()) {
+            throw new InvalidEndpointRequestException("No shard " + shard, "Unknown shard");
+        }
+        int source = userShards.shardOf(userId);
+        if (source != shard) {
+            moveUser(userId, source, shard);
+        }
+    }
+
+    private void moveUser(Long userId, int source, int target) {
+        userShards.on(source, () -> transaction.execute(status -> {
+            User user = userRepository.findForUpdate(userId).orElseThrow(
+                    () -> new InvalidEndpointRequestException("No user " + userId + " on shard " + source,
+                            "Unknown user"));
+            userShards.on(target, () -> transaction.execute(copy -> userRepository.insertCopy(user)));
+            userDirectory.relocate(userId, target);
+            userRepository.removeById(userId);
+            return null;
+        }));
+        log.info("Moved user {} from shard {} to shard {}", userId, source, target);
+    }
+
+    private static int leastLoaded(Map<Integer, Long> counts) {
+        return counts.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow().getKey();
+    }
+}
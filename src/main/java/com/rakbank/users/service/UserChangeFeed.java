@@ -0,0 +1,387 @@
+package com.rakbank.users.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakbank.users.config.ChangeFeedProperties;
+import com.rakbank.users.dto.UserChangeEvent;
+import com.rakbank.users.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Feed of the users created, updated and deleted, streamed to subscribers as Server-Sent Events.
+ * <p>
+ * Events are published once their transaction commits, serialized once and numbered by a sequence that
+ * starts from the startup time in milliseconds, so the ids of a previous run are older than any event of
+ * the current one. The most recent events are kept in a ring buffer, from which each subscriber is sent the
+ * events after its own position; a subscriber resuming with Last-Event-ID starts right after that event.
+ * <p>
+ * Subscribers hold no thread: a small dispatch pool writes the pending events of each subscriber in turn, at
+ * most a batch at a time. A subscriber whose next event was already overwritten in the ring buffer, because
+ * it reads too slowly or resumes from too far back, is sent a {@code reset} event and disconnected, and is
+ * expected to reload the users before subscribing again.
+ * <p>
+ * Writes block until the client reads, so a write to a client that stopped reading would hold its dispatch
+ * thread until the connection times out. A write still running after the write timeout marks its subscriber
+ * stalled and adds a thread to the dispatch pool in its place, so the other subscribers keep being served;
+ * the stalled subscriber is disconnected and the pool shrinks back once the blocked write returns.
+ */
+@Component
+public class UserChangeFeed implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(UserChangeFeed.class);
+
+    static final String RESET_EVENT = "reset";
+
+    private final ChangeFeedProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AtomicReferenceArray<Event> ring;
+    private final int mask;
+    private final long firstSequence;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor dispatchExecutor;
+    private final ScheduledExecutorService fanOutExecutor;
+    private final AtomicBoolean fanOutScheduled = new AtomicBoolean();
+    private final Counter published;
+    private final Counter resets;
+    private final Counter stalls;
+
+    /**
+     * Sequence of the last published event, written under the monitor of this feed.
+     */
+    private volatile long head;
+
+    public UserChangeFeed(ChangeFeedProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        int capacity = Integer.highestOneBit(Math.max(2, properties.getBufferSize()) * 2 - 1);
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.firstSequence = System.currentTimeMillis();
+        this.head = firstSequence - 1;
+        this.dispatchExecutor = new ThreadPoolExecutor(properties.getDispatchThreads(), properties.getDispatchThreads(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new CustomizableThreadFactory("change-feed-"));
+        this.fanOutExecutor = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("change-feed-fan-out-"));
+        long heartbeat = properties.getHeartbeatInterval().toMillis();
+        this.fanOutExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        long watchdog = Math.max(1, properties.getWriteTimeout().toMillis() / 2);
+        this.fanOutExecutor.scheduleWithFixedDelay(this::expireStalledWrites, watchdog, watchdog, TimeUnit.MILLISECONDS);
+
+        this.published = Counter.builder("users.changes.events")
+                .description("Change events published").register(meterRegistry);
+        this.resets = Counter.builder("users.changes.resets")
+                .description("Subscribers disconnected because the events they needed were gone")
+                .register(meterRegistry);
+        this.stalls = Counter.builder("users.changes.stalled")
+                .description("Subscribers disconnected because a write to them did not complete in time")
+                .register(meterRegistry);
+        Gauge.builder("users.changes.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Publishes the creation or update of a user once the current transaction commits. A rolled back change
+     * is not published.
+     *
+     * @param type CREATED or UPDATED
+     * @param user the user after the change
+     */
+    public void publish(UserChangeEvent.Type type, UserDto user) {
+        AfterCommit.run(() -> append(UserChangeEvent.builder()
+                .type(type)
+                .userId(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .version(user.getVersion())
+                .timestamp(Instant.now())
+                .build()));
+    }
+
+    /**
+     * Publishes the deletion of a user once the current transaction commits.
+     *
+     * @param userId the ID of the deleted user
+     */
+    public void publishDeletion(Long userId) {
+        AfterCommit.run(() -> append(UserChangeEvent.builder()
+                .type(UserChangeEvent.Type.DELETED)
+                .userId(userId)
+                .timestamp(Instant.now())
+                .build()));
+    }
+
+    private void append(UserChangeEvent event) {
+        synchronized (this) {
+            long sequence = head + 1;
+            event.setSequence(sequence);
+            ring.set((int) sequence & mask, new Event(sequence, serialize(event)));
+            head = sequence;
+        }
+        published.increment();
+        if (fanOutScheduled.compareAndSet(false, true)) {
+            fanOutExecutor.execute(this::fanOut);
+        }
+    }
+
+    /**
+     * Subscribes to the changes published from now on, or after a given event.
+     *
+     * @param lastEventId the id of the last event the client received, or null to only receive new events
+     * @return the emitter streaming the events
+     * @throws RejectedExecutionException if the maximum number of subscribers is reached
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(properties.getTimeout().toMillis()));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        if (subscribers.size() >= properties.getMaxSubscribers()) {
+            throw new RejectedExecutionException("Too many change feed subscribers");
+        }
+        long current = head;
+        Subscriber subscriber = new Subscriber(emitter, current + 1);
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            long resumeFrom = parseEventId(lastEventId) + 1;
+            if (resumeFrom >= oldestSequence(current) && resumeFrom <= current + 1) {
+                subscriber.cursor = resumeFrom;
+            } else {
+                subscriber.reset = true;
+            }
+        }
+        try {
+            // commits the response right away, rather than with the first event, so the client knows it is subscribed
+            emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the change stream", e);
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    /**
+     * @return the sequence of the oldest event still in the ring buffer when the last one is head
+     */
+    private long oldestSequence(long head) {
+        return Math.max(firstSequence, head - mask);
+    }
+
+    private static long parseEventId(String lastEventId) {
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE + 1;
+        }
+    }
+
+    private void fanOut() {
+        fanOutScheduled.set(false);
+        long current = head;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.cursor <= current) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            dispatch(subscriber, this::sendHeartbeat);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        dispatch(subscriber, this::drain);
+    }
+
+    /**
+     * Runs a task writing to a subscriber unless one is already scheduled, so that writes to a subscriber never
+     * overlap, then reschedules the subscriber behind the other ones if it is still behind.
+     */
+    private void dispatch(Subscriber subscriber, Consumer<Subscriber> task) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                dispatchExecutor.execute(() -> {
+                    try {
+                        task.accept(subscriber);
+                    } finally {
+                        subscriber.scheduled.set(false);
+                    }
+                    if (subscriber.cursor <= head && subscribers.contains(subscriber)) {
+                        schedule(subscriber);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    private void sendHeartbeat(Subscriber subscriber) {
+        try {
+            send(subscriber, SseEmitter.event().comment("heartbeat"));
+        } catch (IOException | IllegalStateException e) {
+            disconnect(subscriber);
+        }
+    }
+
+    /**
+     * Writes up to a batch of the events a subscriber has not received yet.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            if (subscriber.reset) {
+                reset(subscriber);
+                return;
+            }
+            long current = head;
+            for (int sent = 0; subscriber.cursor <= current && sent < properties.getBatchSize(); sent++) {
+                Event event = ring.get((int) subscriber.cursor & mask);
+                if (event == null || event.sequence != subscriber.cursor) {
+                    reset(subscriber);
+                    return;
+                }
+                send(subscriber, SseEmitter.event()
+                        .id(String.valueOf(event.sequence))
+                        .data(event.json, MediaType.APPLICATION_JSON));
+                subscriber.cursor++;
+            }
+        } catch (IOException | IllegalStateException e) {
+            disconnect(subscriber);
+        }
+    }
+
+    private void reset(Subscriber subscriber) throws IOException {
+        resets.increment();
+        subscribers.remove(subscriber);
+        send(subscriber, SseEmitter.event().name(RESET_EVENT).data(oldestSequence(head)));
+        subscriber.emitter.complete();
+    }
+
+    /**
+     * Writes an event to a subscriber, recording when the write started so that a write blocked on a client
+     * that stopped reading is detected by {@link #expireStalledWrites()}.
+     *
+     * @throws IOException if the subscriber stalled, during this write or a previous one
+     */
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        long started = System.nanoTime();
+        if (!subscriber.writeStarted.compareAndSet(Subscriber.IDLE, started)) {
+            throw new IOException("Change feed subscriber stalled");
+        }
+        boolean stalled;
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            stalled = !subscriber.writeStarted.compareAndSet(started, Subscriber.IDLE);
+            if (stalled) {
+                // the thread added in place of this one while it was blocked is no longer needed
+                resizeDispatchPool(-1);
+            }
+        }
+        if (stalled) {
+            throw new IOException("Change feed subscriber stalled");
+        }
+    }
+
+    /**
+     * Marks stalled the subscribers whose current write started longer than the write timeout ago, adding a
+     * dispatch thread in place of each thread blocked on them.
+     */
+    private void expireStalledWrites() {
+        long now = System.nanoTime();
+        long timeout = properties.getWriteTimeout().toNanos();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.writeStarted.get();
+            if (started != Subscriber.IDLE && started != Subscriber.STALLED && now - started > timeout
+                    && subscriber.writeStarted.compareAndSet(started, Subscriber.STALLED)) {
+                stalls.increment();
+                log.debug("Change feed subscriber stalled, disconnecting it");
+                resizeDispatchPool(1);
+            }
+        }
+    }
+
+    private synchronized void resizeDispatchPool(int delta) {
+        if (delta > 0) {
+            dispatchExecutor.setMaximumPoolSize(dispatchExecutor.getMaximumPoolSize() + delta);
+            dispatchExecutor.setCorePoolSize(dispatchExecutor.getCorePoolSize() + delta);
+        } else {
+            dispatchExecutor.setCorePoolSize(dispatchExecutor.getCorePoolSize() + delta);
+            dispatchExecutor.setMaximumPoolSize(dispatchExecutor.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Change feed subscriber went away");
+            subscriber.emitter.complete();
+        }
+    }
+
+    private String serialize(UserChangeEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the change event " + event, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        fanOutExecutor.shutdownNow();
+        dispatchExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private record Event(long sequence, String json) {
+    }
+
+    private static final class Subscriber {
+        private static final long IDLE = Long.MIN_VALUE;
+        private static final long STALLED = Long.MAX_VALUE;
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * Time the current write started at, IDLE between writes or STALLED once the write timed out.
+         */
+        private final AtomicLong writeStarted = new AtomicLong(IDLE);
+        /**
+         * Sequence of the next event to send, only accessed by the task draining the subscriber.
+         */
+        private volatile long cursor;
+        private volatile boolean reset;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.repository.UserKeysetRepository.KeysetColumn;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a keyset paginated listing, exchanged with clients as an opaque token.
+ * The token carries the sort, the key of the user the page starts after and whether it points
+ * to the next or the previous page.
+ */
+@Getter
+public final class UserCursor {
+    private static final String SEPARATOR = "|";
+    private static final String FORWARD = "F";
+    private static final String BACKWARD = "B";
+
+    private final KeysetColumn column;
+    private final Sort.Direction direction;
+    private final boolean backward;
+    private final Long id;
+    private final LocalDateTime createdAt;
+
+    private UserCursor(KeysetColumn column, Sort.Direction direction, boolean backward, Long id, LocalDateTime createdAt) {
+        this.column = column;
+        this.direction = direction;
+        this.backward = backward;
+        this.id = id;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Creates the position of the first page for a sort.
+     *
+     * @param sort the requested sort, on id or createdAt only
+     * @return the position before the first user
+     * @throws UserException if the sort is not supported by cursor pagination
+     */
+    public static UserCursor first(Sort sort) {
+        if (sort.isUnsorted()) {
+            return new UserCursor(KeysetColumn.ID, Sort.Direction.ASC, false, null, null);
+        }
+        var orders = sort.toList();
+        if (orders.size() == 1) {
+            Sort.Order order = orders.get(0);
+            for (KeysetColumn column : KeysetColumn.values()) {
+                if (column.getProperty().equals(order.getProperty())) {
+                    return new UserCursor(column, order.getDirection(), false, null, null);
+                }
+            }
+        }
+        throw new UserException(ErrorCode.INVALID_REQUEST, "Cursor pagination can only be sorted by id or createdAt");
+    }
+
+    /**
+     * Decodes a cursor token.
+     *
+     * @param token the token returned by a previous page
+     * @return the decoded position
+     * @throws UserException if the token is malformed
+     */
+    public static UserCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\|", -1);
+            KeysetColumn column = KeysetColumn.valueOf(parts[0]);
+            LocalDateTime createdAt = column == KeysetColumn.CREATED_AT ? LocalDateTime.parse(parts[4]) : null;
+            return new UserCursor(column, Sort.Direction.valueOf(parts[1]), BACKWARD.equals(parts[2]),
+                    Long.valueOf(parts[3]), createdAt);
+        } catch (RuntimeException e) {
+            throw new UserException(ErrorCode.INVALID_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * @return the token representing this position
+     */
+    public String encode() {
+        String value = column.name() + SEPARATOR + direction.name() + SEPARATOR
+                + (backward ? BACKWARD : FORWARD) + SEPARATOR + id + SEPARATOR
+                + (createdAt == null ? "" : createdAt.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return true if this is the position of the first page
+     */
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    /**
+     * @return the direction the rows have to be scanned in to reach the page
+     */
+    public Sort.Direction scanDirection() {
+        if (!backward) {
+            return direction;
+        }
+        return direction.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    /**
+     * @param last the last user of the current page
+     * @return the position of the page after the given user
+     */
+    public UserCursor next(UserDto last) {
+        return new UserCursor(column, direction, false, last.getId(), last.getCreatedAt());
+    }
+
+    /**
+     * @param first the first user of the current page
+     * @return the position of the page before the given user
+     */
+    public UserCursor previous(UserDto first) {
+        return new UserCursor(column, direction, true, first.getId(), first.getCreatedAt());
+    }
+}
@@ -0,0 +1,189 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.entity.User;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.repository.UserDirectoryRepository;
+import com.rakbank.users.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the emails in use. On a single database the user table is the registry, and its unique
+ * constraint keeps emails unique. With sharding, every email is also registered in a directory table on
+ * shard 0, with the id and the shard of its user, since the unique constraint of each shard only covers its
+ * own users.
+ * <p>
+ * An email is reserved in the directory before its user is inserted and assigned to the user afterwards,
+ * each in its own transaction on shard 0, so two registrations of the same email on different shards cannot
+ * both succeed. A crash between the two leaves a reservation without a user, which keeps the email taken.
+ */
+@Component
+public class UserDirectory implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    private final UserShards userShards;
+    private final UserRepository userRepository;
+    private final UserDirectoryRepository directoryRepository;
+    private final TransactionTemplate transaction;
+
+    public UserDirectory(UserShards userShards, UserRepository userRepository,
+                         UserDirectoryRepository directoryRepository, PlatformTransactionManager transactionManager) {
+        this.userShards = userShards;
+        this.userRepository = userRepository;
+        this.directoryRepository = directoryRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Registers the users of shard 0 created before sharding was enabled.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!userShards.isSharded()) {
+            return;
+        }
+        int registered = inDirectory(directoryRepository::registerUnlisted);
+        if (registered > 0) {
+            log.info("Registered {} existing users in the email directory", registered);
+        }
+    }
+
+    /**
+     * @param email an email
+     * @return whether the email is registered, or reserved by a registration in progress
+     */
+    public boolean exists(String email) {
+        if (!userShards.isSharded()) {
+            return userRepository.existsByEmail(email);
+        }
+        return inDirectory(() -> directoryRepository.existsById(email));
+    }
+
+    /**
+     * @param emails emails
+     * @return the emails that are registered, or reserved by a registration in progress
+     */
+    public Set<String> findExisting(Collection<String> emails) {
+        if (!userShards.isSharded()) {
+            return userRepository.findExistingEmails(emails);
+        }
+        return inDirectory(() -> directoryRepository.findExistingEmails(emails));
+    }
+
+    /**
+     * Reserves an email for a user about to be created or changed. Does nothing without sharding.
+     *
+     * @param email the email
+     * @throws UserException if the email is already registered or reserved
+     */
+    public void reserve(String email) {
+        if (!userShards.isSharded()) {
+            return;
+        }
+        try {
+            inDirectory(() -> directoryRepository.reserve(email));
+        } catch (DataIntegrityViolationException e) {
+            throw new UserException(ErrorCode.EMAIL_ALREADY_EXISTS);
+        }
+    }
+
+    /**
+     * Reserves emails for users about to be created, in one transaction unless one of them turns out to be
+     * taken. Does nothing without sharding.
+     *
+     * @param emails the emails, all distinct
+     * @return the emails that could not be reserved, as they are already registered or reserved
+     */
+    public Set<String> reserveAll(Collection<String> emails) {
+        if (!userShards.isSharded() || emails.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            inDirectory(() -> {
+                emails.forEach(directoryRepository::reserve);
+                return null;
+            });
+            return Set.of();
+        } catch (DataIntegrityViolationException e) {
+            Set<String> taken = new HashSet<>();
+            for (String email : emails) {
+                try {
+                    reserve(email);
+                } catch (UserException duplicate) {
+                    taken.add(email);
+                }
+            }
+            return taken;
+        }
+    }
+
+    /**
+     * Assigns reserved emails to the users created with them. Does nothing without sharding.
+     *
+     * @param users the created users
+     */
+    public void assign(Collection<User> users) {
+        if (!userShards.isSharded() || users.isEmpty()) {
+            return;
+        }
+        inDirectory(() -> {
+            users.forEach(user -> directoryRepository.assign(user.getEmail(), user.getId(),
+                    userShards.shardOf(user.getId())));
+            return null;
+        });
+    }
+
+    /**
+     * Releases emails that were reserved, or that a user no longer uses. Does nothing without sharding.
+     *
+     * @param emails the emails
+     */
+    public void release(Collection<String> emails) {
+        if (!userShards.isSharded() || emails.isEmpty()) {
+            return;
+        }
+        inDirectory(() -> {
+            emails.forEach(directoryRepository::release);
+            return null;
+        });
+    }
+
+    /**
+     * Releases the email of a deleted user. Does nothing without sharding.
+     *
+     * @param userId the ID of the deleted user
+     */
+    public void releaseUser(Long userId) {
+        if (userShards.isSharded()) {
+            inDirectory(() -> directoryRepository.releaseUser(userId));
+        }
+    }
+
+    /**
+     * Records that a user moved to another shard.
+     *
+     * @param userId the ID of the user
+     * @param shard the shard it now lives on
+     */
+    public void relocate(Long userId, int shard) {
+        inDirectory(() -> directoryRepository.relocate(userId, shard));
+        userShards.relocate(userId, shard);
+    }
+
+    private <T> T inDirectory(Supplier<T> work) {
+        return userShards.on(0, () -> transaction.execute(status -> work.get()));
+    }
+}
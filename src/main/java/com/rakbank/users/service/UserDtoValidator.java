@@ -0,0 +1,233 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserPasswordDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks the user DTOs against the rules of their Jakarta constraints with hand-written code instead of the
+ * reflective {@link Validator}: no constraint metadata lookup, no regular expression and no allocation when
+ * the input is valid. Errors are reported with the messages of the annotations, in declaration order, as one
+ * "Validation errors: ...; " string.
+ * <p>
+ * The annotations stay the reference and UserDtoValidatorTest checks that both agree on every input. Emails
+ * outside plain ASCII dot-atoms (quoted local parts, IP literals, internationalized domains) are rare enough
+ * to be handed to the Jakarta validator.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDtoValidator {
+
+    private static final String ERRORS_PREFIX = "Validation errors: ";
+    private static final String ERRORS_SEPARATOR = "; ";
+
+    private static final String NAME_MANDATORY = "Name is mandatory";
+    private static final String NAME_TOO_LONG = "Name must not exceed 50 characters";
+    private static final String EMAIL_MANDATORY = "Email is mandatory";
+    private static final String EMAIL_INVALID = "Email should be valid";
+    private static final String PASSWORD_MANDATORY = "Password is mandatory";
+    private static final String PASSWORD_TOO_SHORT = "Password must be at least 8 characters";
+    private static final String PASSWORD_INVALID = "Password must contain at least 8 characters and only alphabets and numbers";
+    private static final String CONFIRM_PASSWORD_MANDATORY = "Confirm Password is mandatory";
+    private static final String CONFIRM_PASSWORD_TOO_SHORT = "Confirm Password must be at least 8 characters";
+    private static final String CONFIRM_PASSWORD_INVALID = "Confirm Password must contain at least 8 characters and only alphabets and numbers";
+
+    private static final int NAME_MAX_LENGTH = 50;
+    private static final int PASSWORD_MIN_LENGTH = 8;
+    private static final int EMAIL_LOCAL_PART_MAX_LENGTH = 64;
+    private static final int EMAIL_DOMAIN_MAX_LENGTH = 255;
+    private static final int EMAIL_DOMAIN_LABEL_MAX_LENGTH = 63;
+
+    /**
+     * Special characters allowed in the labels of an email domain, on top of letters and digits.
+     */
+    private static final String DOMAIN_SPECIALS = "!#$%&'*+/=?^_`{|}~";
+
+    private final Validator validator;
+
+    /**
+     * Collects the validation errors of a user registration data transfer object.
+     *
+     * @param userDto the user registration data transfer object to validate
+     * @return the validation error message, or null if the object is valid
+     */
+    public String errors(UserRegistrationDto userDto) {
+        StringBuilder errors = null;
+        String name = userDto.getName();
+        if (isBlank(name)) {
+            errors = append(errors, NAME_MANDATORY);
+        }
+        if (name != null && name.length() > NAME_MAX_LENGTH) {
+            errors = append(errors, NAME_TOO_LONG);
+        }
+        String email = userDto.getEmail();
+        if (isBlank(email)) {
+            errors = append(errors, EMAIL_MANDATORY);
+        }
+        if (!isEmail(email)) {
+            errors = append(errors, EMAIL_INVALID);
+        }
+        errors = passwordErrors(errors, userDto.getPassword(), PASSWORD_MANDATORY, PASSWORD_TOO_SHORT, PASSWORD_INVALID);
+        return errors == null ? null : errors.toString();
+    }
+
+    /**
+     * Collects the validation errors of a user update data transfer object.
+     *
+     * @param userDto the user update data transfer object to validate
+     * @return the validation error message, or null if the object is valid
+     */
+    public String errors(UserUpdateDto userDto) {
+        StringBuilder errors = null;
+        if (userDto.getName() != null && userDto.getName().length() > NAME_MAX_LENGTH) {
+            errors = append(errors, NAME_TOO_LONG);
+        }
+        if (!isEmail(userDto.getEmail())) {
+            errors = append(errors, EMAIL_INVALID);
+        }
+        return errors == null ? null : errors.toString();
+    }
+
+    /**
+     * Collects the validation errors of a user password data transfer object.
+     *
+     * @param userDto the user password data transfer object to validate
+     * @return the validation error message, or null if the object is valid
+     */
+    public String errors(UserPasswordDto userDto) {
+        StringBuilder errors = passwordErrors(null, userDto.getPassword(),
+                PASSWORD_MANDATORY, PASSWORD_TOO_SHORT, PASSWORD_INVALID);
+        errors = passwordErrors(errors, userDto.getConfirmPassword(),
+                CONFIRM_PASSWORD_MANDATORY, CONFIRM_PASSWORD_TOO_SHORT, CONFIRM_PASSWORD_INVALID);
+        return errors == null ? null : errors.toString();
+    }
+
+    /**
+     * Checks a password against @NotBlank, @Size(min = 8) and @Pattern("^(?=.{8,})([a-zA-Z0-9]+)$").
+     */
+    private static StringBuilder passwordErrors(StringBuilder errors, String password, String mandatory,
+                                                String tooShort, String invalid) {
+        if (isBlank(password)) {
+            errors = append(errors, mandatory);
+        }
+        if (password != null && password.length() < PASSWORD_MIN_LENGTH) {
+            errors = append(errors, tooShort);
+        }
+        if (password != null && !isAlphanumeric(password, PASSWORD_MIN_LENGTH)) {
+            errors = append(errors, invalid);
+        }
+        return errors;
+    }
+
+    private static StringBuilder append(StringBuilder errors, String message) {
+        if (errors == null) {
+            errors = new StringBuilder(ERRORS_PREFIX);
+        }
+        return errors.append(message).append(ERRORS_SEPARATOR);
+    }
+
+    /**
+     * Same as @NotBlank: null, or only made of characters that {@link String#trim()} removes.
+     */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAlphanumeric(String value, int minLength) {
+        if (value.length() < minLength) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!isAsciiLetterOrDigit(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as @Email: null and empty values are valid, anything else needs a dot-atom local part of at most
+     * 64 characters and a domain of at most 255 characters made of labels of at most 63 characters, which
+     * neither start nor end with a dash.
+     */
+    private boolean isEmail(String email) {
+        if (email == null || email.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c >= 0x80 || c == '"' || c == '[') {
+                return validator.validateValue(UserUpdateDto.class, "email", email).isEmpty();
+            }
+        }
+        int at = email.lastIndexOf('@');
+        return at >= 0
+                && at <= EMAIL_LOCAL_PART_MAX_LENGTH
+                && isDotAtom(email, 0, at)
+                && isDomain(email, at + 1, email.length());
+    }
+
+    private static boolean isDotAtom(String value, int from, int to) {
+        boolean afterDot = true;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (afterDot) {
+                    return false;
+                }
+                afterDot = true;
+            } else if (isAsciiLetterOrDigit(c) || c == '-' || DOMAIN_SPECIALS.indexOf(c) >= 0) {
+                afterDot = false;
+            } else {
+                return false;
+            }
+        }
+        return !afterDot;
+    }
+
+    private static boolean isDomain(String value, int from, int to) {
+        if (to - from > EMAIL_DOMAIN_MAX_LENGTH) {
+            return false;
+        }
+        int labelStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || value.charAt(i) == '.') {
+                if (!isDomainLabel(value, labelStart, i)) {
+                    return false;
+                }
+                labelStart = i + 1;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDomainLabel(String value, int from, int to) {
+        if (from == to || to - from > EMAIL_DOMAIN_LABEL_MAX_LENGTH
+                || value.charAt(from) == '-' || value.charAt(to - 1) == '-') {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '-' && DOMAIN_SPECIALS.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,143 @@
+package com.rakbank.users.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class UserExportService {
+    private static final Logger log = LoggerFactory.getLogger(UserExportService.class);
+    private static final String CSV_HEADER = "id,name,email,createdAt";
+
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+
+    public UserExportService(UserRepository userRepository, UserShards userShards, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.userShards = userShards;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writerFor(UserDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes every user to the output as newline delimited JSON, one object per line.
+     * Rows are read from a forward-only database cursor and written as they arrive.
+     *
+     * @param out the stream to write to, left open
+     * @return the number of exported users
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long count;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            count = forEachUser(user -> rowWriter.writeValue(generator, user));
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        log.info("Exported {} users as NDJSON", count);
+        return count;
+    }
+
+    /**
+     * Writes every user to the output as CSV with a header line.
+     * Rows are read from a forward-only database cursor and written as they arrive.
+     *
+     * @param out the stream to write to, left open
+     * @return the number of exported users
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = forEachUser(user -> {
+            writer.write(String.valueOf(user.getId()));
+            writer.write(',');
+            writeCsvField(writer, user.getName());
+            writer.write(',');
+            writeCsvField(writer, user.getEmail());
+            writer.write(',');
+            writeCsvField(writer, user.getCreatedAt() == null ? null : user.getCreatedAt().toString());
+            writer.write("\r\n");
+        });
+        writer.flush();
+        log.info("Exported {} users as CSV", count);
+        return count;
+    }
+
+    /**
+     * Streams every user to a row writer, shard after shard when sharded.
+     *
+     * @return the number of written users
+     */
+    private long forEachUser(RowWriter rowWriter) throws IOException {
+        long[] count = {0};
+        try {
+            userShards.eachShard(() -> {
+                try (Stream<UserDto> users = userRepository.streamAll()) {
+                    Iterator<UserDto> iterator = users.iterator();
+                    while (iterator.hasNext()) {
+                        rowWriter.write(iterator.next());
+                        count[0]++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    /**
+     * Writes a CSV field, quoting it when it contains a separator, a quote or a line break.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private interface RowWriter {
+        void write(UserDto user) throws IOException;
+    }
+}
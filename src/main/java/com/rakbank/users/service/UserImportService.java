@@ -0,0 +1,235 @@
+package com.rakbank.users.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakbank.users.config.ImportProperties;
+import com.rakbank.users.config.RegistrationProperties;
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.ImportJobStatus;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.service.ImportRowReader.Format;
+import com.rakbank.users.service.ImportRowReader.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports users from uploaded CSV or NDJSON files in the background.
+ * Files are parsed as a stream and committed in chunks through the batch registration, so a rejected row
+ * or a failure late in the file never rolls back the chunks already committed.
+ * <p>
+ * A few jobs run at a time and a bounded number wait for a free slot; further uploads are rejected rather
+ * than piling up files on disk and jobs in memory.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+    private static final int MAX_CHUNK_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MILLIS = 200;
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final ImportProperties importProperties;
+    private final int chunkSize;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<>();
+
+    public UserImportService(UserService userService, ObjectMapper objectMapper, ImportProperties importProperties,
+                             RegistrationProperties registrationProperties) {
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.importProperties = importProperties;
+        this.chunkSize = Math.min(importProperties.getChunkSize(), registrationProperties.getBatchMaxSize());
+        this.executor = new ThreadPoolExecutor(
+                importProperties.getConcurrentJobs(),
+                importProperties.getConcurrentJobs(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, importProperties.getQueuedJobs())),
+                new CustomizableThreadFactory("import-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stores an uploaded file and schedules its import.
+     *
+     * @param file the uploaded CSV or NDJSON file
+     * @return the status of the queued import job
+     * @throws UserException if the file format is not supported
+     * @throws IOException if the upload cannot be stored
+     * @throws RejectedExecutionException if too many import jobs are already waiting
+     */
+    public ImportJobStatus startImport(MultipartFile file) throws IOException {
+        Format format = detectFormat(file);
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Too many import jobs waiting");
+        }
+        Path copy = Files.createTempFile("user-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        file.transferTo(copy);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(),
+                importProperties.getMaxReportedRejections());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, copy, format));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(copy);
+            throw e;
+        }
+        log.info("Queued import job {} for file {}", job.getId(), file.getOriginalFilename());
+        return job.snapshot();
+    }
+
+    /**
+     * Retrieves the progress of an import job.
+     *
+     * @param jobId the ID of the job
+     * @return the status of the job
+     * @throws UserException if the job is not found
+     */
+    public ImportJobStatus getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new UserException(ErrorCode.IMPORT_JOB_NOT_FOUND);
+        }
+        return job.snapshot();
+    }
+
+    private void run(ImportJob job, Path file, Format format) {
+        job.start();
+        try (ImportRowReader reader = ImportRowReader.open(file, format, objectMapper)) {
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            Row row;
+            while ((row = reader.next()) != null) {
+                job.rowRead();
+                if (row.error() != null) {
+                    job.reject(row.line(), null, row.error());
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    commitChunk(job, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                commitChunk(job, chunk);
+            }
+            job.complete();
+            log.info("Import job {} completed", job.getId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import interrupted");
+        } catch (Exception e) {
+            log.warn("Import job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+            retire(job);
+        }
+    }
+
+    /**
+     * Registers a chunk in its own transaction and records the outcome of every row.
+     * A chunk that cannot be committed is reported as rejected and the import moves on.
+     */
+    private void commitChunk(ImportJob job, List<Row> chunk) throws InterruptedException {
+        List<UserRegistrationDto> users = chunk.stream().map(Row::user).toList();
+        List<BatchRegistrationResult> results;
+        try {
+            results = registerWithRetry(users);
+        } catch (RuntimeException e) {
+            log.warn("Import job {} could not commit rows {} to {}", job.getId(),
+                    chunk.get(0).line(), chunk.get(chunk.size() - 1).line(), e);
+            for (Row row : chunk) {
+                job.reject(row.line(), row.user().getEmail(), "Chunk could not be committed");
+            }
+            return;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            BatchRegistrationResult result = results.get(i);
+            if (result.getStatus() == BatchRegistrationResult.Status.CREATED) {
+                job.imported();
+            } else {
+                job.reject(chunk.get(i).line(), result.getEmail(), result.getError());
+            }
+        }
+    }
+
+    /**
+     * Registers a chunk, backing off while the hashing pool is saturated by other traffic.
+     */
+    private List<BatchRegistrationResult> registerWithRetry(List<UserRegistrationDto> users) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return userService.registerBatch(users).join();
+            } catch (RejectedExecutionException e) {
+                if (attempt == MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Keeps the status of the most recent finished jobs only.
+     */
+    private void retire(ImportJob job) {
+        finishedJobs.add(job.getId());
+        while (finishedJobs.size() > importProperties.getRetainedJobs()) {
+            String oldest = finishedJobs.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    private static Format detectFormat(MultipartFile file) {
+        String name = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+        String contentType = file.getContentType() == null ? "" : file.getContentType().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv") || contentType.startsWith("text/csv")) {
+            return Format.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || contentType.contains("ndjson")) {
+            return Format.NDJSON;
+        }
+        throw new UserException(ErrorCode.INVALID_REQUEST, "Unsupported import format, upload a .csv or .ndjson file");
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
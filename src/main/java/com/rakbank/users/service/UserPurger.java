@@ -0,0 +1,139 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.PurgeProperties;
+import com.rakbank.users.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes deleted users for good once the purge retention has passed.
+ * <p>
+ * Deleting a user only marks its row, so the request does not wait for the row and its index entries to be
+ * removed. A background thread removes the marked rows later, in batches of a few hundred rows, each in its
+ * own transaction and followed by a pause, so that no lock is held for long and the request path keeps
+ * most of the database.
+ */
+@Component
+public class UserPurger implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(UserPurger.class);
+
+    private final PurgeProperties properties;
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final ScheduledExecutorService purgeExecutor;
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter purged;
+    private final Timer batches;
+
+    public UserPurger(PurgeProperties properties, UserRepository userRepository, UserShards userShards,
+                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.userShards = userShards;
+        this.purgeExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("user-purge-"));
+        this.purged = Counter.builder("users.purge.purged")
+                .description("Deleted users removed for good").register(meterRegistry);
+        this.batches = Timer.builder("users.purge.batches")
+                .description("Time spent in each purge batch").register(meterRegistry);
+        Gauge.builder("users.purge.backlog", backlog, AtomicLong::get)
+                .description("Deleted users not purged yet, as of the last purge")
+                .register(meterRegistry);
+        if (properties.isEnabled()) {
+            long interval = properties.getInterval().toMillis();
+            purgeExecutor.scheduleWithFixedDelay(this::purgeSafely, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Removes the users deleted before the purge retention, shard after shard.
+     *
+     * @return the number of removed users
+     */
+    public long purge() {
+        LocalDateTime deletedBefore = LocalDateTime.now().minus(properties.getRetention());
+        long removed = 0;
+        long remaining = 0;
+        for (int shard = 0; shard < userShards.count(); shard++) {
+            Pass pass = userShards.on(shard, () -> purgeShard(deletedBefore));
+            removed += pass.removed();
+            remaining += pass.remaining();
+        }
+        backlog.set(remaining);
+        if (removed > 0) {
+            log.info("Purged {} deleted users, {} awaiting purge", removed, remaining);
+        }
+        return removed;
+    }
+
+    /**
+     * Walks the deleted users of the current shard in id order, a batch at a time, removing those deleted
+     * before the given date and counting the others. Each batch resumes after the last id of the previous
+     * one, so a run reads the primary key once whatever the number of batches.
+     */
+    private Pass purgeShard(LocalDateTime deletedBefore) {
+        long removed = 0;
+        long remaining = 0;
+        long afterId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<UserRepository.Tombstone> tombstones = userRepository.findDeletedAfter(afterId,
+                    properties.getBatchSize());
+            if (tombstones.isEmpty()) {
+                break;
+            }
+            afterId = tombstones.get(tombstones.size() - 1).getId();
+            List<Long> userIds = tombstones.stream()
+                    .filter(tombstone -> tombstone.getDeletedAt().isBefore(deletedBefore))
+                    .map(UserRepository.Tombstone::getId)
+                    .toList();
+            remaining += tombstones.size() - userIds.size();
+            if (!userIds.isEmpty()) {
+                int batch = batches.record(() -> userRepository.purgeByIds(userIds));
+                purged.increment(batch);
+                removed += batch;
+            }
+            if (tombstones.size() < properties.getBatchSize()) {
+                break;
+            }
+            pause();
+        }
+        return new Pass(removed, remaining);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.getBatchPause().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void purgeSafely() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("Could not purge the deleted users, retrying in {}", properties.getInterval(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        purgeExecutor.shutdownNow();
+    }
+
+    private record Pass(long removed, long remaining) {
+    }
+}
@@ -0,0 +1,635 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.SearchProperties;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index of the names and emails of every user, answering substring and prefix searches
+ * without scanning the user table.
+ * <p>
+ * Names and emails are indexed lower-cased, by trigram and by the first one and two characters of every word.
+ * A query of three characters or more intersects the posting lists of its trigrams and checks that each
+ * candidate really contains it; a shorter query only matches the start of a word. Matches are ranked exact
+ * match first, then match at the start of the name or email, at the start of a word, and anywhere; users of
+ * the same rank keep the order in which they were indexed.
+ * <p>
+ * Changes are applied once their transaction commits. Removed and replaced users leave dead entries behind,
+ * and the index is compacted once they reach the configured share of it. Like {@link EmailBloomFilter}, the
+ * index is built from a streaming scan of the database on startup; until then searches have to fall back
+ * to the database.
+ */
+@Component
+public class UserSearchIndex implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final int EXACT = 4;
+    private static final int FIELD_PREFIX = 3;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 1;
+
+    private final SearchProperties properties;
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+    /**
+     * Changes applied while a rebuild runs, replayed on the new index before it replaces the current one.
+     */
+    private List<Consumer<Index>> pending;
+    private volatile boolean ready;
+
+    public UserSearchIndex(SearchProperties properties, UserRepository userRepository, UserShards userShards,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.userShards = userShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("search-index-"));
+
+        Gauge.builder("users.search.index.memory", this, searchIndex -> searchIndex.read(Index::memoryBytes))
+                .description("Estimated heap used by the search index")
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("users.search.index.users", this, searchIndex -> searchIndex.read(Index::liveCount))
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.dead", this, searchIndex -> searchIndex.read(Index::deadCount))
+                .description("Removed or replaced users still held by the index until its next compaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the index in the background once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        scheduleRebuild(true);
+    }
+
+    /**
+     * @return true once the index has been built from the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Checks a search query and brings it to the form names and emails are indexed in.
+     *
+     * @param query the text to search for
+     * @return the stripped, lower-cased query
+     * @throws UserException if the query is blank or too long
+     */
+    public String normalizeQuery(String query) {
+        if (query == null || query.isBlank()) {
+            throw new UserException(ErrorCode.INVALID_REQUEST, "Search query is mandatory");
+        }
+        String normalized = query.strip().toLowerCase(Locale.ROOT);
+        if (normalized.length() > properties.getMaxQueryLength()) {
+            throw new UserException(ErrorCode.INVALID_REQUEST,
+                    "Search query must not exceed " + properties.getMaxQueryLength() + " characters");
+        }
+        return normalized;
+    }
+
+    /**
+     * Searches the users whose name or email contains the query, best matches first.
+     *
+     * @param query the query, normalized with {@link #normalizeQuery}
+     * @param offset the number of matches to skip
+     * @param limit the maximum number of matches to return
+     * @return the ids of the requested matches and the total number of matches
+     */
+    public Hits search(String query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a user once the current transaction commits. Changes older than the indexed version
+     * of the user are ignored, so concurrent updates committing out of order cannot revert it.
+     *
+     * @param userId the ID of the user
+     * @param version the version of the user after the change
+     * @param name the name of the user
+     * @param email the email of the user
+     */
+    public void index(long userId, long version, String name, String email) {
+        AfterCommit.run(() -> apply(target -> target.put(userId, version, name, email)));
+    }
+
+    /**
+     * Removes a user once the current transaction commits.
+     *
+     * @param userId the ID of the removed user
+     */
+    public void remove(long userId) {
+        AfterCommit.run(() -> apply(target -> target.remove(userId)));
+    }
+
+    private void apply(Consumer<Index> change) {
+        boolean stale;
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pending != null) {
+                pending.add(change);
+            }
+            stale = index.deadCount() > properties.getStaleRatio() * index.size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (stale && ready) {
+            scheduleRebuild(false);
+        }
+    }
+
+    /**
+     * Rebuilds the index in the background, either from a streaming scan of the database or by compacting
+     * the live users of the current index. Changes applied meanwhile are replayed on the new index.
+     *
+     * @param fromDatabase true to read the users from the database, false to compact the current index
+     */
+    public void scheduleRebuild(boolean fromDatabase) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild(fromDatabase);
+                rebuilding.set(false);
+                ready = true;
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                rebuilding.set(false);
+                log.warn("Could not build the search index, searches fall back to the database", e);
+            }
+        });
+    }
+
+    private void rebuild(boolean fromDatabase) {
+        long start = System.nanoTime();
+        Index next = new Index();
+        Index snapshot;
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+            snapshot = fromDatabase ? null : index.snapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (snapshot != null) {
+            snapshot.copyLiveTo(next);
+        } else {
+            readOnlyTransaction.executeWithoutResult(status -> userShards.eachShard(() -> {
+                try (Stream<UserDto> users = userRepository.streamAll()) {
+                    users.forEach(user -> next.put(user.getId(), user.getVersion(), user.getName(), user.getEmail()));
+                }
+            }));
+        }
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(next));
+            pending = null;
+            index = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("{} search index with {} users in {} ms, {} KiB", fromDatabase ? "Built" : "Compacted",
+                next.liveCount(), (System.nanoTime() - start) / 1_000_000, next.memoryBytes() / 1024);
+    }
+
+    private long read(ToLongFunction<Index> metric) {
+        lock.readLock().lock();
+        try {
+            return metric.applyAsLong(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * A page of search results.
+     *
+     * @param userIds the ids of the matching users of the page, best matches first
+     * @param total the number of users matching the query
+     */
+    public record Hits(List<Long> userIds, long total) {
+    }
+
+    /**
+     * The index itself, guarded by the lock of the enclosing class.
+     * <p>
+     * Every indexed user gets the next document number; posting lists hold document numbers, so they are
+     * sorted by construction. A replaced or removed user only marks its document as dead.
+     */
+    private static final class Index {
+        private long[] userIds = new long[1024];
+        private long[] versions = new long[1024];
+        private String[] names = new String[1024];
+        private String[] emails = new String[1024];
+        private BitSet dead = new BitSet();
+        private long[] removedUserIds = new long[0];
+        private int size;
+        private int deadCount;
+        private long stringBytes;
+        private final LongIntMap documents = new LongIntMap();
+        private final Map<Long, IntList> postings = new HashMap<>();
+
+        void put(long userId, long version, String name, String email) {
+            int existing = documents.get(userId);
+            if (existing == LongIntMap.REMOVED || existing >= 0 && versions[existing] > version) {
+                return;
+            }
+            if (existing >= 0) {
+                kill(existing);
+            }
+            if (size == userIds.length) {
+                int capacity = size + (size >> 1);
+                userIds = Arrays.copyOf(userIds, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                names = Arrays.copyOf(names, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+            }
+            int document = size++;
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            String lowerEmail = email.toLowerCase(Locale.ROOT);
+            userIds[document] = userId;
+            versions[document] = version;
+            names[document] = lowerName;
+            emails[document] = lowerEmail;
+            stringBytes += stringBytes(lowerName) + stringBytes(lowerEmail);
+            documents.put(userId, document);
+            addPostings(document, lowerName);
+            addPostings(document, lowerEmail);
+        }
+
+        void remove(long userId) {
+            int existing = documents.get(userId);
+            if (existing >= 0) {
+                kill(existing);
+            }
+            documents.put(userId, LongIntMap.REMOVED);
+        }
+
+        private void kill(int document) {
+            dead.set(document);
+            deadCount++;
+            stringBytes -= stringBytes(names[document]) + stringBytes(emails[document]);
+            names[document] = null;
+            emails[document] = null;
+        }
+
+        int liveCount() {
+            return size - deadCount;
+        }
+
+        int deadCount() {
+            return deadCount;
+        }
+
+        Index snapshot() {
+            Index snapshot = new Index();
+            snapshot.userIds = Arrays.copyOf(userIds, size);
+            snapshot.versions = Arrays.copyOf(versions, size);
+            snapshot.names = Arrays.copyOf(names, size);
+            snapshot.emails = Arrays.copyOf(emails, size);
+            snapshot.dead = (BitSet) dead.clone();
+            snapshot.removedUserIds = documents.keysOf(LongIntMap.REMOVED);
+            snapshot.size = size;
+            return snapshot;
+        }
+
+        /**
+         * Copies the live users to a new index. Removed users stay marked as removed in it, so that an outdated
+         * change replayed on it after the compaction cannot bring them back.
+         */
+        void copyLiveTo(Index target) {
+            for (int document = dead.nextClearBit(0); document < size; document = dead.nextClearBit(document + 1)) {
+                target.put(userIds[document], versions[document], names[document], emails[document]);
+            }
+            for (long userId : removedUserIds) {
+                target.remove(userId);
+            }
+        }
+
+        private void addPostings(int document, String value) {
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                post(trigramKey(value, i), document);
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (startsWord(value, i)) {
+                    post(prefixKey(value, i, 1), document);
+                    if (i + 1 < value.length()) {
+                        post(prefixKey(value, i, 2), document);
+                    }
+                }
+            }
+        }
+
+        private void post(long key, int document) {
+            postings.computeIfAbsent(key, k -> new IntList()).addIfLast(document);
+        }
+
+        Hits search(String query, int offset, int limit) {
+            IntList[] lists = postingLists(query);
+            if (lists == null) {
+                return new Hits(List.of(), 0);
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            int wanted = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+            IntList[] ranks = new IntList[EXACT + 1];
+            for (int rank = SUBSTRING; rank <= EXACT; rank++) {
+                ranks[rank] = new IntList();
+            }
+            long total = 0;
+            IntList smallest = lists[0];
+            int[] cursors = new int[lists.length];
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                int document = smallest.values[i];
+                for (int l = 1; l < lists.length; l++) {
+                    int cursor = lists[l].seek(document, cursors[l]);
+                    cursors[l] = cursor;
+                    if (cursor == lists[l].size) {
+                        break candidates;
+                    }
+                    if (lists[l].values[cursor] != document) {
+                        continue candidates;
+                    }
+                }
+                if (dead.get(document)) {
+                    continue;
+                }
+                int rank = rank(document, query);
+                if (rank > 0) {
+                    total++;
+                    if (ranks[rank].size < wanted) {
+                        ranks[rank].add(document);
+                    }
+                }
+            }
+
+            List<Long> page = new ArrayList<>(Math.min(limit, 64));
+            int skip = offset;
+            for (int rank = EXACT; rank >= SUBSTRING && page.size() < limit; rank--) {
+                IntList matches = ranks[rank];
+                int from = Math.min(skip, matches.size);
+                skip -= from;
+                for (int i = from; i < matches.size && page.size() < limit; i++) {
+                    page.add(userIds[matches.values[i]]);
+                }
+            }
+            return new Hits(page, total);
+        }
+
+        /**
+         * @return the posting lists every match of the query is in, or null if no user can match
+         */
+        private IntList[] postingLists(String query) {
+            if (query.length() < 3) {
+                IntList list = postings.get(prefixKey(query, 0, query.length()));
+                return list == null ? null : new IntList[]{list};
+            }
+            Set<Long> keys = new HashSet<>();
+            for (int i = 0; i + 3 <= query.length(); i++) {
+                keys.add(trigramKey(query, i));
+            }
+            IntList[] lists = new IntList[keys.size()];
+            int i = 0;
+            for (Long key : keys) {
+                IntList list = postings.get(key);
+                if (list == null) {
+                    return null;
+                }
+                lists[i++] = list;
+            }
+            return lists;
+        }
+
+        private int rank(int document, String query) {
+            String name = names[document];
+            String email = emails[document];
+            if (name.equals(query) || email.equals(query)) {
+                return EXACT;
+            }
+            if (name.startsWith(query) || email.startsWith(query)) {
+                return FIELD_PREFIX;
+            }
+            if (containsWordStartingWith(name, query) || containsWordStartingWith(email, query)) {
+                return WORD_PREFIX;
+            }
+            if (query.length() >= 3 && (name.contains(query) || email.contains(query))) {
+                return SUBSTRING;
+            }
+            return 0;
+        }
+
+        private static boolean containsWordStartingWith(String value, String query) {
+            for (int i = value.indexOf(query); i >= 0; i = value.indexOf(query, i + 1)) {
+                if (startsWord(value, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean startsWord(String value, int i) {
+            return i == 0 || !Character.isLetterOrDigit(value.charAt(i - 1));
+        }
+
+        private static long trigramKey(String value, int i) {
+            return (long) value.charAt(i) << 32 | (long) value.charAt(i + 1) << 16 | value.charAt(i + 2);
+        }
+
+        /**
+         * Keys of the one and two character prefixes have bit 62 set, above the 48 bits of the trigram keys.
+         */
+        private static long prefixKey(String value, int i, int length) {
+            long key = 1L << 62 | (long) length << 48 | value.charAt(i);
+            return length == 1 ? key : key | (long) value.charAt(i + 1) << 16;
+        }
+
+        /**
+         * Estimated heap use, assuming compressed references: the document arrays, the lower-cased strings,
+         * the id map and the posting lists with their hash map entries and boxed keys.
+         */
+        long memoryBytes() {
+            long bytes = 16L * 4 + 8L * userIds.length * 2 + 4L * names.length * 2 + dead.size() / 8
+                    + stringBytes + documents.memoryBytes();
+            bytes += 16L + 4L * Integer.highestOneBit(Math.max(1, postings.size() * 2));
+            for (IntList list : postings.values()) {
+                bytes += 32 + 16 + list.memoryBytes();
+            }
+            return bytes;
+        }
+
+        private static long stringBytes(String value) {
+            return 24 + 16 + value.length();
+        }
+    }
+
+    /**
+     * Growable sorted list of document numbers.
+     */
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + Math.max(2, size >> 1));
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Adds a document unless it is already the last one, as when a trigram occurs twice in a name.
+         */
+        void addIfLast(int value) {
+            if (size == 0 || values[size - 1] != value) {
+                add(value);
+            }
+        }
+
+        /**
+         * @return the index of the first value at or after from that is not less than the given value, or size
+         */
+        int seek(int value, int from) {
+            if (from < size && values[from] >= value) {
+                return from;
+            }
+            int index = Arrays.binarySearch(values, from, size, value);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        long memoryBytes() {
+            return 16 + 16 + 4L * values.length;
+        }
+    }
+
+    /**
+     * Open addressing map from user id to document number, without boxing. User ids are positive, so 0 marks
+     * an empty slot.
+     */
+    private static final class LongIntMap {
+        static final int MISSING = -1;
+        static final int REMOVED = -2;
+
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                if (keys[slot] == 0) {
+                    return MISSING;
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        long[] keysOf(int value) {
+            long[] matching = new long[size];
+            int count = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != 0 && values[slot] == value) {
+                    matching[count++] = keys[slot];
+                }
+            }
+            return Arrays.copyOf(matching, count);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> 32) & mask;
+        }
+
+        long memoryBytes() {
+            return 16 + 16 + 12L * keys.length;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Keeps the {@link UserSearchIndex} in sync with the users persisted, updated or removed as entities.
+ * Bulk JPQL updates and deletes bypass entity callbacks, so the service methods using them update the index
+ * themselves.
+ * <p>
+ * Instantiated by Hibernate through the Spring bean container. The index is looked up lazily because it
+ * depends on the repositories, which are only available once the entity manager factory is built.
+ */
+public class UserSearchIndexListener {
+
+    private final ObjectProvider<UserSearchIndex> searchIndex;
+
+    public UserSearchIndexListener(ObjectProvider<UserSearchIndex> searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(User user) {
+        searchIndex.ifAvailable(index -> index.index(user.getId(),
+                user.getVersion() == null ? 0 : user.getVersion(), user.getName(), user.getEmail()));
+    }
+
+    @PostRemove
+    public void onRemove(User user) {
+        searchIndex.ifAvailable(index -> index.remove(user.getId()));
+    }
+}
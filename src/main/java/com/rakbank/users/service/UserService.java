@@ -1,31 +1,72 @@
 package com.rakbank.users.service;
 
+import com.rakbank.users.config.CacheConfig;
+import com.rakbank.users.config.PaginationProperties;
+import com.rakbank.users.config.RegistrationProperties;
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.UserChangeEvent;
+import com.rakbank.users.dto.CursorPage;
 import com.rakbank.users.dto.UserDto;
 import com.rakbank.users.dto.UserPasswordDto;
 import com.rakbank.users.dto.UserRegistrationDto;
 import com.rakbank.users.dto.UserUpdateDto;
 import com.rakbank.users.entity.User;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.PreconditionFailedException;
 import com.rakbank.users.exceptions.UserException;
 import com.rakbank.users.repository.UserRepository;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
-    private final Validator validator;
+    private final UserDtoValidator userDtoValidator;
+    private final HashingExecutor hashingExecutor;
+    private final PasswordEncoder passwordEncoder;
+    private final RegistrationProperties registrationProperties;
+    private final PaginationProperties paginationProperties;
+    private final EmailBloomFilter emailFilter;
+    private final UserSearchIndex userSearchIndex;
+    private final AuditJournal auditJournal;
+    private final UserChangeFeed userChangeFeed;
+    private final ReplicaRouting replicaRouting;
+    private final UserShards userShards;
+    private final UserDirectory userDirectory;
+    private final UserShardQueries userQueries;
+    private final CacheManager cacheManager;
 
     /**
      * Creates a new user in the system.
@@ -35,72 +76,340 @@ public class UserService {
      * @throws UserException if the email already exists or if validation fails
      */
     public UserDto createUser(UserRegistrationDto userDto) {
-        validation(userDto);
-        var emailExist = userRepository.existsByEmail(userDto.getEmail());
-        if (emailExist) {
-            throw new UserException("Email already exist");
+        checkRegistration(userDto);
+        return saveNewUser(userDto, encodePassword(userDto.getPassword()));
+    }
+
+    /**
+     * Creates a new user in the system, hashing the password on the hashing pool.
+     * Validation and the duplicate email check run on the calling thread so bad requests fail fast.
+     *
+     * @param userDto the user registration data transfer object containing user details
+     * @return CompletableFuture completed with the created user
+     * @throws UserException if the email already exists or if validation fails
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public CompletableFuture<UserDto> createUserAsync(UserRegistrationDto userDto) {
+        checkRegistration(userDto);
+        return hashingExecutor.supplyAsync(() -> encodePassword(userDto.getPassword()))
+                .thenApply(encodedPassword -> saveNewUser(userDto, encodedPassword));
+    }
+
+    /**
+     * Registers a batch of users.
+     * Every entry is validated and checked for duplicates first, using a single query for the emails that
+     * the email filter reports as possibly registered. The passwords of the accepted entries are then hashed in parallel on the
+     * hashing pool and the users are inserted in one transaction with JDBC batching, one per shard when sharded.
+     *
+     * @param userDtos the user registration data transfer objects
+     * @return CompletableFuture completed with one result per entry, in the order of the entries
+     * @throws UserException if the batch is empty or exceeds the maximum batch size
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public CompletableFuture<List<BatchRegistrationResult>> registerBatch(List<UserRegistrationDto> userDtos) {
+        if (userDtos == null || userDtos.isEmpty()) {
+            throw new UserException(ErrorCode.INVALID_REQUEST, "Batch must contain at least one user");
         }
-        log.info("Creating user: {}", userDto.getEmail());
-        User user = User.builder()
-                .name(userDto.getName())
-                .email(userDto.getEmail())
-                .password(encodePassword(userDto.getPassword()))
-                .build();
-        var savedUser = userRepository.save(user);
-        return mapToDto(savedUser);
+        if (userDtos.size() > registrationProperties.getBatchMaxSize()) {
+            throw new UserException(ErrorCode.INVALID_REQUEST,
+                    "Batch must not exceed " + registrationProperties.getBatchMaxSize() + " users");
+        }
+        log.info("Registering a batch of {} users", userDtos.size());
+
+        BatchRegistrationResult[] results = new BatchRegistrationResult[userDtos.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int index = 0; index < userDtos.size(); index++) {
+            UserRegistrationDto userDto = userDtos.get(index);
+            if (userDto == null) {
+                results[index] = BatchRegistrationResult.rejected(index, null, "User is mandatory");
+                continue;
+            }
+            String errors = userDtoValidator.errors(userDto);
+            if (errors != null) {
+                results[index] = BatchRegistrationResult.rejected(index, userDto.getEmail(), errors);
+            } else if (candidates.putIfAbsent(userDto.getEmail(), index) != null) {
+                results[index] = BatchRegistrationResult.rejected(index, userDto.getEmail(), "Email already exist");
+            }
+        }
+        List<String> possiblyTaken = candidates.keySet().stream().filter(emailFilter::mightContain).toList();
+        if (!possiblyTaken.isEmpty()) {
+            for (String email : userDirectory.findExisting(possiblyTaken)) {
+                int index = candidates.remove(email);
+                results[index] = BatchRegistrationResult.rejected(index, email, "Email already exist");
+            }
+        }
+
+        List<Integer> accepted = List.copyOf(candidates.values());
+        return hashingExecutor.mapAsync(accepted, index -> encodePassword(userDtos.get(index).getPassword()))
+                .thenApply(encodedPasswords -> {
+                    Set<String> lost = userDirectory.reserveAll(candidates.keySet());
+                    List<Integer> created = new ArrayList<>(accepted.size());
+                    List<User> users = new ArrayList<>(accepted.size());
+                    for (int i = 0; i < accepted.size(); i++) {
+                        int index = accepted.get(i);
+                        UserRegistrationDto userDto = userDtos.get(index);
+                        if (lost.contains(userDto.getEmail())) {
+                            results[index] = BatchRegistrationResult.rejected(index, userDto.getEmail(),
+                                    "Email already exist");
+                            continue;
+                        }
+                        created.add(index);
+                        users.add(User.builder()
+                                .name(userDto.getName())
+                                .email(userDto.getEmail())
+                                .password(encodedPasswords.get(i))
+                                .build());
+                    }
+                    List<User> savedUsers = saveAll(users);
+                    savedUsers.forEach(user -> {
+                        AfterCommit.run(() -> emailFilter.add(user.getEmail()));
+                        auditJournal.record(AuditRecord.Type.CREATED, user.getId(), user.getName(), user.getEmail());
+                    });
+                    for (int i = 0; i < created.size(); i++) {
+                        int index = created.get(i);
+                        UserDto user = mapToDto(savedUsers.get(i));
+                        userChangeFeed.publish(UserChangeEvent.Type.CREATED, user);
+                        replicaRouting.recordWrite(user.getId());
+                        results[index] = BatchRegistrationResult.created(index, user);
+                    }
+                    return Arrays.asList(results);
+                });
+    }
+
+    /**
+     * Checks whether an email can still be used to register.
+     * Most unknown emails are answered by the in-memory email filter without a database round trip.
+     *
+     * @param email the email to check
+     * @return true if no user is registered with this email
+     * @throws UserException if the email is blank
+     */
+    public boolean isEmailAvailable(String email) {
+        if (email == null || email.isBlank()) {
+            throw new UserException(ErrorCode.INVALID_REQUEST, "Email is mandatory");
+        }
+        return !emailTaken(email);
     }
 
     /**
      * Retrieves a paginated list of all users.
+     * Users are read as DTO projections in a read-only transaction, so neither the password hashes
+     * nor managed entities are loaded. When sharded, every shard is read in parallel and the pages merged.
      *
      * @param pageable the pagination information
      * @return Page<UserDto> containing the paginated user data
      */
+    @Transactional(readOnly = true)
     public Page<UserDto> getUsers(Pageable pageable) {
-        Page<User> users = userRepository.findAll(pageable);
-        return users.map(this::mapToDto);
+        return userQueries.findAllDtos(pageable);
+    }
+
+    /**
+     * Retrieves a page of users without counting them.
+     * One more user than the page size is read to tell whether a next page exists, so unlike
+     * {@link #getUsers(Pageable)} no count query runs over the whole table.
+     *
+     * @param pageable the pagination information
+     * @return Slice<UserDto> containing the users of the page and whether a next page exists
+     */
+    @Transactional(readOnly = true)
+    public Slice<UserDto> getUserSlice(Pageable pageable) {
+        return userQueries.findDtoSlice(pageable);
+    }
+
+    /**
+     * Retrieves a page of users with keyset pagination.
+     * Each page seeks directly after the last row of the previous one on an indexed (sort key, id) pair,
+     * so no OFFSET scan nor count query is run and deep pages cost the same as the first one.
+     *
+     * @param cursor the cursor returned by a previous page, or null for the first page
+     * @param sort the sort of the first page, on id or createdAt only; ignored when a cursor is given
+     * @param size the requested page size, capped to the configured maximum
+     * @return CursorPage<UserDto> containing the users and the cursors of the neighbouring pages
+     * @throws UserException if the sort is not supported or the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> getUsersByCursor(String cursor, Sort sort, Integer size) {
+        int pageSize = size == null
+                ? paginationProperties.getDefaultPageSize()
+                : Math.max(1, Math.min(size, paginationProperties.getMaxPageSize()));
+        UserCursor position = cursor == null || cursor.isBlank() ? UserCursor.first(sort) : UserCursor.decode(cursor);
+
+        List<UserDto> users = userQueries.findKeysetPage(position.getColumn(), position.scanDirection(),
+                position.getCreatedAt(), position.getId(), pageSize + 1);
+        boolean hasMore = users.size() > pageSize;
+        List<UserDto> page = new ArrayList<>(hasMore ? users.subList(0, pageSize) : users);
+        if (position.isBackward()) {
+            Collections.reverse(page);
+        }
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!page.isEmpty()) {
+            boolean hasNext = position.isBackward() || hasMore;
+            boolean hasPrevious = position.isBackward() ? hasMore : !position.isFirst();
+            if (hasNext) {
+                nextCursor = position.next(page.get(page.size() - 1)).encode();
+            }
+            if (hasPrevious) {
+                prevCursor = position.previous(page.get(0)).encode();
+            }
+        }
+        return CursorPage.<UserDto>builder()
+                .content(page)
+                .size(pageSize)
+                .nextCursor(nextCursor)
+                .prevCursor(prevCursor)
+                .build();
+    }
+
+    /**
+     * Searches the users whose name or email contains the query, ignoring case.
+     * The users are looked up in the search index, ranked exact match first, then match at the start of the
+     * name or email, at the start of a word and anywhere, and only the users of the requested page are read
+     * from the database. Until the index is built the database is scanned instead, and users are sorted by id.
+     *
+     * @param query the text to search for; queries shorter than three characters only match the start of a word
+     * @param pageable the pagination information; its sort is ignored
+     * @return Page<UserDto> containing the matching users of the requested page
+     * @throws UserException if the query is blank or too long
+     */
+    @Transactional(readOnly = true)
+    public Page<UserDto> searchUsers(String query, Pageable pageable) {
+        String normalized = userSearchIndex.normalizeQuery(query);
+        if (!userSearchIndex.isReady()) {
+            return userQueries.searchDtos(likePattern(normalized),
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id")));
+        }
+        UserSearchIndex.Hits hits = userSearchIndex.search(normalized,
+                (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE), pageable.getPageSize());
+        if (hits.userIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.total());
+        }
+        Map<Long, UserDto> users = new HashMap<>();
+        userQueries.findDtosByIds(hits.userIds()).forEach(user -> users.put(user.getId(), user));
+        List<UserDto> page = hits.userIds().stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(page, pageable, hits.total());
     }
 
     /**
      * Retrieves a user by their ID.
+     * Users are read through the users cache; concurrent misses on the same id load it only once,
+     * as a DTO projection without the password hash. A user changed within the read-your-writes window is
+     * read from the primary rather than from the replica.
      *
      * @param userId the ID of the user to retrieve
      * @return UserDto representing the requested user
      * @throws UserException if the user is not found
      */
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#userId", sync = true)
+    @Transactional(readOnly = true)
     public UserDto getUserById(Long userId) {
         log.info("Get user by id: {}", userId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserException("User not found"));
-        return mapToDto(user);
+        replicaRouting.readYourWrites(userId);
+        return userShards.onShardOf(userId, () -> userRepository.findDtoById(userId))
+                .orElseThrow(() -> new UserException(ErrorCode.USER_NOT_FOUND));
+    }
+
+    /**
+     * Retrieves the current version of a user, used to answer conditional requests without loading it.
+     * The version of a cached user is used when present, otherwise only the version column is read.
+     *
+     * @param userId the ID of the user
+     * @return the current version of the user
+     * @throws UserException if the user is not found
+     */
+    public long getUserVersion(Long userId) {
+        Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        UserDto cached = users == null ? null : users.get(userId, UserDto.class);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        return userShards.onShardOf(userId, () -> userRepository.findVersionById(userId))
+                .orElseThrow(() -> new UserException(ErrorCode.USER_NOT_FOUND));
     }
 
     /**
      * Updates an existing user's information.
+     * The public columns are read without the password hash, and the write is skipped when the supplied
+     * fields match the stored ones; otherwise both columns are written with a single UPDATE statement.
      *
      * @param userId the ID of the user to update
      * @param user the user update data transfer object containing updated user details
+     * @param expectedVersion the version the user must still have, or null to update whatever the version
      * @return Optional<UserDto> representing the updated user, if found
      * @throws UserException if the user is not found or if validation fails
+     * @throws PreconditionFailedException if the user no longer has the expected version
      */
-    public Optional<UserDto> updateUser(Long userId, UserUpdateDto user) {
-        updateValidation(user);
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+    public Optional<UserDto> updateUser(Long userId, UserUpdateDto user, Long expectedVersion) {
+        requireValid(userDtoValidator.errors(user));
         log.info("Modify user by id: {}", userId);
-        User existingUser = userRepository.findById(userId).orElseThrow(() -> new UserException("User not found"));
+        return userShards.onShardOf(userId, () -> updateProfile(userId, user, expectedVersion));
+    }
 
-        if (user.getEmail() != null && !user.getEmail().equals(existingUser.getEmail())) {
-            existingUser.setEmail(user.getEmail());
+    /**
+     * Updates the profile of a user on the shard bound to the current thread, within the transaction of
+     * {@link #updateUser(Long, UserUpdateDto, Long)}. A new email is reserved in the email directory first,
+     * and the previous one released once the transaction commits; a deleted user still holding the new email
+     * is purged.
+     *
+     * @param userId the ID of the user to update
+     * @param user the user update data transfer object containing updated user details
+     * @param expectedVersion the version the user must still have, or null to update whatever the version
+     * @return Optional<UserDto> representing the updated user
+     * @throws UserException if the user is not found or the new email is taken
+     * @throws PreconditionFailedException if the user no longer has the expected version
+     */
+    private Optional<UserDto> updateProfile(Long userId, UserUpdateDto user, Long expectedVersion) {
+        UserDto existingUser = userRepository.findDtoById(userId)
+                .orElseThrow(() -> new UserException(ErrorCode.USER_NOT_FOUND));
+        if (expectedVersion != null && expectedVersion != existingUser.getVersion()) {
+            throw new PreconditionFailedException();
         }
-        if (user.getName() != null && !user.getName().equals(existingUser.getName())) {
-            existingUser.setName(user.getName());
+
+        String name = user.getName() != null ? user.getName() : existingUser.getName();
+        String email = user.getEmail() != null ? user.getEmail() : existingUser.getEmail();
+        boolean emailChanged = !email.equals(existingUser.getEmail());
+        if (!emailChanged && name.equals(existingUser.getName())) {
+            return Optional.of(existingUser);
         }
 
-        User updatedUser = userRepository.save(existingUser);
-        return Optional.of(mapToDto(updatedUser));
+        String previousEmail = existingUser.getEmail();
+        if (emailChanged) {
+            userDirectory.reserve(email);
+            AfterCommit.runOnRollback(() -> userDirectory.release(List.of(email)));
+            userRepository.purgeByEmails(List.of(email));
+        }
+        if (userRepository.updateProfile(userId, name, email, expectedVersion) == 0) {
+            if (expectedVersion != null) {
+                throw new PreconditionFailedException();
+            }
+            throw new UserException(ErrorCode.USER_NOT_FOUND);
+        }
+        if (emailChanged) {
+            AfterCommit.run(() -> emailFilter.add(email));
+            emailFilter.recordRemoval();
+            AfterCommit.run(() -> userDirectory.assign(List.of(User.builder().id(userId).email(email).build())));
+            AfterCommit.run(() -> userDirectory.release(List.of(previousEmail)));
+        }
+        existingUser.setName(name);
+        existingUser.setEmail(email);
+        existingUser.setVersion(existingUser.getVersion() + 1);
+        userSearchIndex.index(userId, existingUser.getVersion(), name, email);
+        auditJournal.record(AuditRecord.Type.UPDATED, userId, name, email);
+        userChangeFeed.publish(UserChangeEvent.Type.UPDATED, existingUser);
+        replicaRouting.recordWrite(userId);
+        return Optional.of(existingUser);
     }
 
     /**
-     * Changes the password of a user.
+     * Changes the password of a user. The new password is hashed with the current cost, so an accepted change
+     * also replaces a hash made with an older one.
      *
      * @param userId the ID of the user whose password is to be changed
      * @param userPassword the user password data transfer object containing the new password
@@ -108,99 +417,245 @@ public class UserService {
      * @throws UserException if the user is not found or if validation fails
      */
     public String changePassword(Long userId, UserPasswordDto userPassword) {
-        // Validate passwords
-        changePasswordValidation(userPassword);
+        String currentPassword = checkPasswordChange(userId, userPassword);
+        return saveNewPassword(userId, hashNewPassword(currentPassword, userPassword));
+    }
+
+    /**
+     * Changes the password of a user, running the password comparison and hashing on the hashing pool.
+     *
+     * @param userId the ID of the user whose password is to be changed
+     * @param userPassword the user password data transfer object containing the new password
+     * @return CompletableFuture completed with a message indicating the result of the operation
+     * @throws UserException if the user is not found or if validation fails
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public CompletableFuture<String> changePasswordAsync(Long userId, UserPasswordDto userPassword) {
+        String currentPassword = checkPasswordChange(userId, userPassword);
+        return hashingExecutor.supplyAsync(() -> hashNewPassword(currentPassword, userPassword))
+                .thenApply(encodedPassword -> saveNewPassword(userId, encodedPassword));
+    }
 
-        Optional<User> existingUser = userRepository.findById(userId);
-        if (existingUser.isEmpty()) {
-            throw new UserException("User not found");
+    /**
+     * Deletes a user by their ID with a single UPDATE statement marking it deleted; a missing user is detected
+     * from the number of updated rows. The row is removed for good by {@link UserPurger} once the purge
+     * retention has passed.
+     *
+     * @param userId the ID of the user to delete
+     * @return String message indicating the result of the deletion
+     * @throws UserException if the user is not found
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+    public String deleteUser(Long userId) {
+        log.info("Delete user by id: {}", userId);
+        if (userShards.onShardOf(userId, () -> userRepository.markDeleted(userId, LocalDateTime.now())) == 0) {
+            throw new UserException(ErrorCode.USER_NOT_FOUND);
         }
+        AfterCommit.run(() -> userDirectory.releaseUser(userId));
+        emailFilter.recordRemoval();
+        userSearchIndex.remove(userId);
+        auditJournal.record(AuditRecord.Type.DELETED, userId, null, null);
+        userChangeFeed.publishDeletion(userId);
+        replicaRouting.recordWrite(userId);
+        return "User with Id " + userId + " was deleted successfully";
+    }
 
-        User user = existingUser.get();
 
-        // Ensure the new password and confirmation match
-        if (!userPassword.getPassword().equals(userPassword.getConfirmPassword())) {
-            throw new UserException("Passwords do not match");
+    /**
+     * Validates a registration and rejects emails that are already taken.
+     *
+     * @param userDto the user registration data transfer object to check
+     * @throws UserException if the email already exists or if validation fails
+     */
+    private void checkRegistration(UserRegistrationDto userDto) {
+        requireValid(userDtoValidator.errors(userDto));
+        if (emailTaken(userDto.getEmail())) {
+            throw new UserException(ErrorCode.EMAIL_ALREADY_EXISTS);
         }
+    }
 
-        // Check if the new password is the same as the current one
-        if (matchPassword(user.getPassword(), userPassword.getPassword())) {
-            throw new UserException("Your password must be different from your current password");
+    /**
+     * Checks whether an email is registered, only querying the database when the email filter reports
+     * it as possibly present.
+     *
+     * @param email the email to check
+     * @return true if a user is registered with this email
+     */
+    private boolean emailTaken(String email) {
+        if (!emailFilter.mightContain(email)) {
+            return false;
+        }
+        boolean exists = userDirectory.exists(email);
+        if (!exists) {
+            emailFilter.recordFalsePositive();
         }
+        return exists;
+    }
 
-        // If all validations pass, encode and save the new password
-        user.setPassword(encodePassword(userPassword.getConfirmPassword()));
-        userRepository.save(user);
+    /**
+     * Persists a new user whose password has already been encoded, on the next shard in turn.
+     *
+     * A deleted user still holding the email is purged first. This does not depend on the email filter,
+     * which is built from the live users only and so forgets the emails of deleted users once rebuilt.
+     *
+     * @param userDto the user registration data transfer object containing user details
+     * @param encodedPassword the encoded password
+     * @return UserDto representing the created user
+     * @throws UserException if the email was taken by a concurrent registration on another shard
+     */
+    private UserDto saveNewUser(UserRegistrationDto userDto, String encodedPassword) {
+        log.info("Creating user: {}", userDto.getEmail());
+        User user = User.builder()
+                .name(userDto.getName())
+                .email(userDto.getEmail())
+                .password(encodedPassword)
+                .build();
+        userDirectory.reserve(user.getEmail());
+        User savedUser;
+        try {
+            savedUser = userShards.on(userShards.nextShard(), () -> {
+                userRepository.purgeByEmails(List.of(user.getEmail()));
+                return userRepository.save(user);
+            });
+        } catch (RuntimeException e) {
+            userDirectory.release(List.of(user.getEmail()));
+            throw e;
+        }
+        userDirectory.assign(List.of(savedUser));
+        AfterCommit.run(() -> emailFilter.add(savedUser.getEmail()));
+        auditJournal.record(AuditRecord.Type.CREATED, savedUser.getId(), savedUser.getName(), savedUser.getEmail());
+        UserDto created = mapToDto(savedUser);
+        userChangeFeed.publish(UserChangeEvent.Type.CREATED, created);
+        replicaRouting.recordWrite(created.getId());
+        return created;
+    }
 
-        return "Your password was changed successfully";
+    /**
+     * Persists new users whose emails are reserved, spread over the shards with one batch per shard. When a
+     * shard fails, the users inserted on the others keep their emails and the remaining emails are released.
+     * Deleted users still holding one of the emails are purged first.
+     *
+     * @param users the new users
+     * @return the saved users, in the order of the given ones
+     */
+    private List<User> saveAll(List<User> users) {
+        Map<Integer, List<User>> usersByShard = new TreeMap<>();
+        for (User user : users) {
+            usersByShard.computeIfAbsent(userShards.nextShard(), shard -> new ArrayList<>()).add(user);
+        }
+        List<User> savedUsers = new ArrayList<>(users.size());
+        try {
+            usersByShard.forEach((shard, shardUsers) -> savedUsers.addAll(userShards.on(shard, () -> {
+                userRepository.purgeByEmails(shardUsers.stream().map(User::getEmail).toList());
+                return userRepository.saveAll(shardUsers);
+            })));
+        } catch (RuntimeException e) {
+            Set<String> savedEmails = savedUsers.stream().map(User::getEmail).collect(Collectors.toSet());
+            userDirectory.release(users.stream()
+                    .map(User::getEmail)
+                    .filter(email -> !savedEmails.contains(email))
+                    .toList());
+            throw e;
+        } finally {
+            userDirectory.assign(savedUsers);
+        }
+        if (usersByShard.size() == 1) {
+            return savedUsers;
+        }
+        Map<String, User> savedByEmail = savedUsers.stream().collect(Collectors.toMap(User::getEmail, user -> user));
+        return users.stream().map(user -> savedByEmail.get(user.getEmail())).toList();
     }
 
     /**
-     * Deletes a user by their ID.
+     * Validates a password change and loads the current password hash of the user it applies to.
      *
-     * @param userId the ID of the user to delete
-     * @return String message indicating the result of the deletion
-     * @throws UserException if the user is not found
+     * @param userId the ID of the user whose password is to be changed
+     * @param userPassword the user password data transfer object containing the new password
+     * @return the current password hash of the user
+     * @throws UserException if the user is not found, if validation fails or if the passwords do not match
      */
-    public String deleteUser(Long userId) {
-        Optional<User> existingUser = userRepository.findById(userId);
-        if (existingUser.isEmpty()) {
-            throw new UserException("User not found");
+    private String checkPasswordChange(Long userId, UserPasswordDto userPassword) {
+        // Validate passwords
+        requireValid(userDtoValidator.errors(userPassword));
+
+        Optional<String> currentPassword = userShards.onShardOf(userId, () -> userRepository.findPasswordById(userId));
+        if (currentPassword.isEmpty()) {
+            throw new UserException(ErrorCode.USER_NOT_FOUND);
         }
-        log.info("Delete user by id: {}", userId);
-        userRepository.deleteById(userId);
-        return "User with Id " + userId + " was deleted successfully";
+
+        // Ensure the new password and confirmation match
+        if (!userPassword.getPassword().equals(userPassword.getConfirmPassword())) {
+            throw new UserException(ErrorCode.PASSWORDS_DO_NOT_MATCH);
+        }
+        return currentPassword.get();
     }
 
+    /**
+     * Encodes the new password with the current cost after checking it differs from the current one.
+     *
+     * @param currentPassword the current password hash of the user
+     * @param userPassword the user password data transfer object containing the new password
+     * @return String representing the encoded new password
+     * @throws UserException if the new password is the same as the current one
+     */
+    private String hashNewPassword(String currentPassword, UserPasswordDto userPassword) {
+        // Check if the new password is the same as the current one
+        if (matchPassword(currentPassword, userPassword.getPassword())) {
+            throw new UserException(ErrorCode.PASSWORD_NOT_CHANGED);
+        }
+        return encodePassword(userPassword.getConfirmPassword());
+    }
 
     /**
-     * Validates the user registration data transfer object.
+     * Saves an already encoded password with a single UPDATE statement.
      *
-     * @param userDto the user registration data transfer object to validate
-     * @throws UserException if validation fails
+     * @param userId the ID of the user whose password is changed
+     * @param encodedPassword the encoded new password
+     * @return String message indicating the result of the operation
+     * @throws UserException if the user was deleted in the meantime
      */
-    private void validation(UserRegistrationDto userDto) {
-        Set<ConstraintViolation<UserRegistrationDto>> violations = validator.validate(userDto);
-        if (!violations.isEmpty()) {
-            StringBuilder message = new StringBuilder("Validation errors: ");
-            for (ConstraintViolation<UserRegistrationDto> violation : violations) {
-                message.append(violation.getMessage()).append("; ");
-            }
-            throw new UserException(message.toString());
+    private String saveNewPassword(Long userId, String encodedPassword) {
+        if (userShards.onShardOf(userId, () -> userRepository.updatePassword(userId, encodedPassword)) == 0) {
+            throw new UserException(ErrorCode.USER_NOT_FOUND);
         }
+        evictCachedUser(userId);
+        auditJournal.record(AuditRecord.Type.PASSWORD_CHANGED, userId, null, null);
+        return "Your password was changed successfully";
     }
 
     /**
-     * Validates the user update data transfer object.
+     * Rejects a data transfer object that failed validation.
      *
-     * @param userDto the user update data transfer object to validate
-     * @throws UserException if validation fails
+     * @param errors the validation errors reported by {@link UserDtoValidator}, or null if the object is valid
+     * @throws UserException if validation failed
      */
-    private void updateValidation(UserUpdateDto userDto) {
-        Set<ConstraintViolation<UserUpdateDto>> violations = validator.validate(userDto);
-        if (!violations.isEmpty()) {
-            StringBuilder message = new StringBuilder("Validation errors: ");
-            for (ConstraintViolation<UserUpdateDto> violation : violations) {
-                message.append(violation.getMessage()).append("; ");
-            }
-            throw new UserException(message.toString());
+    private static void requireValid(String errors) {
+        if (errors != null) {
+            throw new UserException(ErrorCode.VALIDATION_FAILED, errors);
         }
     }
 
     /**
-     * Validates the user password data transfer object.
+     * Turns a normalized search query into a LIKE pattern matching it anywhere, escaping its wildcards.
      *
-     * @param userDto the user password data transfer object to validate
-     * @throws UserException if validation fails
+     * @param query the normalized search query
+     * @return the LIKE pattern, escaped with a backslash
      */
-    private void changePasswordValidation(UserPasswordDto userDto) {
-        Set<ConstraintViolation<UserPasswordDto>> violations = validator.validate(userDto);
-        if (!violations.isEmpty()) {
-            StringBuilder message = new StringBuilder("Validation errors: ");
-            for (ConstraintViolation<UserPasswordDto> violation : violations) {
-                message.append(violation.getMessage()).append("; ");
-            }
-            throw new UserException(message.toString());
+    private static String likePattern(String query) {
+        return "%" + query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Evicts a user from the users cache. Called from code paths that cannot use {@link CacheEvict}
+     * because they complete on the hashing pool.
+     *
+     * @param userId the ID of the user to evict
+     */
+    private void evictCachedUser(Long userId) {
+        Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (users != null) {
+            users.evict(userId);
         }
     }
 
@@ -215,26 +670,26 @@ public class UserService {
     }
 
     /**
-     * Encodes a raw password using BCrypt.
+     * Encodes a raw password using the shared password encoder.
      *
      * @param password the raw password to encode
      * @return String representing the encoded password
      */
     private String encodePassword(String password) {
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
-        return encoder.encode(password);
+        return passwordEncoder.encode(password);
     }
 
     /**
-     * Checks if the raw password matches the hashed password.
+     * Checks if the raw password matches the user's hashed password.
+     * A hash produced with an older cost is not upgraded here: the service has no login, and the only
+     * verification is that of a password change, which stores a hash with the current cost once accepted.
      *
-     * @param hashedPassword the hashed password to check against
+     * @param encodedPassword the stored password hash of the user
      * @param rawPassword the raw password to validate
      * @return boolean indicating if the passwords match
      */
-    private boolean matchPassword(String hashedPassword, String rawPassword) {
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
-        return encoder.matches(rawPassword, hashedPassword);
+    private boolean matchPassword(String encodedPassword, String rawPassword) {
+        return passwordEncoder.matches(rawPassword, encodedPassword);
     }
 
 }
@@ -0,0 +1,100 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.exceptions.UserException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public {@link UserService} method, tagged with the method name and its outcome.
+ * Asynchronous methods are timed until their future completes, so the time spent queued and hashing on the
+ * hashing pool is included.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class UserServiceMetrics {
+
+    static final String TIMER = "users.service";
+
+    static final String SUCCESS = "success";
+    static final String NOT_FOUND = "not_found";
+    static final String VALIDATION_FAILURE = "validation_failure";
+    static final String DUPLICATE_EMAIL = "duplicate_email";
+    static final String PRECONDITION_FAILED = "precondition_failed";
+    static final String REJECTED = "rejected";
+    static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+    /**
+     * Timers by method and outcome, so the advice does not build and look up a timer in the registry on
+     * every call.
+     */
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.rakbank.users.service.UserService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(method, outcome(e), start);
+            throw e;
+        }
+        if (result instanceof CompletableFuture<?> future) {
+            return future.whenComplete((value, failure) ->
+                    record(method, failure == null ? SUCCESS : outcome(failure), start));
+        }
+        record(method, SUCCESS, start);
+        return result;
+    }
+
+    private void record(String method, String outcome, long start) {
+        timers.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, o -> Timer.builder(TIMER)
+                        .description("Time spent in user service methods")
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Classifies a failure. Business errors are told apart by their {@link com.rakbank.users.exceptions.ErrorCode}.
+     */
+    static String outcome(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        if (cause instanceof UserException userException) {
+            return switch (userException.getErrorCode()) {
+                case USER_NOT_FOUND, IMPORT_JOB_NOT_FOUND -> NOT_FOUND;
+                case EMAIL_ALREADY_EXISTS -> DUPLICATE_EMAIL;
+                case USER_MODIFIED -> PRECONDITION_FAILED;
+                case SERVICE_BUSY -> REJECTED;
+                default -> VALIDATION_FAILURE;
+            };
+        }
+        if (cause instanceof ConstraintViolationException) {
+            return VALIDATION_FAILURE;
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return REJECTED;
+        }
+        return ERROR;
+    }
+}
@@ -0,0 +1,195 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.repository.UserKeysetRepository.KeysetColumn;
+import com.rakbank.users.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads of the users that span every shard. Each shard is queried in parallel and the results are merged in
+ * memory; without sharding the repository is queried directly.
+ * <p>
+ * A merged page needs the first offset + size users of every shard, so deep pages cost more with each shard
+ * added. Cursor pages only need the next size users of every shard, whatever their depth.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserShardQueries {
+    private final UserShards userShards;
+    private final UserRepository userRepository;
+
+    /**
+     * @param pageable the pagination information
+     * @return the requested page of every user, as DTOs
+     * @see UserRepository#findAllDtos(Pageable)
+     */
+    public Page<UserDto> findAllDtos(Pageable pageable) {
+        if (!userShards.isSharded()) {
+            return userRepository.findAllDtos(pageable);
+        }
+        return mergePages(pageable, userRepository::findAllDtos);
+    }
+
+    /**
+     * @param pageable the pagination information
+     * @return the requested page of every user, as DTOs, without their count
+     * @see UserRepository#findDtoSlice(Pageable)
+     */
+    public Slice<UserDto> findDtoSlice(Pageable pageable) {
+        if (!userShards.isSharded()) {
+            return userRepository.findDtoSlice(pageable);
+        }
+        Comparator<UserDto> order = comparator(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            List<UserDto> users = userShards.gather(shard -> userRepository.findDtoSlice(pageable).getContent())
+                    .stream()
+                    .flatMap(List::stream)
+                    .sorted(order)
+                    .toList();
+            return new SliceImpl<>(users, pageable, false);
+        }
+        Pageable shardPage = PageRequest.of(0, firstUsers(pageable), pageable.getSort());
+        List<Slice<UserDto>> slices = userShards.gather(shard -> userRepository.findDtoSlice(shardPage));
+        List<UserDto> users = slices.stream()
+                .flatMap(slice -> slice.getContent().stream())
+                .sorted(order)
+                .skip(pageable.getOffset())
+                .toList();
+        boolean hasNext = users.size() > pageable.getPageSize() || slices.stream().anyMatch(Slice::hasNext);
+        return new SliceImpl<>(users.subList(0, Math.min(users.size(), pageable.getPageSize())), pageable, hasNext);
+    }
+
+    /**
+     * @param pattern the LIKE pattern, escaped with a backslash
+     * @param pageable the pagination information
+     * @return the requested page of the users matching the pattern, as DTOs
+     * @see UserRepository#searchDtos(String, Pageable)
+     */
+    public Page<UserDto> searchDtos(String pattern, Pageable pageable) {
+        if (!userShards.isSharded()) {
+            return userRepository.searchDtos(pattern, pageable);
+        }
+        return mergePages(pageable, shardPage -> userRepository.searchDtos(pattern, shardPage));
+    }
+
+    /**
+     * @param column the sort column
+     * @param direction the scan direction
+     * @param createdAt the creation date of the last seen user, only used when sorting by creation date
+     * @param id the id of the last seen user, or null to start from the beginning
+     * @param limit the maximum number of users to return
+     * @return the users after the position, in scan order
+     * @see UserRepository#findKeysetPage(KeysetColumn, Sort.Direction, LocalDateTime, Long, int)
+     */
+    public List<UserDto> findKeysetPage(KeysetColumn column, Sort.Direction direction, LocalDateTime createdAt,
+                                        Long id, int limit) {
+        if (!userShards.isSharded()) {
+            return userRepository.findKeysetPage(column, direction, createdAt, id, limit);
+        }
+        Comparator<UserDto> order = comparator(Sort.by(direction, column.getProperty(), "id"));
+        return userShards.gather(shard -> userRepository.findKeysetPage(column, direction, createdAt, id, limit))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(order)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @param ids the ids of the users
+     * @return the users found, in no particular order
+     * @see UserRepository#findDtosByIds(Collection)
+     */
+    public List<UserDto> findDtosByIds(Collection<Long> ids) {
+        if (!userShards.isSharded()) {
+            return userRepository.findDtosByIds(ids);
+        }
+        Map<Integer, List<Long>> idsByShard = new HashMap<>();
+        userShards.shardsOf(ids).forEach((id, shard) ->
+                idsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(id));
+        return userShards.gather(shard -> idsByShard.containsKey(shard)
+                        ? userRepository.findDtosByIds(idsByShard.get(shard))
+                        : List.<UserDto>of())
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    private Page<UserDto> mergePages(Pageable pageable, Function<Pageable, Page<UserDto>> query) {
+        Comparator<UserDto> order = comparator(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            List<UserDto> users = userShards.gather(shard -> query.apply(pageable).getContent()).stream()
+                    .flatMap(List::stream)
+                    .sorted(order)
+                    .toList();
+            return new PageImpl<>(users, pageable, users.size());
+        }
+        Pageable shardPage = PageRequest.of(0, firstUsers(pageable), pageable.getSort());
+        List<Page<UserDto>> pages = userShards.gather(shard -> query.apply(shardPage));
+        List<UserDto> users = pages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(order)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(users, pageable, pages.stream().mapToLong(Page::getTotalElements).sum());
+    }
+
+    /**
+     * @param pageable a page
+     * @return the number of users of a shard that may end up in the page once merged with the other shards
+     * @throws UserException if the page is too deep to be read from the start of every shard
+     */
+    private static int firstUsers(Pageable pageable) {
+        long end = pageable.getOffset() + pageable.getPageSize();
+        if (end > Integer.MAX_VALUE) {
+            throw new UserException(ErrorCode.INVALID_REQUEST, "Page is too deep, use cursor pagination instead");
+        }
+        return (int) end;
+    }
+
+    /**
+     * Orders users in memory like the database orders them for a sort, ending with the id so the order of
+     * users with equal sort keys does not depend on the shard they come from.
+     *
+     * @param sort the sort
+     * @return the comparator
+     * @throws UserException if the sort is on a property not exposed by the DTO
+     */
+    private static Comparator<UserDto> comparator(Sort sort) {
+        Comparator<UserDto> order = (left, right) -> 0;
+        for (Sort.Order sortOrder : sort) {
+            Comparator<UserDto> property = switch (sortOrder.getProperty()) {
+                case "id" -> Comparator.comparing(UserDto::getId);
+                case "name" -> Comparator.comparing(UserDto::getName);
+                case "email" -> Comparator.comparing(UserDto::getEmail);
+                case "createdAt" -> Comparator.comparing(UserDto::getCreatedAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "version" -> Comparator.comparingLong(UserDto::getVersion);
+                default -> throw new UserException(ErrorCode.INVALID_REQUEST,
+                        "Cannot sort by " + sortOrder.getProperty());
+            };
+            order = order.thenComparing(sortOrder.isAscending() ? property : property.reversed());
+        }
+        return order.thenComparing(UserDto::getId);
+    }
+}
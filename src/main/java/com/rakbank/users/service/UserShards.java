@@ -0,0 +1,291 @@
+package com.rakbank.users.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rakbank.users.config.ShardingProperties;
+import com.rakbank.users.repository.UserDirectoryRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Shards of the user table, and the shard the current thread works on.
+ * <p>
+ * The id of a user encodes the shard it was created on, its home shard, in the bits above
+ * {@link #SHARD_SHIFT}: each shard draws ids from its own sequence, started at {@link #firstId(int)}. A user
+ * moved to another shard keeps its id, so the shard of a user is read from the email directory, which every
+ * instance shares, and cached for {@code users.sharding.location-cache-ttl}; a move made by this instance is
+ * seen at once, one made by another instance once the cached shard expires.
+ * Without sharding there is a single shard 0 and every method runs its work directly.
+ * <p>
+ * Database work is sent to the shard bound to the current thread, shard 0 when none is. As the JPA data
+ * source only takes a connection at the first statement of a transaction, binding a shard at the start of a
+ * transactional method is enough for the whole transaction to run on it.
+ */
+@Component
+public class UserShards implements DisposableBean {
+
+    /**
+     * Number of low bits of a user id drawn from the sequence of its home shard.
+     */
+    public static final int SHARD_SHIFT = 48;
+
+    /**
+     * Maximum number of shards, so that every id stays below 2^53 and is exact as a JSON number.
+     */
+    public static final int MAX_SHARDS = 32;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private static final int MAX_CACHED_LOCATIONS = 100_000;
+
+    private final int count;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final ObjectProvider<UserDirectoryRepository> directoryRepository;
+    private final ExecutorService queryExecutor;
+    private final Cache<Long, Integer> locations;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private volatile TransactionTemplate readOnlyTransaction;
+
+    public UserShards(ShardingProperties properties, ObjectProvider<PlatformTransactionManager> transactionManager,
+                      ObjectProvider<UserDirectoryRepository> directoryRepository) {
+        this.count = properties.isEnabled() ? 1 + properties.getShards().size() : 1;
+        if (count > MAX_SHARDS) {
+            throw new IllegalStateException("At most " + MAX_SHARDS + " shards are supported, not " + count);
+        }
+        this.transactionManager = transactionManager;
+        this.directoryRepository = directoryRepository;
+        this.locations = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getLocationCacheTtl())
+                .maximumSize(MAX_CACHED_LOCATIONS)
+                .build();
+        this.queryExecutor = count > 1
+                ? Executors.newFixedThreadPool(properties.getQueryThreads(), new CustomizableThreadFactory("shard-query-"))
+                : null;
+    }
+
+    /**
+     * @param shard a shard
+     * @return the first id drawn from the sequence of the shard
+     */
+    public static long firstId(int shard) {
+        return ((long) shard << SHARD_SHIFT) + 1;
+    }
+
+    /**
+     * @return the number of shards, 1 without sharding
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return whether users are spread over several shards
+     */
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    /**
+     * @return the shard bound to the current thread, or 0
+     */
+    public int current() {
+        return boundShard();
+    }
+
+    /**
+     * Gives the shard bound to the current thread to code Spring does not create, such as the id generator.
+     *
+     * @return the shard bound to the current thread, or 0
+     */
+    public static int boundShard() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Finds the shard a user lives on, reading it from the email directory unless it was read recently.
+     *
+     * @param userId the ID of the user
+     * @return the shard the user lives on, its home shard if the directory does not know the user, or 0 for
+     * an id no shard could have made
+     */
+    public int shardOf(long userId) {
+        if (count == 1) {
+            return 0;
+        }
+        return locations.get(userId, this::findShard);
+    }
+
+    /**
+     * Finds the shards users live on, reading those not read recently from the email directory at once.
+     *
+     * @param userIds the IDs of the users
+     * @return the shard of each user, as given by {@link #shardOf(long)}
+     */
+    public Map<Long, Integer> shardsOf(Collection<Long> userIds) {
+        if (count == 1) {
+            Map<Long, Integer> shards = new HashMap<>();
+            userIds.forEach(userId -> shards.put(userId, 0));
+            return shards;
+        }
+        return locations.getAll(userIds, this::findShards);
+    }
+
+    private int findShard(long userId) {
+        Integer shard = on(0, () -> readOnlyTransaction().execute(status ->
+                directoryRepository.getObject().findShardOf(userId)));
+        return shard != null && shard < count ? shard : homeShard(userId);
+    }
+
+    private Map<Long, Integer> findShards(Set<? extends Long> userIds) {
+        List<Object[]> found = on(0, () -> readOnlyTransaction().execute(status ->
+                directoryRepository.getObject().findShardsOf(List.copyOf(userIds))));
+        Map<Long, Integer> shards = new HashMap<>();
+        found.forEach(entry -> {
+            if ((Integer) entry[1] < count) {
+                shards.put((Long) entry[0], (Integer) entry[1]);
+            }
+        });
+        userIds.forEach(userId -> shards.putIfAbsent(userId, homeShard(userId)));
+        return shards;
+    }
+
+    private int homeShard(long userId) {
+        long home = userId >>> SHARD_SHIFT;
+        return home < count ? (int) home : 0;
+    }
+
+    /**
+     * @return the shard of the next created user; users are spread over the shards in turn
+     */
+    public int nextShard() {
+        return count == 1 ? 0 : Math.floorMod(nextShard.getAndIncrement(), count);
+    }
+
+    /**
+     * Records where a user moved by this instance now lives, once the move is in the email directory.
+     *
+     * @param userId the ID of the user
+     * @param shard the shard it now lives on
+     */
+    public void relocate(long userId, int shard) {
+        locations.put(userId, shard);
+    }
+
+    /**
+     * Runs work on a shard.
+     *
+     * @param shard the shard
+     * @param work the work, taking its connections from the shard
+     * @return the result of the work
+     */
+    public <T> T on(int shard, Supplier<T> work) {
+        Integer outer = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Runs work on the shard a user lives on.
+     *
+     * @param userId the ID of the user
+     * @param work the work, taking its connections from the shard
+     * @return the result of the work
+     */
+    public <T> T onShardOf(Long userId, Supplier<T> work) {
+        return on(userId == null ? 0 : shardOf(userId), work);
+    }
+
+    /**
+     * Runs work on each shard in turn, each time in a new read-only transaction, or directly without sharding.
+     *
+     * @param work the work
+     */
+    public void eachShard(Runnable work) {
+        if (count == 1) {
+            work.run();
+            return;
+        }
+        for (int shard = 0; shard < count; shard++) {
+            on(shard, () -> readOnlyTransaction().execute(status -> {
+                work.run();
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Runs work on every shard in parallel, each in a new read-only transaction, or directly without sharding.
+     *
+     * @param work the work, given the shard it runs on
+     * @return the results of the work, by shard
+     */
+    public <T> List<T> gather(IntFunction<T> work) {
+        if (count == 1) {
+            return Collections.singletonList(work.apply(0));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> on(target, () -> readOnlyTransaction().execute(status -> work.apply(target))),
+                    queryExecutor));
+        }
+        List<T> results = new ArrayList<>(count);
+        try {
+            futures.forEach(future -> results.add(future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = readOnlyTransaction;
+        if (template == null) {
+            template = new TransactionTemplate(transactionManager.getObject());
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template.setReadOnly(true);
+            readOnlyTransaction = template;
+        }
+        return template;
+    }
+
+    @Override
+    public void destroy() {
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+}
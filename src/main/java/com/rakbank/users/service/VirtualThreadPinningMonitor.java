@@ -0,0 +1,108 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.VirtualThreadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads pinned to their carrier thread, typically by blocking inside a synchronized block
+ * of the JDBC driver or Hibernate. A pinned virtual thread holds one of the few carrier threads while it
+ * blocks, so pinning on a hot path brings back the thread-per-request limits virtual threads remove.
+ * <p>
+ * Pinning is read from the jdk.VirtualThreadPinned JFR event. Every occurrence is counted and timed, and the
+ * stack of each distinct pinning location is logged once.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int VIRTUAL_THREADS_FEATURE_VERSION = 21;
+
+    private final VirtualThreadProperties properties;
+    private final Counter pinnedCounter;
+    private final Timer pinnedTimer;
+    private final Set<String> reportedLocations = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream recording;
+
+    public VirtualThreadPinningMonitor(VirtualThreadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.pinnedCounter = Counter.builder("users.virtual.threads.pinned")
+                .description("Virtual threads pinned to their carrier for longer than the threshold")
+                .register(meterRegistry);
+        this.pinnedTimer = Timer.builder("users.virtual.threads.pinned.duration")
+                .description("Time virtual threads stayed pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts listening for pinning events once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (Runtime.version().feature() < VIRTUAL_THREADS_FEATURE_VERSION) {
+            log.warn("Virtual threads were requested but need Java {}, running on platform threads with Java {}",
+                    VIRTUAL_THREADS_FEATURE_VERSION, Runtime.version().feature());
+            return;
+        }
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT)
+                .withThreshold(properties.getPinningThreshold())
+                .withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        log.info("Reporting virtual threads pinned for more than {} ms", properties.getPinningThreshold().toMillis());
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        pinnedTimer.record(event.getDuration());
+        String stack = describe(event.getStackTrace());
+        if (reportedLocations.add(stack)) {
+            log.warn("Virtual thread {} pinned to its carrier for {} ms at{}", threadName(event),
+                    event.getDuration().toMillis(), stack);
+        }
+    }
+
+    private String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return " an unknown location";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+                .limit(properties.getPinningStackDepth())
+                .map(frame -> System.lineSeparator() + "\tat " + frame.getMethod().getType().getName() + "."
+                        + frame.getMethod().getName() + " line " + frame.getLineNumber())
+                .collect(Collectors.joining());
+    }
+
+    private static String threadName(RecordedEvent event) {
+        return event.getThread() == null ? "?" : event.getThread().getJavaName();
+    }
+
+    @Override
+    public void destroy() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
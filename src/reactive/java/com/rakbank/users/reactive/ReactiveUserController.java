@@ -0,0 +1,262 @@
+package com.rakbank.users.reactive;
+
+import com.rakbank.users.controller.UserETags;
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.CursorPage;
+import com.rakbank.users.dto.EmailAvailabilityDto;
+import com.rakbank.users.dto.SlicePage;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserPasswordDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
+import org.springframework.data.web.SortDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link com.rakbank.users.controller.UserController}, serving the same /api/user
+ * contract: same routes, bodies, status codes and ETags.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/user")
+@RequiredArgsConstructor
+public class ReactiveUserController {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    private static final String CSV_HEADER = "id,name,email,createdAt\r\n";
+
+    private final ReactiveUserService userService;
+
+    /**
+     * Creates a new user.
+     *
+     * @param userDto the user registration data transfer object containing user details
+     * @return Mono of the ResponseEntity containing the created UserDto
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<UserDto>> createUser(@RequestBody UserRegistrationDto userDto) {
+        log.info("Creating user: {}", userDto.getEmail());
+        return userService.createUser(userDto)
+                .map(result -> ResponseEntity.status(HttpStatus.CREATED).body(result));
+    }
+
+    /**
+     * Registers a batch of users in one call.
+     *
+     * @param userDtos the user registration data transfer objects
+     * @return Mono of the ResponseEntity containing one result per entry
+     */
+    @PostMapping("/register/batch")
+    public Mono<ResponseEntity<List<BatchRegistrationResult>>> registerBatch(@RequestBody List<UserRegistrationDto> userDtos) {
+        log.info("Registering a batch of {} users", userDtos.size());
+        return userService.registerBatch(userDtos)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Retrieves a paginated list of all users, with the same ETag as the servlet API.
+     * A matching If-None-Match is answered with 304 Not Modified.
+     *
+     * @param pageable the pagination information
+     * @return Mono of the ResponseEntity containing a page of UserDto objects
+     */
+    @GetMapping
+    public Mono<ResponseEntity<PagedModel<UserDto>>> getAllUsers(Pageable pageable) {
+        log.info("Getting all users");
+        return userService.getUsers(pageable)
+                .map(result -> ResponseEntity.ok().eTag(UserETags.of(result)).body(new PagedModel<>(result)));
+    }
+
+    /**
+     * Retrieves a page of users without counting them, with the same body and ETag as the servlet API.
+     *
+     * @param pageable the pagination information
+     * @return Mono of the ResponseEntity containing the users of the page and whether a next page exists
+     */
+    @GetMapping(params = "mode=slice")
+    public Mono<ResponseEntity<SlicePage<UserDto>>> getUserSlice(Pageable pageable) {
+        log.info("Getting users without count");
+        return userService.getUserSlice(pageable)
+                .map(SlicePage::of)
+                .map(result -> ResponseEntity.ok().eTag(UserETags.of(result)).body(result));
+    }
+
+    /**
+     * Retrieves a page of users with cursor pagination.
+     *
+     * @param cursor the cursor returned by a previous page, or absent for the first page
+     * @param sort the sort of the first page, on id or createdAt
+     * @param size the page size, capped to the configured maximum
+     * @return Mono of the ResponseEntity containing the page and the cursors of the neighbouring pages
+     */
+    @GetMapping(params = "mode=cursor")
+    public Mono<ResponseEntity<CursorPage<UserDto>>> getUsersByCursor(@RequestParam(required = false) String cursor,
+                                                                     @SortDefault(sort = "id") Sort sort,
+                                                                     @RequestParam(required = false) Integer size) {
+        log.info("Getting users by cursor");
+        return userService.getUsersByCursor(cursor, sort, size)
+                .map(result -> ResponseEntity.ok().eTag(UserETags.of(result)).body(result));
+    }
+
+    /**
+     * Exports every user as NDJSON or CSV, depending on the Accept header (NDJSON by default).
+     * Rows are written as they are read, at the pace the client consumes them.
+     *
+     * @param accept the Accept header of the request
+     * @return the ResponseEntity streaming the users
+     */
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<Flux<?>> exportUsers(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean csv = prefersCsv(accept);
+        log.info("Exporting users as {}", csv ? "CSV" : "NDJSON");
+        Flux<UserDto> users = userService.exportUsers();
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType(CSV, StandardCharsets.UTF_8) : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "users.csv" : "users.ndjson")
+                        .build()
+                        .toString())
+                .body(csv ? Flux.just(CSV_HEADER).concatWith(users.map(ReactiveUserController::csvLine)) : users);
+    }
+
+    /**
+     * Checks whether an email can still be used to register.
+     *
+     * @param email the email to check
+     * @return Mono of the ResponseEntity containing the email and whether it is available
+     */
+    @GetMapping("/email-available")
+    public Mono<ResponseEntity<EmailAvailabilityDto>> isEmailAvailable(@RequestParam String email) {
+        return userService.isEmailAvailable(email)
+                .map(available -> ResponseEntity.ok(new EmailAvailabilityDto(email, available)));
+    }
+
+    /**
+     * Retrieves a user by their ID. When If-None-Match is sent, only the version is looked up and a matching
+     * request is answered with 304 Not Modified.
+     *
+     * @param userId the ID of the user to retrieve
+     * @param exchange the current exchange, used to evaluate If-None-Match
+     * @return Mono of the ResponseEntity containing the UserDto of the requested user, or an empty 304 response
+     */
+    @GetMapping("/{userId}")
+    public Mono<ResponseEntity<UserDto>> getUserById(@PathVariable Long userId, ServerWebExchange exchange) {
+        log.info("Getting user: {}", userId);
+        Mono<ResponseEntity<UserDto>> user = userService.getUserById(userId)
+                .map(result -> ResponseEntity.ok().eTag(UserETags.of(result)).body(result));
+        if (exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH) == null) {
+            return user;
+        }
+        return userService.getUserVersion(userId)
+                .map(UserETags::ofVersion)
+                .flatMap(etag -> exchange.checkNotModified(etag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<UserDto>build())
+                        : user);
+    }
+
+    /**
+     * Updates an existing user. An If-Match header holding the ETag of the user makes the update conditional.
+     *
+     * @param userId the ID of the user to update
+     * @param user the user update data transfer object containing updated user details
+     * @param ifMatch the optional If-Match header
+     * @return Mono of the ResponseEntity containing the updated UserDto
+     */
+    @PutMapping("/{userId}")
+    public Mono<ResponseEntity<UserDto>> updateUser(@PathVariable Long userId, @RequestBody UserUpdateDto user,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                    String ifMatch) {
+        log.info("Updating user: {}", userId);
+        return userService.updateUser(userId, user, UserETags.expectedVersion(ifMatch))
+                .map(result -> ResponseEntity.ok().eTag(UserETags.of(result)).body(result));
+    }
+
+    /**
+     * Changes the password of a user.
+     *
+     * @param userId the ID of the user whose password is to be changed
+     * @param user the user password data transfer object containing the new password
+     * @return Mono of the ResponseEntity with a message indicating the result of the operation
+     */
+    @PatchMapping("/{userId}")
+    public Mono<ResponseEntity<String>> changePassword(@PathVariable Long userId, @RequestBody UserPasswordDto user) {
+        log.info("change password for user with id : {}", userId);
+        return userService.changePassword(userId, user)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Deletes a user by their ID.
+     *
+     * @param userId the ID of the user to delete
+     * @return Mono of the ResponseEntity with a message indicating the result of the deletion
+     */
+    @DeleteMapping("/{userId}")
+    public Mono<ResponseEntity<String>> deleteUser(@PathVariable Long userId) {
+        log.info("Deleting user with id : {}", userId);
+        return userService.deleteUser(userId)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Tells if the client prefers CSV over NDJSON, following the quality and specificity of the Accept header.
+     */
+    private static boolean prefersCsv(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> acceptedTypes = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            if (acceptedType.isCompatibleWith(NDJSON)) {
+                return false;
+            }
+            if (acceptedType.isCompatibleWith(CSV)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Formats a user as a CSV line, quoting fields like the servlet export does.
+     */
+    private static String csvLine(UserDto user) {
+        return user.getId() + "," + csvField(user.getName()) + "," + csvField(user.getEmail()) + ","
+                + csvField(user.getCreatedAt() == null ? null : user.getCreatedAt().toString()) + "\r\n";
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,247 @@
+package com.rakbank.users.reactive;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.entity.User;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.repository.UserKeysetRepository.KeysetColumn;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * R2DBC counterpart of {@link com.rakbank.users.repository.UserRepository}, reading and writing the same
+ * user_t table with plain SQL. Like the servlet repository it never reads the password hash unless asked to,
+ * and every write is a single statement.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+
+    private static final String DTO_COLUMNS = "id, name, email, created_at, coalesce(version, 0) as version";
+
+    private static final String NOT_DELETED = User.NOT_DELETED;
+
+    /**
+     * Sortable properties of UserDto and the columns they are stored in.
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "name", "name",
+            "email", "email",
+            "createdAt", "created_at");
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return databaseClient.sql("select 1 from user_t where email = :email and deleted_at is null limit 1")
+                .bind("email", email)
+                .map(row -> 1)
+                .first()
+                .hasElement();
+    }
+
+    public Flux<String> findExistingEmails(Collection<String> emails) {
+        return databaseClient.sql("select email from user_t where email in (:emails) and deleted_at is null")
+                .bind("emails", emails)
+                .map(row -> row.get("email", String.class))
+                .all();
+    }
+
+    /**
+     * Loads a page of users as DTOs, ordered by the sort of the page and then by id.
+     *
+     * @throws UserException if the page is sorted on a property that is not a column of the DTO
+     */
+    public Flux<UserDto> findAllDtos(Pageable pageable) {
+        return findAllDtos(pageable, pageable.getPageSize());
+    }
+
+    /**
+     * Loads the users of a page and the following ones, up to a limit, such as one more user than the page
+     * size to tell whether a next page exists.
+     */
+    public Flux<UserDto> findAllDtos(Pageable pageable, int limit) {
+        return databaseClient.sql("select " + DTO_COLUMNS + " from user_t where " + NOT_DELETED
+                        + " order by " + orderBy(pageable.getSort())
+                        + " limit :limit offset :offset")
+                .bind("limit", limit)
+                .bind("offset", pageable.getOffset())
+                .map(ReactiveUserRepository::toDto)
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("select count(*) as total from user_t where " + NOT_DELETED)
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    /**
+     * Loads a keyset page, see {@link com.rakbank.users.repository.UserKeysetRepository#findKeysetPage}.
+     */
+    public Flux<UserDto> findKeysetPage(KeysetColumn column, Sort.Direction direction, LocalDateTime createdAt,
+                                        Long id, int limit) {
+        String comparison = direction.isAscending() ? ">" : "<";
+        String order = direction.isAscending() ? "asc" : "desc";
+        StringBuilder sql = new StringBuilder("select ").append(DTO_COLUMNS).append(" from user_t where ")
+                .append(NOT_DELETED);
+        if (id != null) {
+            if (column == KeysetColumn.CREATED_AT) {
+                sql.append(" and (created_at ").append(comparison).append(" :createdAt or (created_at = :createdAt and id ")
+                        .append(comparison).append(" :id))");
+            } else {
+                sql.append(" and id ").append(comparison).append(" :id");
+            }
+        }
+        sql.append(" order by ");
+        if (column == KeysetColumn.CREATED_AT) {
+            sql.append("created_at ").append(order).append(", ");
+        }
+        sql.append("id ").append(order).append(" limit :limit");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("limit", limit);
+        if (id != null) {
+            spec = spec.bind("id", id);
+            if (column == KeysetColumn.CREATED_AT) {
+                spec = spec.bind("createdAt", createdAt);
+            }
+        }
+        return spec.map(ReactiveUserRepository::toDto).all();
+    }
+
+    public Mono<UserDto> findDtoById(Long id) {
+        return databaseClient.sql("select " + DTO_COLUMNS + " from user_t where id = :id and " + NOT_DELETED)
+                .bind("id", id)
+                .map(ReactiveUserRepository::toDto)
+                .one();
+    }
+
+    public Mono<Long> findVersionById(Long id) {
+        return databaseClient.sql("select coalesce(version, 0) as version from user_t where id = :id and " + NOT_DELETED)
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    public Mono<String> findPasswordById(Long id) {
+        return databaseClient.sql("select password from user_t where id = :id and " + NOT_DELETED)
+                .bind("id", id)
+                .map(row -> row.get("password", String.class))
+                .one();
+    }
+
+    /**
+     * Inserts a user with an id taken from the sequence shared with the servlet application, after purging a
+     * deleted user still holding the email.
+     *
+     * @return the inserted user, without its password hash
+     */
+    public Mono<UserDto> insert(String name, String email, String encodedPassword) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        return purgeByEmail(email)
+                .then(databaseClient.sql("select nextval('user_t_seq') as id")
+                .map(row -> row.get("id", Long.class))
+                        .one())
+                .flatMap(id -> databaseClient.sql("insert into user_t (id, name, email, password, created_at, version) "
+                                + "values (:id, :name, :email, :password, :createdAt, 0)")
+                        .bind("id", id)
+                        .bind("name", name)
+                        .bind("email", email)
+                        .bind("password", encodedPassword)
+                        .bind("createdAt", createdAt)
+                        .then()
+                        .thenReturn(new UserDto(id, name, email, createdAt, 0)));
+    }
+
+    /**
+     * Overwrites the name and email of a user and increments its version, after purging a deleted user still
+     * holding the email. When a version is given the row is only updated if it still holds that version.
+     *
+     * @return the number of updated rows, 0 if the user does not exist or holds another version
+     */
+    public Mono<Long> updateProfile(Long id, String name, String email, Long version) {
+        String sql = "update user_t set name = :name, email = :email, version = coalesce(version, 0) + 1 "
+                + "where id = :id and " + NOT_DELETED;
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(version == null ? sql : sql + " and coalesce(version, 0) = :version")
+                .bind("id", id)
+                .bind("name", name)
+                .bind("email", email);
+        if (version != null) {
+            spec = spec.bind("version", version);
+        }
+        return purgeByEmail(email).then(spec.fetch().rowsUpdated());
+    }
+
+    /**
+     * @return the number of updated rows, 0 if the user does not exist
+     */
+    public Mono<Long> updatePassword(Long id, String encodedPassword) {
+        return databaseClient.sql("update user_t set password = :password where id = :id and " + NOT_DELETED)
+                .bind("id", id)
+                .bind("password", encodedPassword)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Marks a user as deleted, leaving the row to the purge of the servlet application.
+     *
+     * @return the number of updated rows, 0 if the user does not exist or is already deleted
+     */
+    public Mono<Long> markDeleted(Long id) {
+        return databaseClient.sql("update user_t set deleted_at = :deletedAt where id = :id and " + NOT_DELETED)
+                .bind("id", id)
+                .bind("deletedAt", LocalDateTime.now())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Long> purgeByEmail(String email) {
+        return databaseClient.sql("delete from user_t where email = :email and deleted_at is not null")
+                .bind("email", email)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Streams every user ordered by id. Rows are requested from the database as the subscriber consumes them.
+     */
+    public Flux<UserDto> streamAll() {
+        return databaseClient.sql("select id, name, email, created_at from user_t where " + NOT_DELETED + " order by id")
+                .map(row -> new UserDto(row.get("id", Long.class), row.get("name", String.class),
+                        row.get("email", String.class), row.get("created_at", LocalDateTime.class)))
+                .all();
+    }
+
+    private static String orderBy(Sort sort) {
+        String orders = sort.stream()
+                .map(order -> {
+                    String column = SORT_COLUMNS.get(order.getProperty());
+                    if (column == null) {
+                        throw new UserException(ErrorCode.INVALID_REQUEST,
+                                "Users cannot be sorted by " + order.getProperty());
+                    }
+                    return column + (order.isAscending() ? " asc" : " desc");
+                })
+                .collect(Collectors.joining(", "));
+        return orders.isEmpty() ? "id" : orders + ", id";
+    }
+
+    private static UserDto toDto(Readable row) {
+        return new UserDto(row.get("id", Long.class), row.get("name", String.class), row.get("email", String.class),
+                row.get("created_at", LocalDateTime.class), row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,349 @@
+package com.rakbank.users.reactive;
+
+import com.rakbank.users.config.PaginationProperties;
+import com.rakbank.users.config.RegistrationProperties;
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.CursorPage;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserPasswordDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import com.rakbank.users.exceptions.ErrorCode;
+import com.rakbank.users.exceptions.PreconditionFailedException;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.service.HashingExecutor;
+import com.rakbank.users.service.UserCursor;
+import com.rakbank.users.service.UserDtoValidator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Reactive counterpart of {@link com.rakbank.users.service.UserService}, with the same rules and error messages.
+ * Database access never blocks, and BCrypt runs on the bounded hashing pool; a full hashing queue fails the
+ * request with {@link RejectedExecutionException}.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserService {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserService.class);
+
+    private final ReactiveUserRepository userRepository;
+    private final UserDtoValidator userDtoValidator;
+    private final HashingExecutor hashingExecutor;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionalOperator transactionalOperator;
+    private final RegistrationProperties registrationProperties;
+    private final PaginationProperties paginationProperties;
+
+    /**
+     * Creates a new user, hashing the password on the hashing pool.
+     *
+     * @param userDto the user registration data transfer object containing user details
+     * @return Mono of the created user
+     */
+    public Mono<UserDto> createUser(UserRegistrationDto userDto) {
+        return Mono.defer(() -> {
+                    requireValid(userDtoValidator.errors(userDto));
+                    return userRepository.existsByEmail(userDto.getEmail());
+                })
+                .flatMap(taken -> taken
+                        ? Mono.<String>error(new UserException(ErrorCode.EMAIL_ALREADY_EXISTS))
+                        : hash(() -> passwordEncoder.encode(userDto.getPassword())))
+                .flatMap(encodedPassword -> {
+                    log.info("Creating user: {}", userDto.getEmail());
+                    return userRepository.insert(userDto.getName(), userDto.getEmail(), encodedPassword);
+                });
+    }
+
+    /**
+     * Registers a batch of users. Invalid entries and taken emails are rejected, the passwords of the others
+     * are hashed in parallel on the hashing pool and the users are inserted in one transaction.
+     *
+     * @param userDtos the user registration data transfer objects
+     * @return Mono of one result per entry, in the order of the entries
+     */
+    public Mono<List<BatchRegistrationResult>> registerBatch(List<UserRegistrationDto> userDtos) {
+        if (userDtos == null || userDtos.isEmpty()) {
+            return Mono.error(new UserException(ErrorCode.INVALID_REQUEST, "Batch must contain at least one user"));
+        }
+        if (userDtos.size() > registrationProperties.getBatchMaxSize()) {
+            return Mono.error(new UserException(ErrorCode.INVALID_REQUEST,
+                    "Batch must not exceed " + registrationProperties.getBatchMaxSize() + " users"));
+        }
+        log.info("Registering a batch of {} users", userDtos.size());
+
+        BatchRegistrationResult[] results = new BatchRegistrationResult[userDtos.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int index = 0; index < userDtos.size(); index++) {
+            UserRegistrationDto userDto = userDtos.get(index);
+            if (userDto == null) {
+                results[index] = BatchRegistrationResult.rejected(index, null, "User is mandatory");
+                continue;
+            }
+            String errors = userDtoValidator.errors(userDto);
+            if (errors != null) {
+                results[index] = BatchRegistrationResult.rejected(index, userDto.getEmail(), errors);
+            } else if (candidates.putIfAbsent(userDto.getEmail(), index) != null) {
+                results[index] = BatchRegistrationResult.rejected(index, userDto.getEmail(), "Email already exist");
+            }
+        }
+
+        Flux<String> existingEmails = candidates.isEmpty()
+                ? Flux.empty()
+                : userRepository.findExistingEmails(candidates.keySet());
+        return existingEmails
+                .doOnNext(email -> {
+                    int index = candidates.remove(email);
+                    results[index] = BatchRegistrationResult.rejected(index, email, "Email already exist");
+                })
+                .then(Mono.defer(() -> {
+                    List<Integer> accepted = List.copyOf(candidates.values());
+                    return Mono.fromFuture(() -> hashingExecutor.mapAsync(accepted,
+                                    index -> passwordEncoder.encode(userDtos.get(index).getPassword())))
+                            .flatMap(encodedPasswords -> Flux.range(0, accepted.size())
+                                    .concatMap(i -> {
+                                        int index = accepted.get(i);
+                                        UserRegistrationDto userDto = userDtos.get(index);
+                                        return userRepository.insert(userDto.getName(), userDto.getEmail(),
+                                                        encodedPasswords.get(i))
+                                                .doOnNext(user -> results[index] = BatchRegistrationResult.created(index, user));
+                                    })
+                                    .as(transactionalOperator::transactional)
+                                    .then());
+                }))
+                .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    /**
+     * @param email the email to check
+     * @return Mono of true if no user is registered with this email
+     */
+    public Mono<Boolean> isEmailAvailable(String email) {
+        if (email == null || email.isBlank()) {
+            return Mono.error(new UserException(ErrorCode.INVALID_REQUEST, "Email is mandatory"));
+        }
+        return userRepository.existsByEmail(email).map(taken -> !taken);
+    }
+
+    /**
+     * @param pageable the pagination information
+     * @return Mono of the requested page of users
+     */
+    public Mono<Page<UserDto>> getUsers(Pageable pageable) {
+        log.info("Get users");
+        return Mono.defer(() -> Mono.zip(userRepository.findAllDtos(pageable).collectList(), userRepository.count()))
+                .<Page<UserDto>>map(pageAndTotal -> new PageImpl<>(pageAndTotal.getT1(), pageable, pageAndTotal.getT2()));
+    }
+
+    /**
+     * Retrieves a page of users without counting them, see
+     * {@link com.rakbank.users.service.UserService#getUserSlice}.
+     *
+     * @param pageable the pagination information
+     * @return Mono of the users of the page and whether a next page exists
+     */
+    public Mono<Slice<UserDto>> getUserSlice(Pageable pageable) {
+        log.info("Get users without count");
+        return Mono.defer(() -> userRepository.findAllDtos(pageable, pageable.getPageSize() + 1).collectList())
+                .map(users -> {
+                    boolean hasNext = users.size() > pageable.getPageSize();
+                    return new SliceImpl<>(hasNext ? users.subList(0, pageable.getPageSize()) : users, pageable, hasNext);
+                });
+    }
+
+    /**
+     * Retrieves a page of users with keyset pagination, see
+     * {@link com.rakbank.users.service.UserService#getUsersByCursor}.
+     *
+     * @param cursor the cursor returned by a previous page, or null for the first page
+     * @param sort the sort of the first page, on id or createdAt only
+     * @param size the requested page size, capped to the configured maximum
+     * @return Mono of the page and the cursors of the neighbouring pages
+     */
+    public Mono<CursorPage<UserDto>> getUsersByCursor(String cursor, Sort sort, Integer size) {
+        return Mono.defer(() -> {
+            int pageSize = size == null
+                    ? paginationProperties.getDefaultPageSize()
+                    : Math.max(1, Math.min(size, paginationProperties.getMaxPageSize()));
+            UserCursor position = cursor == null || cursor.isBlank() ? UserCursor.first(sort) : UserCursor.decode(cursor);
+            return userRepository.findKeysetPage(position.getColumn(), position.scanDirection(),
+                            position.getCreatedAt(), position.getId(), pageSize + 1)
+                    .collectList()
+                    .map(users -> toCursorPage(position, users, pageSize));
+        });
+    }
+
+    /**
+     * @param userId the ID of the user to retrieve
+     * @return Mono of the user, failing with UserException if the user is not found
+     */
+    public Mono<UserDto> getUserById(Long userId) {
+        log.info("Get user by id: {}", userId);
+        return userRepository.findDtoById(userId)
+                .switchIfEmpty(Mono.error(() -> new UserException(ErrorCode.USER_NOT_FOUND)));
+    }
+
+    /**
+     * @param userId the ID of the user
+     * @return Mono of the version of the user, failing with UserException if the user is not found
+     */
+    public Mono<Long> getUserVersion(Long userId) {
+        return userRepository.findVersionById(userId)
+                .switchIfEmpty(Mono.error(() -> new UserException(ErrorCode.USER_NOT_FOUND)));
+    }
+
+    /**
+     * Updates the name and email of a user in one transaction. The write is skipped when nothing changes.
+     *
+     * @param userId the ID of the user to update
+     * @param user the user update data transfer object containing updated user details
+     * @param expectedVersion the version the user must still have, or null to update whatever the version
+     * @return Mono of the updated user, failing with PreconditionFailedException on a version mismatch
+     */
+    public Mono<UserDto> updateUser(Long userId, UserUpdateDto user, Long expectedVersion) {
+        return Mono.defer(() -> {
+                    requireValid(userDtoValidator.errors(user));
+                    log.info("Modify user by id: {}", userId);
+                    return getUserById(userId);
+                })
+                .flatMap(existingUser -> {
+                    if (expectedVersion != null && expectedVersion != existingUser.getVersion()) {
+                        return Mono.error(new PreconditionFailedException());
+                    }
+                    String name = user.getName() != null ? user.getName() : existingUser.getName();
+                    String email = user.getEmail() != null ? user.getEmail() : existingUser.getEmail();
+                    if (email.equals(existingUser.getEmail()) && name.equals(existingUser.getName())) {
+                        return Mono.just(existingUser);
+                    }
+                    return userRepository.updateProfile(userId, name, email, expectedVersion)
+                            .flatMap(updated -> {
+                                if (updated == 0) {
+                                    return Mono.error(expectedVersion != null
+                                            ? new PreconditionFailedException()
+                                            : new UserException(ErrorCode.USER_NOT_FOUND));
+                                }
+                                existingUser.setName(name);
+                                existingUser.setEmail(email);
+                                existingUser.setVersion(existingUser.getVersion() + 1);
+                                return Mono.just(existingUser);
+                            });
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Changes the password of a user. The comparison with the current password and the hashing of the new one
+     * run on the hashing pool.
+     *
+     * @param userId the ID of the user whose password is to be changed
+     * @param userPassword the user password data transfer object containing the new password
+     * @return Mono of a message indicating the result of the operation
+     */
+    public Mono<String> changePassword(Long userId, UserPasswordDto userPassword) {
+        return Mono.defer(() -> {
+                    requireValid(userDtoValidator.errors(userPassword));
+                    return userRepository.findPasswordById(userId);
+                })
+                .switchIfEmpty(Mono.error(() -> new UserException(ErrorCode.USER_NOT_FOUND)))
+                .flatMap(currentPassword -> {
+                    if (!userPassword.getPassword().equals(userPassword.getConfirmPassword())) {
+                        return Mono.error(new UserException(ErrorCode.PASSWORDS_DO_NOT_MATCH));
+                    }
+                    return hash(() -> {
+                        if (passwordEncoder.matches(userPassword.getPassword(), currentPassword)) {
+                            throw new UserException(ErrorCode.PASSWORD_NOT_CHANGED);
+                        }
+                        return passwordEncoder.encode(userPassword.getConfirmPassword());
+                    });
+                })
+                .flatMap(encodedPassword -> userRepository.updatePassword(userId, encodedPassword))
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new UserException(ErrorCode.USER_NOT_FOUND))
+                        : Mono.just("Your password was changed successfully"));
+    }
+
+    /**
+     * Marks a user as deleted in a single statement. The row itself is removed later by the
+     * {@code UserPurger} of the servlet application.
+     *
+     * @param userId the ID of the user to delete
+     * @return Mono of a message indicating the result of the deletion
+     */
+    public Mono<String> deleteUser(Long userId) {
+        log.info("Delete user by id: {}", userId);
+        return userRepository.markDeleted(userId)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new UserException(ErrorCode.USER_NOT_FOUND))
+                        : Mono.just("User with Id " + userId + " was deleted successfully"));
+    }
+
+    /**
+     * @return every user ordered by id, read from the database as the subscriber consumes them
+     */
+    public Flux<UserDto> exportUsers() {
+        return userRepository.streamAll();
+    }
+
+    /**
+     * Runs a hashing task on the hashing pool. The task completes, and the rest of the pipeline continues,
+     * on a hashing thread.
+     */
+    private Mono<String> hash(Supplier<String> task) {
+        return Mono.fromFuture(() -> hashingExecutor.supplyAsync(task));
+    }
+
+    private static CursorPage<UserDto> toCursorPage(UserCursor position, List<UserDto> users, int pageSize) {
+        boolean hasMore = users.size() > pageSize;
+        List<UserDto> page = new ArrayList<>(hasMore ? users.subList(0, pageSize) : users);
+        if (position.isBackward()) {
+            Collections.reverse(page);
+        }
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!page.isEmpty()) {
+            boolean hasNext = position.isBackward() || hasMore;
+            boolean hasPrevious = position.isBackward() ? hasMore : !position.isFirst();
+            if (hasNext) {
+                nextCursor = position.next(page.get(page.size() - 1)).encode();
+            }
+            if (hasPrevious) {
+                prevCursor = position.previous(page.get(0)).encode();
+            }
+        }
+        return CursorPage.<UserDto>builder()
+                .content(page)
+                .size(pageSize)
+                .nextCursor(nextCursor)
+                .prevCursor(prevCursor)
+                .build();
+    }
+
+    private static void requireValid(String errors) {
+        if (errors != null) {
+            throw new UserException(ErrorCode.VALIDATION_FAILED, errors);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.rakbank.users.reactive;
+
+import com.rakbank.users.config.HashingProperties;
+import com.rakbank.users.config.PaginationProperties;
+import com.rakbank.users.config.PasswordProperties;
+import com.rakbank.users.config.RegistrationProperties;
+import com.rakbank.users.exceptions.GlobalExceptionHandler;
+import com.rakbank.users.service.HashingExecutor;
+import com.rakbank.users.service.UserDtoValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+
+/**
+ * Non-blocking variant of the user API, served by WebFlux on Netty with R2DBC for database access.
+ * Only the classes of this package are scanned; the servlet application skips this configuration.
+ * <p>
+ * Tomcat stays on the classpath for the servlet application built from the same sources, and Spring Boot
+ * prefers it over Netty as reactive server; {@link #nettyReactiveWebServerFactory()} settles the choice.
+ */
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties({PasswordProperties.class, HashingProperties.class, RegistrationProperties.class,
+        PaginationProperties.class})
+@Import({GlobalExceptionHandler.class, UserDtoValidator.class})
+public class ReactiveUsersApplication {
+
+    public static final String PROFILE = "reactive";
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveUsersApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles(PROFILE)
+                .run(args);
+    }
+
+    /**
+     * Serves requests on Netty's event loops, a few threads for any number of connections, instead of
+     * Tomcat's thread per request.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Bounded pool BCrypt runs on, so hashing never occupies an event-loop thread.
+     */
+    @Bean
+    public HashingExecutor hashingExecutor(HashingProperties properties, MeterRegistry meterRegistry,
+                                           Environment environment) {
+        return new HashingExecutor(properties, meterRegistry, environment);
+    }
+}
@@ -0,0 +1,18 @@
+-- Schema of the user table as created by Hibernate for the servlet application, for databases the
+-- reactive variant starts on first.
+create sequence if not exists user_t_seq start with 1 increment by 50;
+
+create table if not exists user_t (
+    id bigint not null primary key,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    created_at timestamp(6),
+    version bigint,
+    deleted_at timestamp(6),
+    constraint uk_user_email unique (email)
+);
+
+alter table user_t add column if not exists deleted_at timestamp(6);
+
+create index if not exists idx_user_t_created_at_id on user_t (created_at, id);
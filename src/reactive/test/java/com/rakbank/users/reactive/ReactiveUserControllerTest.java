@@ -0,0 +1,261 @@
+package com.rakbank.users.reactive;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserPasswordDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the scenarios of UserControllerIT against the reactive variant, on an in-memory H2 database.
+ */
+@ActiveProfiles(ReactiveUsersApplication.PROFILE)
+@SpringBootTest(classes = ReactiveUsersApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "spring.r2dbc.url=r2dbc:h2:mem:///reactive-users;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "users.password.strength=4"
+        })
+class ReactiveUserControllerTest {
+
+    private static final String DEFAULT_NAME = "John Doe";
+    private static final String DEFAULT_PASSWORD = "JohnDoe897";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    private UserRegistrationDto user;
+
+    @BeforeEach
+    void initTest() {
+        user = new UserRegistrationDto(null, DEFAULT_NAME, uniqueEmail(), DEFAULT_PASSWORD);
+    }
+
+    @Test
+    void shouldServeOnNetty() {
+        assertThat(context.getWebServer()).isInstanceOf(NettyWebServer.class);
+    }
+
+    @Test
+    void shouldCreateUser() {
+        long databaseSizeBeforeCreate = userRepository.count().block();
+
+        webTestClient.post().uri("/api/user/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.name").isEqualTo(DEFAULT_NAME);
+
+        assertThat(userRepository.count().block()).isEqualTo(databaseSizeBeforeCreate + 1);
+        assertThat(userRepository.existsByEmail(user.getEmail()).block()).isTrue();
+    }
+
+    @Test
+    void shouldRejectDuplicateEmail() {
+        UserDto existing = save(user);
+
+        webTestClient.post().uri("/api/user/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRegistrationDto(null, "Jane Doe", existing.getEmail(), DEFAULT_PASSWORD))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("EMAIL_ALREADY_EXISTS")
+                .jsonPath("$.detail").isEqualTo("Email already exist");
+    }
+
+    @Test
+    void shouldRegisterBatch() {
+        UserRegistrationDto other = new UserRegistrationDto(null, DEFAULT_NAME, uniqueEmail(), DEFAULT_PASSWORD);
+
+        webTestClient.post().uri("/api/user/register/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(user, other, user))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("CREATED")
+                .jsonPath("$[1].status").isEqualTo("CREATED")
+                .jsonPath("$[2].status").isEqualTo("REJECTED");
+
+        assertThat(userRepository.existsByEmail(user.getEmail()).block()).isTrue();
+        assertThat(userRepository.existsByEmail(other.getEmail()).block()).isTrue();
+    }
+
+    @Test
+    void shouldGetAllUsers() {
+        save(user);
+
+        webTestClient.get().uri("/api/user?sort=id,desc")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.content[0].name").isEqualTo(DEFAULT_NAME)
+                .jsonPath("$.page.totalElements").exists();
+    }
+
+    @Test
+    void shouldGetUsersByCursor() {
+        save(user);
+        save(new UserRegistrationDto(null, DEFAULT_NAME, uniqueEmail(), DEFAULT_PASSWORD));
+
+        webTestClient.get().uri("/api/user?mode=cursor&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.nextCursor").isNotEmpty()
+                .jsonPath("$.prevCursor").doesNotExist();
+    }
+
+    @Test
+    void shouldGetUsersWithoutCount() {
+        save(user);
+        save(new UserRegistrationDto(null, DEFAULT_NAME, uniqueEmail(), DEFAULT_PASSWORD));
+
+        webTestClient.get().uri("/api/user?mode=slice&size=1&sort=id")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.page").isEqualTo(0)
+                .jsonPath("$.hasNext").isEqualTo(true)
+                .jsonPath("$.totalElements").doesNotExist();
+    }
+
+    @Test
+    void shouldGetUserById() {
+        UserDto saved = save(user);
+
+        webTestClient.get().uri("/api/user/" + saved.getId())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$.name").isEqualTo(DEFAULT_NAME);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForMatchingETag() {
+        UserDto saved = save(user);
+
+        String etag = webTestClient.get().uri("/api/user/" + saved.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+        webTestClient.get().uri("/api/user/" + saved.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void shouldRejectUpdateWithStaleETag() {
+        UserDto saved = save(user);
+
+        webTestClient.put().uri("/api/user/" + saved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"41\"")
+                .bodyValue("{\"name\":\"Jane Doe\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void shouldUpdateUser() {
+        UserDto saved = save(user);
+        String email = uniqueEmail();
+
+        webTestClient.put().uri("/api/user/" + saved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Jane Doe\",\"email\":\"" + email + "\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody().jsonPath("$.email").isEqualTo(email);
+    }
+
+    @Test
+    void shouldChangePassword() {
+        UserDto saved = save(user);
+        String password = "johnDoe2024";
+
+        webTestClient.patch().uri("/api/user/" + saved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(UserPasswordDto.builder().password(password).confirmPassword(password).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Your password was changed successfully");
+    }
+
+    @Test
+    void shouldDeleteUser() {
+        UserDto saved = save(user);
+        long databaseSizeBeforeDelete = userRepository.count().block();
+
+        webTestClient.delete().uri("/api/user/" + saved.getId())
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(userRepository.count().block()).isEqualTo(databaseSizeBeforeDelete - 1);
+        webTestClient.get().uri("/api/user/" + saved.getId())
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.code").isEqualTo("USER_NOT_FOUND");
+    }
+
+    @Test
+    void shouldExportUsersAsNdjson() {
+        UserDto saved = save(user);
+
+        List<UserDto> exported = webTestClient.get().uri("/api/user/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith("application/x-ndjson")
+                .returnResult(UserDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(exported).extracting(UserDto::getId).contains(saved.getId());
+    }
+
+    private UserDto save(UserRegistrationDto registration) {
+        return userRepository.insert(registration.getName(), registration.getEmail(), "{noop}" + registration.getPassword())
+                .block();
+    }
+
+    private static String uniqueEmail() {
+        return "johndoe" + UUID.randomUUID() + "@localhost.com";
+    }
+}
@@ -4,9 +4,39 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rakbank.users.config.AuditProperties;
+import com.rakbank.users.config.ChangeFeedProperties;
+import com.rakbank.users.config.EmailFilterProperties;
+import com.rakbank.users.config.HashingProperties;
+import com.rakbank.users.config.PaginationProperties;
+import com.rakbank.users.config.RegistrationProperties;
+import com.rakbank.users.config.ReplicaProperties;
+import com.rakbank.users.config.SearchProperties;
+import com.rakbank.users.config.ShardingProperties;
+import com.rakbank.users.repository.UserDirectoryRepository;
+import com.rakbank.users.repository.UserRepository;
+import com.rakbank.users.service.AuditJournal;
+import com.rakbank.users.service.EmailBloomFilter;
+import com.rakbank.users.service.HashingExecutor;
+import com.rakbank.users.service.ReplicaRouting;
+import com.rakbank.users.service.UserChangeFeed;
+import com.rakbank.users.service.UserDirectory;
+import com.rakbank.users.service.UserDtoValidator;
+import com.rakbank.users.service.UserSearchIndex;
+import com.rakbank.users.service.UserService;
+import com.rakbank.users.service.UserShardQueries;
+import com.rakbank.users.service.UserShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.IOException;
 
+import static org.mockito.Mockito.mock;
+
 public final class TestUtil {
 
     public static final ObjectMapper mapper = createObjectMapper();
@@ -30,5 +60,47 @@ public final class TestUtil {
         return mapper.writeValueAsBytes(object);
     }
 
+    /**
+     * Shards of an unsharded database, for tests building services by hand: all the work runs directly,
+     * without a transaction manager or an email directory.
+     *
+     * @return the single shard 0
+     */
+    public static UserShards unshardedUserShards() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        return new UserShards(new ShardingProperties(), beans.getBeanProvider(PlatformTransactionManager.class),
+                beans.getBeanProvider(UserDirectoryRepository.class));
+    }
+
+    /**
+     * User service over a mocked repository, for unit tests: the database is a single unsharded one, the
+     * audit journal is disabled and the other collaborators are built from their default properties.
+     *
+     * @param userRepository the repository, usually a mock
+     * @param validator the bean validator behind the {@link UserDtoValidator}
+     * @param passwordEncoder the encoder of the passwords
+     * @return the user service
+     */
+    public static UserService userService(UserRepository userRepository, Validator validator,
+                                          PasswordEncoder passwordEncoder) {
+        UserShards userShards = unshardedUserShards();
+        AuditProperties auditProperties = new AuditProperties();
+        auditProperties.setEnabled(false);
+        return new UserService(userRepository, new UserDtoValidator(validator),
+                new HashingExecutor(new HashingProperties(), new SimpleMeterRegistry()), passwordEncoder,
+                new RegistrationProperties(), new PaginationProperties(),
+                new EmailBloomFilter(new EmailFilterProperties(), userRepository, userShards,
+                        mock(PlatformTransactionManager.class), new SimpleMeterRegistry()),
+                new UserSearchIndex(new SearchProperties(), userRepository, userShards,
+                        mock(PlatformTransactionManager.class), new SimpleMeterRegistry()),
+                new AuditJournal(auditProperties, new SimpleMeterRegistry()),
+                new UserChangeFeed(new ChangeFeedProperties(), new ObjectMapper().findAndRegisterModules(),
+                        new SimpleMeterRegistry()),
+                new ReplicaRouting(new ReplicaProperties()), userShards,
+                new UserDirectory(userShards, userRepository, mock(UserDirectoryRepository.class),
+                        mock(PlatformTransactionManager.class)),
+                new UserShardQueries(userShards, userRepository), new NoOpCacheManager());
+    }
+
     private TestUtil() {}
 }
\ No newline at end of file
@@ -11,7 +11,9 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -19,6 +21,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.shaded.org.apache.commons.lang3.RandomStringUtils;
 import org.testcontainers.utility.DockerImageName;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -29,6 +32,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @AutoConfigureMockMvc
 @Testcontainers
+@ActiveProfiles("test")
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class UserControllerIT {
 
@@ -52,6 +56,12 @@ class UserControllerIT {
 
     private User user;
 
+    /**
+     * Emails of the users committed by tests that cannot run in a test transaction, as their request is
+     * completed on another thread with its own connection.
+     */
+    private final List<String> committedEmails = new ArrayList<>();
+
     @BeforeAll
     public static void setUpContainer() {
         postgreSQLContainer.start();
@@ -62,6 +72,13 @@ class UserControllerIT {
         user = createEntity(em);
     }
 
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAll(userRepository.findAll().stream()
+                .filter(saved -> committedEmails.contains(saved.getEmail()))
+                .toList());
+    }
+
 //    @AfterAll
 //    public static void tearDownContainer() {
 //        postgreSQLContainer.stop();
@@ -83,15 +100,18 @@ class UserControllerIT {
     }
 
     @Test
-    @Transactional
     void shouldCreateUser() throws Exception {
+        committedEmails.add(user.getEmail());
         int databaseSizeBeforeCreate = userRepository.findAll().size();
 
-        restUserMockMvc.perform(post("/api/user/register")
+        MvcResult result = restUserMockMvc.perform(post("/api/user/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(TestUtil.convertObjectToJsonBytes(user))
                         .accept(MediaType.APPLICATION_JSON)
                 )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        restUserMockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated());
 
         // Validate the User in the database
@@ -102,6 +122,27 @@ class UserControllerIT {
         });
     }
 
+    @Test
+    void shouldRegisterBatch() throws Exception {
+        User other = createEntity(em);
+        committedEmails.addAll(List.of(user.getEmail(), other.getEmail()));
+        MvcResult result = restUserMockMvc.perform(post("/api/user/register/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(List.of(user, other, user)))
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        restUserMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"))
+                .andExpect(jsonPath("$[2].status").value("REJECTED"));
+
+        assertThat(userRepository.existsByEmail(user.getEmail())).isTrue();
+        assertThat(userRepository.existsByEmail(other.getEmail())).isTrue();
+    }
+
     @Test
     @Transactional
     void shouldGetAllUsers() throws Exception {
@@ -114,6 +155,21 @@ class UserControllerIT {
                 .andExpect(jsonPath("$.content[0].name").value(DEFAULT_NAME));
     }
 
+    @Test
+    @Transactional
+    void shouldGetUsersWithoutCount() throws Exception {
+        userRepository.saveAndFlush(user);
+
+        restUserMockMvc.perform(get("/api/user?mode=slice&size=1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value(DEFAULT_NAME))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.hasNext").isBoolean())
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
     @Test
     @Transactional
     void shouldgetUserById() throws Exception {
@@ -126,6 +182,43 @@ class UserControllerIT {
                 .andExpect(jsonPath("$.name").value(DEFAULT_NAME));
     }
 
+    @Test
+    void shouldAnswerProblemForUnknownUser() throws Exception {
+        restUserMockMvc.perform(get("/api/user/"+Long.MAX_VALUE)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.code").value("USER_NOT_FOUND"))
+                .andExpect(jsonPath("$.detail").value("User not found"));
+    }
+
+    @Test
+    @Transactional
+    void shouldAnswerNotModifiedForMatchingETag() throws Exception {
+        userRepository.saveAndFlush(user);
+
+        MvcResult result = restUserMockMvc.perform(get("/api/user/"+user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        restUserMockMvc.perform(get("/api/user/"+user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @Transactional
+    void shouldRejectUpdateWithStaleETag() throws Exception {
+        userRepository.saveAndFlush(user);
+
+        restUserMockMvc.perform(put("/api/user/"+user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"41\"")
+                        .content("{\"name\":\"Jane Doe\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @Transactional
     void shouldUpdateUser() throws Exception {
@@ -145,20 +238,23 @@ class UserControllerIT {
     }
 
     @Test
-    @Transactional
     void shouldChangePassword() throws Exception {
         String password = "johnDoe2024";
         UserPasswordDto userPasswordDto = UserPasswordDto.builder()
                 .password(password)
                 .confirmPassword(password)
                 .build();
+        committedEmails.add(user.getEmail());
         userRepository.saveAndFlush(user);
 
-        restUserMockMvc.perform(patch("/api/user/"+user.getId())
+        MvcResult result = restUserMockMvc.perform(patch("/api/user/"+user.getId())
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
                         .content(TestUtil.convertObjectToJsonBytes(userPasswordDto))
                 )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        restUserMockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
     }
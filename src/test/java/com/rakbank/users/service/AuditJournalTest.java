@@ -0,0 +1,151 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.AuditProperties;
+import com.rakbank.users.service.AuditRecord.Type;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditJournalTest {
+
+    /**
+     * Size of a record of {@link #record(AuditJournal, int)}: header, fixed fields and two 10 byte strings.
+     */
+    private static final int RECORD_BYTES = 8 + 33 + 10 + 10;
+
+    @TempDir
+    Path directory;
+
+    AuditProperties properties;
+
+    AuditJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuditProperties();
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofKilobytes(4));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void shouldReplayRecordsFromAnOffset() {
+        journal = open();
+        for (int i = 1; i <= 5; i++) {
+            record(journal, i);
+        }
+        journal.record(Type.DELETED, 6, null, null);
+        journal.close();
+
+        List<AuditRecord> records = replay(3);
+
+        assertThat(records).extracting(AuditRecord::sequence).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(records.get(0)).extracting(AuditRecord::type, AuditRecord::userId, AuditRecord::name,
+                AuditRecord::email).containsExactly(Type.CREATED, 3L, "name000003", "mail000003");
+        assertThat(records.get(3)).extracting(AuditRecord::type, AuditRecord::name, AuditRecord::email)
+                .containsExactly(Type.DELETED, null, null);
+        assertThat(AuditJournal.replay(directory, 7, record -> { })).isEqualTo(7);
+    }
+
+    @Test
+    void shouldRollSegmentsAndDeleteThemPastTheirRetention() throws IOException {
+        journal = open();
+        for (int i = 1; i <= 200; i++) {
+            record(journal, i);
+        }
+        journal.close();
+
+        assertThat(segments()).hasSizeGreaterThan(2);
+        assertThat(replay(1)).extracting(AuditRecord::sequence).hasSize(200).startsWith(1L).endsWith(200L);
+        assertThat(replay(150)).extracting(AuditRecord::sequence).hasSize(51).startsWith(150L);
+
+        properties.setRetention(Duration.ZERO);
+        journal = open();
+        journal.close();
+
+        assertThat(segments()).hasSize(1);
+        assertThat(replay(1)).extracting(AuditRecord::sequence).endsWith(200L).doesNotContain(1L);
+    }
+
+    @Test
+    void shouldRecoverFromARecordTornByACrash() throws IOException {
+        journal = open();
+        for (int i = 1; i <= 5; i++) {
+            record(journal, i);
+        }
+        journal.close();
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.truncate(4 * RECORD_BYTES + RECORD_BYTES / 2);
+        }
+
+        journal = open();
+        record(journal, 6);
+        journal.close();
+
+        assertThat(replay(1)).extracting(record -> record.sequence() + ":" + record.userId())
+                .containsExactly("1:1", "2:2", "3:3", "4:4", "5:6");
+    }
+
+    @Test
+    void shouldDiscardEverythingAfterARecordFailingItsCrc() throws IOException {
+        journal = open();
+        for (int i = 1; i <= 5; i++) {
+            record(journal, i);
+        }
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(2 * RECORD_BYTES + RECORD_BYTES - 3);
+            file.write('X');
+        }
+
+        assertThat(replay(1)).extracting(AuditRecord::sequence).containsExactly(1L, 2L);
+
+        journal = open();
+        record(journal, 7);
+        journal.close();
+
+        assertThat(replay(1)).extracting(AuditRecord::userId).containsExactly(1L, 2L, 7L);
+    }
+
+    private AuditJournal open() {
+        return new AuditJournal(properties, new SimpleMeterRegistry());
+    }
+
+    private static void record(AuditJournal journal, int userId) {
+        journal.record(Type.CREATED, userId, String.format("name%06d", userId), String.format("mail%06d", userId));
+    }
+
+    private List<AuditRecord> replay(long fromSequence) {
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournal.replay(directory, fromSequence, records::add);
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
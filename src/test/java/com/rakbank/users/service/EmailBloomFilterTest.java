@@ -0,0 +1,109 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.TestUtil;
+import com.rakbank.users.config.EmailFilterProperties;
+import com.rakbank.users.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailBloomFilterTest {
+
+    private static final int EMAILS = 10_000;
+
+    UserRepository userRepository;
+
+    EmailFilterProperties properties;
+
+    EmailBloomFilter emailFilter;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        properties = new EmailFilterProperties();
+        properties.setExpectedInsertions(EMAILS);
+        properties.setFalsePositiveRate(0.01);
+        emailFilter = new EmailBloomFilter(properties, userRepository,
+                TestUtil.unshardedUserShards(), mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldReportEveryEmailAsPossiblyPresentUntilBuilt() {
+        assertThat(emailFilter.isReady()).isFalse();
+        assertThat(emailFilter.mightContain("unknown@email.com")).isTrue();
+    }
+
+    @Test
+    void shouldHaveNoFalseNegativesAndKeepFalsePositivesNearTarget() {
+        when(userRepository.streamAllEmails())
+                .thenReturn(IntStream.range(0, EMAILS).mapToObj(i -> "user" + i + "@email.com"));
+        build();
+        emailFilter.add("added@email.com");
+
+        assertThat(IntStream.range(0, EMAILS).mapToObj(i -> "user" + i + "@email.com"))
+                .allMatch(emailFilter::mightContain);
+        assertThat(emailFilter.mightContain("added@email.com")).isTrue();
+        long falsePositives = IntStream.range(0, EMAILS)
+                .mapToObj(i -> "other" + i + "@email.com")
+                .filter(emailFilter::mightContain)
+                .count();
+        assertThat((double) falsePositives / EMAILS).isLessThan(0.02);
+    }
+
+    @Test
+    void shouldForgetRemovedEmailsOnRebuild() {
+        properties.setStaleRatio(0);
+        when(userRepository.streamAllEmails())
+                .thenReturn(Stream.of("john@email.com"))
+                .thenReturn(Stream.empty());
+        build();
+        assertThat(emailFilter.mightContain("john@email.com")).isTrue();
+
+        emailFilter.recordRemoval();
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> !emailFilter.mightContain("john@email.com"));
+    }
+
+    @Test
+    void shouldKeepEveryEmailAddedWhileRebuilding() throws Exception {
+        Set<String> registered = ConcurrentHashMap.newKeySet();
+        when(userRepository.streamAllEmails()).thenAnswer(invocation -> List.copyOf(registered).stream());
+        build();
+        Thread registrations = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                String email = "user" + i + "@email.com";
+                registered.add(email);
+                emailFilter.add(email);
+            }
+        });
+
+        registrations.start();
+        while (registrations.isAlive()) {
+            emailFilter.scheduleRebuild();
+            Thread.onSpinWait();
+        }
+        registrations.join();
+
+        assertThat(registered).hasSize(20_000).allMatch(emailFilter::mightContain);
+    }
+
+    private void build() {
+        emailFilter.scheduleRebuild();
+        await().atMost(Duration.ofSeconds(5)).until(emailFilter::isReady);
+    }
+}
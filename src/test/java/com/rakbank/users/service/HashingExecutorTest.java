@@ -0,0 +1,109 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.HashingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashingExecutorTest {
+
+    HashingExecutor hashingExecutor;
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.destroy();
+    }
+
+    @Test
+    void shouldRunOtherTasksBetweenTheChunksOfABatch() throws Exception {
+        hashingExecutor = hashingExecutor(1, 100, 0.5);
+        CountDownLatch singleDone = new CountDownLatch(1);
+        List<Integer> items = IntStream.range(0, 40).boxed().toList();
+
+        CompletableFuture<List<Integer>> batch = hashingExecutor.mapAsync(items, item -> {
+            sleep(10);
+            return item * 2;
+        });
+        hashingExecutor.supplyAsync(() -> {
+            singleDone.countDown();
+            return null;
+        });
+
+        assertThat(singleDone.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(batch.isDone()).isFalse();
+        assertThat(batch.get(10, TimeUnit.SECONDS)).containsExactlyElementsOf(items.stream().map(i -> i * 2).toList());
+    }
+
+    @Test
+    void shouldCancelTheQueuedChunksOfARejectedBatch() throws Exception {
+        hashingExecutor = hashingExecutor(2, 1, 1.0);
+        CountDownLatch releaseOther = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger hashed = new AtomicInteger();
+        hashingExecutor.supplyAsync(() -> {
+            await(releaseOther);
+            return null;
+        });
+        try {
+            // the first chunk runs on the free thread and the second one fills the queue, so the third is rejected
+            CompletableFuture<List<Integer>> batch = hashingExecutor.mapAsync(IntStream.range(0, 12).boxed().toList(),
+                    item -> {
+                        await(release);
+                        hashed.incrementAndGet();
+                        return item;
+                    });
+
+            release.countDown();
+
+            assertThatThrownBy(() -> batch.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(RejectedExecutionException.class);
+        } finally {
+            releaseOther.countDown();
+        }
+        // the cancelled chunk keeps its place in the queue until a thread drops it
+        Awaitility.await().atMost(Duration.ofSeconds(10)).ignoreException(RejectedExecutionException.class)
+                .until(() -> hashingExecutor.supplyAsync(() -> true).get(10, TimeUnit.SECONDS));
+        Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> hashed.get() >= 4);
+        assertThat(hashed.get()).isEqualTo(4);
+    }
+
+    private static HashingExecutor hashingExecutor(int poolSize, int queueCapacity, double batchShare) {
+        HashingProperties properties = new HashingProperties();
+        properties.setPoolSize(poolSize);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setBatchChunkSize(4);
+        properties.setBatchShare(batchShare);
+        return new HashingExecutor(properties, new SimpleMeterRegistry());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
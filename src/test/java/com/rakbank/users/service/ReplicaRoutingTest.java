@@ -0,0 +1,117 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.exceptions.UserException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs against two embedded databases with the same schema, the replica holding rows the primary does not,
+ * so where each read was served from shows in its result.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "users.replica.enabled=true",
+        "users.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "users.replica.read-your-writes=1h"
+})
+class ReplicaRoutingTest {
+
+    private static final long REPLICA_ONLY_ID = 1_000_000;
+
+    private static final long PRIMARY_ONLY_ID = 1_000_001;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    EmailBloomFilter emailFilter;
+
+    @Autowired
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    HikariDataSource replicaDataSource;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    JdbcTemplate primary;
+
+    JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        await().atMost(Duration.ofSeconds(10)).until(emailFilter::isReady);
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        if (replica.queryForObject("select count(*) from information_schema.tables where table_name = 'USER_T'",
+                Integer.class) == 0) {
+            primary.queryForList("script nodata", String.class).forEach(replica::execute);
+        }
+        replica.update("merge into user_t (id, name, email, password, version) key (id) values (?, ?, ?, ?, 0)",
+                REPLICA_ONLY_ID, "Replica Only", "replica.only@email.com", "hash");
+    }
+
+    @Test
+    void shouldReadFromTheReplicaAndWriteToThePrimary() {
+        UserDto created = createUser();
+
+        assertThat(userService.getUsers(PageRequest.of(0, 100, Sort.by("id"))).getContent())
+                .extracting(UserDto::getId).contains(REPLICA_ONLY_ID).doesNotContain(created.getId());
+        assertThat(primary.queryForObject("select count(*) from user_t where id = ?", Integer.class, created.getId()))
+                .isEqualTo(1);
+        assertThat(connections("replica", "read")).isPositive();
+        assertThat(connections("primary", "write")).isPositive();
+    }
+
+    @Test
+    void shouldReadAUserChangedWithinTheWindowFromThePrimary() {
+        UserDto created = createUser();
+        primary.update("insert into user_t (id, name, email, password, version) values (?, ?, ?, ?, 0)",
+                PRIMARY_ONLY_ID, "Primary Only", "primary.only@email.com", "hash");
+
+        assertThat(userService.getUserById(created.getId()).getEmail()).isEqualTo(created.getEmail());
+        assertThat(connections("primary", "read_your_writes")).isPositive();
+        assertThatThrownBy(() -> userService.getUserById(PRIMARY_ONLY_ID)).isInstanceOf(UserException.class);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldReadFromThePrimaryWhenTheReplicaIsDown() {
+        replicaDataSource.close();
+
+        assertThat(userService.getUsers(PageRequest.of(0, 100)).getContent())
+                .extracting(UserDto::getId).doesNotContain(REPLICA_ONLY_ID);
+        assertThat(connections("primary", "replica_down")).isPositive();
+        assertThat(meterRegistry.get("users.datasource.replica.available").gauge().value()).isZero();
+    }
+
+    private UserDto createUser() {
+        return userService.createUser(new UserRegistrationDto(null, "John", UUID.randomUUID() + "@email.com",
+                "Password456"));
+    }
+
+    private double connections(String pool, String reason) {
+        return meterRegistry.get("users.datasource.connections").tag("pool", pool).tag("reason", reason)
+                .counter().count();
+    }
+}
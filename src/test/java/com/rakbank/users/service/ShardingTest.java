@@ -0,0 +1,184 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.CursorPage;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import com.rakbank.users.exceptions.UserException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs against three embedded databases, checking where each user lands by querying the shards directly.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1",
+        "users.sharding.enabled=true",
+        "users.sharding.shards[0].url=jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1",
+        "users.sharding.shards[1].url=jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1",
+        "users.sharding.location-cache-ttl=100ms"
+})
+class ShardingTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    ShardRebalancer shardRebalancer;
+
+    @Autowired
+    EmailBloomFilter emailFilter;
+
+    List<JdbcTemplate> shards;
+
+    @BeforeEach
+    void setUp() {
+        await().atMost(Duration.ofSeconds(10)).until(emailFilter::isReady);
+        shards = IntStream.range(0, 3)
+                .mapToObj(shard -> new JdbcTemplate(
+                        new DriverManagerDataSource("jdbc:h2:mem:shard-" + shard, "sa", "")))
+                .toList();
+    }
+
+    @Test
+    void shouldSpreadNewUsersOverTheShardsWithIdsEncodingTheirShard() {
+        List<UserDto> created = IntStream.range(0, 3).mapToObj(i -> createUser()).toList();
+
+        assertThat(created).extracting(user -> user.getId() >>> UserShards.SHARD_SHIFT)
+                .containsExactlyInAnyOrder(0L, 1L, 2L);
+        for (UserDto user : created) {
+            int shard = (int) (user.getId() >>> UserShards.SHARD_SHIFT);
+            assertThat(countOn(shard, user.getId())).isEqualTo(1);
+            assertThat(userService.getUserById(user.getId()).getEmail()).isEqualTo(user.getEmail());
+        }
+    }
+
+    @Test
+    void shouldKeepEmailsUniqueAcrossShards() {
+        UserDto created = createUser();
+        String email = created.getEmail();
+
+        assertThatThrownBy(() -> createUser(email)).isInstanceOf(UserException.class);
+        assertThatThrownBy(() -> createUser(email)).isInstanceOf(UserException.class);
+        List<BatchRegistrationResult> results = userService.registerBatch(List.of(
+                new UserRegistrationDto(null, "John", email, "Password456"))).join();
+        assertThat(results.get(0).getStatus()).isEqualTo(BatchRegistrationResult.Status.REJECTED);
+        assertThat(userService.isEmailAvailable(email)).isFalse();
+
+        userService.deleteUser(created.getId());
+        assertThat(userService.isEmailAvailable(email)).isTrue();
+        assertThat(createUser(email).getEmail()).isEqualTo(email);
+    }
+
+    @Test
+    void shouldMergePagesAndCursorPagesOfEveryShard() {
+        IntStream.range(0, 7).forEach(i -> createUser());
+        List<Long> ids = new ArrayList<>();
+        shards.forEach(shard -> ids.addAll(shard.queryForList("select id from user_t where deleted_at is null", Long.class)));
+        ids.sort(Comparator.naturalOrder());
+
+        assertThat(userService.getUsers(PageRequest.of(0, 1000, Sort.by("id"))).getContent())
+                .extracting(UserDto::getId).containsExactlyElementsOf(ids);
+        List<UserDto> byName = userService.getUsers(PageRequest.of(0, 1000, Sort.by("name", "id"))).getContent();
+        List<UserDto> pages = new ArrayList<>();
+        for (int page = 0; page * 3 < ids.size(); page++) {
+            pages.addAll(userService.getUsers(PageRequest.of(page, 3, Sort.by("name", "id"))).getContent());
+        }
+        assertThat(pages).isEqualTo(byName);
+        assertThat(userService.getUsers(PageRequest.of(1, 3)).getTotalElements()).isEqualTo(ids.size());
+        List<UserDto> slices = new ArrayList<>();
+        Slice<UserDto> slice = userService.getUserSlice(PageRequest.of(0, 3, Sort.by("name", "id")));
+        slices.addAll(slice.getContent());
+        while (slice.hasNext()) {
+            slice = userService.getUserSlice(slice.nextPageable());
+            slices.addAll(slice.getContent());
+        }
+        assertThat(slices).isEqualTo(byName);
+
+        List<Long> walked = new ArrayList<>();
+        CursorPage<UserDto> page = userService.getUsersByCursor(null, Sort.by("id"), 2);
+        walked.addAll(page.getContent().stream().map(UserDto::getId).toList());
+        while (page.getNextCursor() != null) {
+            page = userService.getUsersByCursor(page.getNextCursor(), null, 2);
+            walked.addAll(page.getContent().stream().map(UserDto::getId).toList());
+        }
+        assertThat(walked).isEqualTo(ids);
+    }
+
+    @Test
+    void shouldMoveUsersBetweenShards() {
+        UserDto user = createUser();
+        int home = (int) (user.getId() >>> UserShards.SHARD_SHIFT);
+        int target = (home + 1) % 3;
+
+        shardRebalancer.move(user.getId(), target);
+
+        assertThat(countOn(home, user.getId())).isZero();
+        assertThat(countOn(target, user.getId())).isEqualTo(1);
+        userService.updateUser(user.getId(), new UserUpdateDto("Moved", null), null);
+        assertThat(userService.getUserById(user.getId()).getName()).isEqualTo("Moved");
+
+        IntStream.range(0, 3).forEach(i -> shardRebalancer.move(createUser().getId(), target));
+        shardRebalancer.rebalance();
+        LongSummaryStatistics counts = shardRebalancer.userCounts().values().stream()
+                .mapToLong(Long::longValue).summaryStatistics();
+        assertThat(counts.getMax() - counts.getMin()).isLessThanOrEqualTo(1);
+        assertThat(userService.getUserById(user.getId()).getName()).isEqualTo("Moved");
+    }
+
+    @Test
+    void shouldFollowUsersMovedByAnotherInstance() {
+        UserDto user = createUser();
+        int home = (int) (user.getId() >>> UserShards.SHARD_SHIFT);
+        int target = (home + 1) % 3;
+
+        // moves the user the way another instance would, without this one knowing
+        Map<String, Object> row = shards.get(home).queryForMap("select * from user_t where id = ?", user.getId());
+        shards.get(target).update("insert into user_t (" + String.join(", ", row.keySet()) + ") values ("
+                + String.join(", ", Collections.nCopies(row.size(), "?")) + ")", row.values().toArray());
+        shards.get(0).update("update user_directory_t set shard = ? where user_id = ?", target, user.getId());
+        shards.get(home).update("delete from user_t where id = ?", user.getId());
+
+        await().atMost(Duration.ofSeconds(5)).ignoreException(UserException.class).untilAsserted(() ->
+                userService.updateUser(user.getId(), new UserUpdateDto("Moved elsewhere", null), null));
+        assertThat(shards.get(target).queryForObject("select name from user_t where id = ?", String.class,
+                user.getId())).isEqualTo("Moved elsewhere");
+    }
+
+    private UserDto createUser() {
+        return createUser(UUID.randomUUID() + "@email.com");
+    }
+
+    private UserDto createUser(String email) {
+        return userService.createUser(new UserRegistrationDto(null, "John " + UUID.randomUUID(), email,
+                "Password456"));
+    }
+
+    private int countOn(int shard, long userId) {
+        return shards.get(shard).queryForObject("select count(*) from user_t where id = ?", Integer.class, userId);
+    }
+}
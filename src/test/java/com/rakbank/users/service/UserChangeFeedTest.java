@@ -0,0 +1,217 @@
+package com.rakbank.users.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"users.changes.buffer-size=4", "users.changes.dispatch-threads=1",
+                "users.changes.write-timeout=200ms"})
+class UserChangeFeedTest {
+
+    private static final String END_OF_STREAM = "<end of stream>";
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    UserChangeFeed changeFeed;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shouldStreamCommittedChangesInOrder() throws Exception {
+        BlockingQueue<String> lines = subscribe(null);
+        Long userId = createUser();
+        userService.updateUser(userId, new UserUpdateDto("Jane", null), null);
+        userService.deleteUser(userId);
+
+        List<Event> events = List.of(next(lines), next(lines), next(lines));
+
+        assertThat(events).extracting(event -> event.data.get("type").asText())
+                .containsExactly("CREATED", "UPDATED", "DELETED");
+        assertThat(events).extracting(event -> event.data.get("userId").asLong()).containsOnly(userId);
+        assertThat(events.get(1).data.get("name").asText()).isEqualTo("Jane");
+        assertThat(events.get(1).id + 1).isEqualTo(events.get(2).id);
+        assertThat(events.get(1).data.get("sequence").asLong()).isEqualTo(events.get(1).id);
+    }
+
+    @Test
+    void shouldResumeAfterTheLastEventId() throws Exception {
+        BlockingQueue<String> lines = subscribe(null);
+        createUser();
+        Long secondUserId = createUser();
+        Event first = next(lines);
+
+        Event resumed = next(subscribe(String.valueOf(first.id)));
+
+        assertThat(resumed.id).isEqualTo(first.id + 1);
+        assertThat(resumed.data.get("userId").asLong()).isEqualTo(secondUserId);
+    }
+
+    @Test
+    void shouldResetASubscriberResumingFromEvictedEvents() throws Exception {
+        BlockingQueue<String> lines = subscribe(null);
+        createUser();
+        Event evicted = next(lines);
+        for (int i = 0; i < 8; i++) {
+            createUser();
+        }
+
+        BlockingQueue<String> resumed = subscribe(String.valueOf(evicted.id));
+
+        assertThat(nextNonComment(resumed)).isEqualTo("event:" + UserChangeFeed.RESET_EVENT);
+        assertThat(Long.parseLong(nextNonComment(resumed).substring("data:".length()))).isGreaterThan(evicted.id);
+        while (!poll(resumed).equals(END_OF_STREAM)) {
+            // the stream is closed after the reset event
+        }
+    }
+
+    @Test
+    void shouldKeepStreamingToOtherSubscribersWhileAClientStoppedReading() throws Exception {
+        double stalledBefore = meterRegistry.get("users.changes.stalled").counter().count();
+        StalledEmitter stalled = new StalledEmitter();
+        changeFeed.subscribe(null, stalled);
+        try {
+            createUser();
+            assertThat(stalled.blocked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            BlockingQueue<String> lines = subscribe(null);
+            Long userId = createUser();
+
+            assertThat(next(lines).data.get("userId").asLong()).isEqualTo(userId);
+            assertThat(meterRegistry.get("users.changes.stalled").counter().count() - stalledBefore).isEqualTo(1);
+        } finally {
+            stalled.release.countDown();
+        }
+        assertThat(stalled.completed.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private Long createUser() {
+        return userService.createUser(new UserRegistrationDto(null, "John",
+                UUID.randomUUID() + "@email.com", "Password456")).getId();
+    }
+
+    /**
+     * Opens the change stream and returns its lines as they arrive, followed by END_OF_STREAM once it closes.
+     * Returns once the stream is open, so that the changes made afterwards are received.
+     */
+    private BlockingQueue<String> subscribe(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/user/changes"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = client.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try {
+                response.body().forEach(lines::add);
+            } finally {
+                lines.add(END_OF_STREAM);
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    private Event next(BlockingQueue<String> lines) throws Exception {
+        List<String> fields = new ArrayList<>();
+        for (String line = nextNonComment(lines); !line.isEmpty(); line = poll(lines)) {
+            fields.add(line);
+        }
+        String id = fields.stream().filter(field -> field.startsWith("id:")).findFirst().orElseThrow();
+        String data = fields.stream().filter(field -> field.startsWith("data:")).findFirst().orElseThrow();
+        return new Event(Long.parseLong(id.substring("id:".length())),
+                objectMapper.readTree(data.substring("data:".length())));
+    }
+
+    private static String nextNonComment(BlockingQueue<String> lines) {
+        String line;
+        do {
+            line = poll(lines);
+        } while (line.isEmpty() || line.startsWith(":"));
+        return line;
+    }
+
+    private static String poll(BlockingQueue<String> lines) {
+        try {
+            String line = lines.poll(10, TimeUnit.SECONDS);
+            assertThat(line).as("next line of the change stream").isNotNull();
+            return line;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Event(long id, JsonNode data) {
+    }
+
+    /**
+     * Emitter of a client that stops reading after it subscribed: its writes block until released.
+     */
+    private static class StalledEmitter extends SseEmitter {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        boolean subscribed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (subscribed) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            subscribed = true;
+            super.send(builder);
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+            super.complete();
+        }
+    }
+}
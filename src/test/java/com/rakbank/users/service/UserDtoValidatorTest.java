@@ -0,0 +1,204 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserPasswordDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Differential test of UserDtoValidator against the Jakarta constraints of the DTOs: both must report the same
+ * messages for hand-picked edge cases and for seeded random input.
+ */
+class UserDtoValidatorTest {
+
+    private static final int RANDOM_INPUTS = 20_000;
+    private static final String ASCII = "abcXYZ019 .-_+@\"[]:!#$%&'*/=?^`{|}~\\(),;<>\t\n";
+    private static final String NON_ASCII = "é 。ü ";
+
+    private static final List<String> EMAILS = List.of(
+            "", " ", "john.doe@email.com", "JOHN.DOE@EMAIL.COM", "a+tag@x.io", "a@b", "a@localhost", "a@1.2.3.4",
+            "a@b.", "a@.b", ".a@b", "a.@b", "a..b@c", "@b", "a@", "a@@b", "a@b@c", "a@-b", "a@b-", "a@b--c",
+            "a@b..c", "a@b_c", "a@b c", "a b@c", "a\\b@c", "a\n@b", "a@b\n", "a(b)@c", "!#$%&'*+/=?^_`{|}~-@b",
+            "a@!#$%&'*+/=?^_`{|}~", "\"a b\"@c", "\"a\"@b", "\"\"@b", "a.\"b\"@c", "\"a\\\"b\"@c", "a@[1.2.3.4]",
+            "a@[1.2.3]", "a@[IPv6:::1]", "a@[IPv6:zz]", "é@b.com", "a@bü.com", "a@xn--b.com", "a@b。com",
+            "a@b.com。", " @b", "x".repeat(64) + "@b", "x".repeat(65) + "@b",
+            "a@" + "b".repeat(63) + ".com", "a@" + "b".repeat(64) + ".com",
+            "a@" + ("b".repeat(63) + ".").repeat(3) + "b".repeat(63), "a@" + ("b".repeat(63) + ".").repeat(4));
+    private static final List<String> NAMES = List.of(
+            "", " ", "\t\n", " ", " ", "John Doe", "x".repeat(50), "x".repeat(51), " ".repeat(51));
+    private static final List<String> PASSWORDS = List.of(
+            "", " ", " ".repeat(8), "Password456", "abcdefg", "abcdefgh", "ABCDEFGH1", "abcdefgé", "abcdefgh\n",
+            "abc defgh", "abcdefgh!", " ".repeat(8), "１２３４５６７８");
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+    private static UserDtoValidator userDtoValidator;
+
+    @BeforeAll
+    static void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        userDtoValidator = new UserDtoValidator(validator);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void shouldAgreeOnEdgeCases() {
+        List<String> names = withNull(NAMES);
+        List<String> emails = withNull(EMAILS);
+        List<String> passwords = withNull(PASSWORDS);
+        for (String name : names) {
+            for (String email : emails) {
+                assertAgrees(new UserUpdateDto(name, email));
+                for (String password : passwords) {
+                    assertAgrees(new UserRegistrationDto(null, name, email, password));
+                }
+            }
+        }
+        for (String password : passwords) {
+            for (String confirmPassword : passwords) {
+                assertAgrees(new UserPasswordDto(password, confirmPassword));
+            }
+        }
+    }
+
+    @Test
+    void shouldAgreeOnRandomInput() {
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_INPUTS; i++) {
+            assertAgrees(new UserRegistrationDto(null, randomString(random, 60), randomEmail(random),
+                    randomString(random, 12)));
+            assertAgrees(new UserUpdateDto(randomString(random, 60), randomEmail(random)));
+            assertAgrees(new UserPasswordDto(randomString(random, 12), randomString(random, 12)));
+        }
+    }
+
+    @Test
+    void shouldNotAllocateForValidInput() {
+        UserRegistrationDto registration = new UserRegistrationDto(null, "John Doe", "john.doe@email.com", "Password456");
+        UserUpdateDto update = new UserUpdateDto("Jane Doe", "jane.doe@email.com");
+        UserPasswordDto passwordChange = new UserPasswordDto("JohnDoe9876", "JohnDoe9876");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        validateAll(registration, update, passwordChange);
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        int invalid = validateAll(registration, update, passwordChange);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertThat(invalid).isZero();
+        assertThat(allocated).isLessThan(1024);
+    }
+
+    private static int validateAll(UserRegistrationDto registration, UserUpdateDto update,
+                                   UserPasswordDto passwordChange) {
+        int invalid = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (userDtoValidator.errors(registration) != null || userDtoValidator.errors(update) != null
+                    || userDtoValidator.errors(passwordChange) != null) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    private static void assertAgrees(UserRegistrationDto dto) {
+        assertThat(messages(userDtoValidator.errors(dto))).as("%s", dto).isEqualTo(expectedMessages(dto));
+    }
+
+    private static void assertAgrees(UserUpdateDto dto) {
+        assertThat(messages(userDtoValidator.errors(dto))).as("%s", dto).isEqualTo(expectedMessages(dto));
+    }
+
+    private static void assertAgrees(UserPasswordDto dto) {
+        assertThat(messages(userDtoValidator.errors(dto))).as("%s", dto).isEqualTo(expectedMessages(dto));
+    }
+
+    /**
+     * Messages of the Jakarta validator. Their order is not defined, so both sides are compared sorted.
+     */
+    private static List<String> expectedMessages(Object dto) {
+        return validator.validate(dto).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+
+    private static List<String> messages(String errors) {
+        if (errors == null) {
+            return List.of();
+        }
+        assertThat(errors).startsWith("Validation errors: ").endsWith("; ");
+        return Arrays.stream(errors.substring("Validation errors: ".length(), errors.length() - 2).split("; "))
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Either null or a string mixing email-like structure with characters from every class the rules care about.
+     */
+    private static String randomEmail(Random random) {
+        if (random.nextInt(20) == 0) {
+            return null;
+        }
+        StringBuilder email = new StringBuilder();
+        int length = random.nextInt(random.nextInt(10) == 0 ? 300 : 30);
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                email.append((char) ('a' + random.nextInt(26)));
+            } else if (kind == 6) {
+                email.append('.');
+            } else if (kind == 7) {
+                email.append(random.nextInt(4) == 0 ? '@' : '-');
+            } else {
+                email.append(randomChar(random));
+            }
+        }
+        if (random.nextBoolean()) {
+            email.insert(random.nextInt(email.length() + 1), '@');
+        }
+        return email.toString();
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        if (random.nextInt(20) == 0) {
+            return null;
+        }
+        char[] chars = new char[random.nextInt(maxLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = random.nextInt(4) == 0 ? randomChar(random) : (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static char randomChar(Random random) {
+        return random.nextInt(8) == 0
+                ? NON_ASCII.charAt(random.nextInt(NON_ASCII.length()))
+                : ASCII.charAt(random.nextInt(ASCII.length()));
+    }
+
+    private static List<String> withNull(List<String> values) {
+        List<String> withNull = new ArrayList<>(values);
+        withNull.add(null);
+        return withNull;
+    }
+}
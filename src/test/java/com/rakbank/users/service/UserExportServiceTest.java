@@ -0,0 +1,70 @@
+package com.rakbank.users.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rakbank.users.TestUtil;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserExportServiceTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 5, 1, 10, 30);
+
+    @Mock
+    UserRepository userRepository;
+
+    UserExportService userExportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        userExportService = new UserExportService(userRepository,
+                TestUtil.unshardedUserShards(), objectMapper);
+    }
+
+    @Test
+    void shouldExportUsersAsNdjson() throws Exception {
+        when(userRepository.streamAll()).thenReturn(Stream.of(
+                new UserDto(1L, "john", "john@email.com", CREATED_AT),
+                new UserDto(2L, "jane", "jane@email.com", CREATED_AT)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = userExportService.exportNdjson(out);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":1,\"name\":\"john\",\"email\":\"john@email.com\",\"createdAt\":\"2024-05-01T10:30:00\"}\n"
+                        + "{\"id\":2,\"name\":\"jane\",\"email\":\"jane@email.com\",\"createdAt\":\"2024-05-01T10:30:00\"}\n");
+    }
+
+    @Test
+    void shouldExportUsersAsCsvAndQuoteSpecialCharacters() throws Exception {
+        when(userRepository.streamAll()).thenReturn(Stream.of(
+                new UserDto(1L, "Doe, \"John\"", "john@email.com", CREATED_AT)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = userExportService.exportCsv(out);
+
+        assertThat(count).isEqualTo(1);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,name,email,createdAt\r\n"
+                        + "1,\"Doe, \"\"John\"\"\",john@email.com,2024-05-01T10:30\r\n");
+    }
+}
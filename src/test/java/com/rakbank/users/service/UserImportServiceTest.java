@@ -0,0 +1,143 @@
+package com.rakbank.users.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rakbank.users.config.ImportProperties;
+import com.rakbank.users.config.RegistrationProperties;
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.ImportJobStatus;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    UserService userService;
+
+    UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        ImportProperties importProperties = new ImportProperties();
+        importProperties.setChunkSize(2);
+        userImportService = new UserImportService(userService, new ObjectMapper(), importProperties,
+                new RegistrationProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.destroy();
+    }
+
+    @Test
+    void shouldImportCsvInChunksAndReportRejectedRows() throws Exception {
+        when(userService.registerBatch(anyList())).thenAnswer(invocation -> {
+            List<UserRegistrationDto> users = invocation.getArgument(0);
+            List<BatchRegistrationResult> results = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                results.add(BatchRegistrationResult.created(i, new UserDto(1L, users.get(i).getName(), users.get(i).getEmail(), null)));
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+        String csv = """
+                name,email,password
+                john,john@email.com,Password456
+                "Doe, Jane",jane@email.com,Password456
+                broken,"unterminated
+                joe,joe@email.com,Password456
+                """;
+
+        ImportJobStatus started = userImportService.startImport(
+                new MockMultipartFile("file", "users.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)));
+        ImportJobStatus finished = awaitFinished(started.getId());
+
+        assertThat(finished.getState()).isEqualTo(ImportJobStatus.State.COMPLETED);
+        assertThat(finished.getRowsRead()).isEqualTo(4);
+        assertThat(finished.getImported()).isEqualTo(3);
+        assertThat(finished.getRejected()).isEqualTo(1);
+        assertThat(finished.getRejectedRows()).singleElement()
+                .satisfies(row -> assertThat(row.getLine()).isEqualTo(4));
+        verify(userService, times(2)).registerBatch(anyList());
+    }
+
+    @Test
+    void shouldKeepCommittedChunksWhenALaterChunkFails() throws Exception {
+        when(userService.registerBatch(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(
+                        BatchRegistrationResult.created(0, new UserDto(1L, "john", "john@email.com", null)),
+                        BatchRegistrationResult.rejected(1, "jane@email.com", "Email already exist"))))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        String ndjson = """
+                {"name":"john","email":"john@email.com","password":"Password456"}
+                {"name":"jane","email":"jane@email.com","password":"Password456"}
+                {"name":"joe","email":"joe@email.com","password":"Password456"}
+                """;
+
+        ImportJobStatus started = userImportService.startImport(
+                new MockMultipartFile("file", "users.ndjson", "application/x-ndjson", ndjson.getBytes(StandardCharsets.UTF_8)));
+        ImportJobStatus finished = awaitFinished(started.getId());
+
+        assertThat(finished.getState()).isEqualTo(ImportJobStatus.State.COMPLETED);
+        assertThat(finished.getImported()).isEqualTo(1);
+        assertThat(finished.getRejected()).isEqualTo(2);
+        assertThat(finished.getRejectedRows()).extracting(ImportJobStatus.RejectedRow::getEmail)
+                .containsExactly("jane@email.com", "joe@email.com");
+    }
+
+    @Test
+    void shouldRejectImportsOnceTheQueueIsFull() throws Exception {
+        ImportProperties importProperties = new ImportProperties();
+        importProperties.setConcurrentJobs(1);
+        importProperties.setQueuedJobs(1);
+        UserImportService busyService = new UserImportService(userService, new ObjectMapper(), importProperties,
+                new RegistrationProperties());
+        CompletableFuture<List<BatchRegistrationResult>> pending = new CompletableFuture<>();
+        when(userService.registerBatch(anyList())).thenReturn(pending);
+        try {
+            ImportJobStatus running = busyService.startImport(csv("running.csv"));
+            await().atMost(Duration.ofSeconds(10)).until(() -> busyService.getJob(running.getId()).getState(),
+                    state -> state == ImportJobStatus.State.RUNNING);
+            ImportJobStatus queued = busyService.startImport(csv("queued.csv"));
+
+            assertThatThrownBy(() -> busyService.startImport(csv("rejected.csv")))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(busyService.getJob(queued.getId()).getState()).isEqualTo(ImportJobStatus.State.QUEUED);
+        } finally {
+            pending.complete(List.of());
+            busyService.destroy();
+        }
+    }
+
+    private static MockMultipartFile csv(String name) {
+        return new MockMultipartFile("file", name, "text/csv",
+                "name,email,password\njohn,john@email.com,Password456\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ImportJobStatus awaitFinished(String jobId) {
+        return await().atMost(Duration.ofSeconds(10))
+                .until(() -> userImportService.getJob(jobId), status ->
+                        status.getState() == ImportJobStatus.State.COMPLETED
+                                || status.getState() == ImportJobStatus.State.FAILED);
+    }
+}
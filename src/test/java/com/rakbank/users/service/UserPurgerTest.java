@@ -0,0 +1,114 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.exceptions.UserException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "users.purge.enabled=false",
+        "users.purge.retention=0s",
+        "users.purge.batch-size=2",
+        "users.purge.batch-pause=0ms"
+})
+class UserPurgerTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserPurger userPurger;
+
+    @Autowired
+    EmailBloomFilter emailFilter;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        await().atMost(Duration.ofSeconds(10)).until(emailFilter::isReady);
+    }
+
+    @Test
+    void shouldHideDeletedUsersUntilPurged() {
+        UserDto user = createUser(UUID.randomUUID() + "@email.com");
+
+        userService.deleteUser(user.getId());
+
+        assertThatThrownBy(() -> userService.getUserById(user.getId())).isInstanceOf(UserException.class);
+        assertThatThrownBy(() -> userService.deleteUser(user.getId())).isInstanceOf(UserException.class);
+        assertThat(userService.isEmailAvailable(user.getEmail())).isTrue();
+        assertThat(userService.getUsers(PageRequest.of(0, 100)).getContent())
+                .extracting(UserDto::getId).doesNotContain(user.getId());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user_t where id = ? and deleted_at is not null",
+                Integer.class, user.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReuseTheEmailOfADeletedUser() {
+        String email = UUID.randomUUID() + "@email.com";
+        userService.deleteUser(createUser(email).getId());
+
+        UserDto user = createUser(email);
+
+        assertThat(userService.getUserById(user.getId()).getEmail()).isEqualTo(email);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user_t where email = ?", Integer.class, email))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldReuseTheEmailOfADeletedUserOnceTheEmailFilterForgotIt() {
+        String email = UUID.randomUUID() + "@email.com";
+        userService.deleteUser(createUser(email).getId());
+        emailFilter.scheduleRebuild();
+        await().atMost(Duration.ofSeconds(10)).until(() -> !emailFilter.mightContain(email));
+
+        assertThat(userService.isEmailAvailable(email)).isTrue();
+        UserDto user = createUser(email);
+
+        assertThat(userService.getUserById(user.getId()).getEmail()).isEqualTo(email);
+    }
+
+    @Test
+    void shouldPurgeDeletedUsersInBatches() {
+        List<Long> userIds = IntStream.range(0, 5)
+                .mapToObj(i -> createUser(UUID.randomUUID() + "@email.com").getId())
+                .toList();
+        userIds.forEach(userService::deleteUser);
+        double purgedBefore = meterRegistry.get("users.purge.purged").counter().count();
+
+        assertThat(userPurger.purge()).isGreaterThanOrEqualTo(5);
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user_t where deleted_at is not null",
+                Integer.class)).isZero();
+        assertThat(meterRegistry.get("users.purge.purged").counter().count() - purgedBefore)
+                .isGreaterThanOrEqualTo(5);
+        assertThat(meterRegistry.get("users.purge.batches").timer().count()).isGreaterThanOrEqualTo(3);
+        assertThat(meterRegistry.get("users.purge.backlog").gauge().value()).isZero();
+    }
+
+    private UserDto createUser(String email) {
+        return userService.createUser(new UserRegistrationDto(null, "John", email, "Password456"));
+    }
+}
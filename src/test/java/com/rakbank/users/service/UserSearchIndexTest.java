@@ -0,0 +1,134 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.TestUtil;
+import com.rakbank.users.config.SearchProperties;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserSearchIndexTest {
+
+    UserRepository userRepository;
+
+    SearchProperties properties;
+
+    SimpleMeterRegistry meterRegistry;
+
+    UserSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        properties = new SearchProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        searchIndex = new UserSearchIndex(properties, userRepository,
+                TestUtil.unshardedUserShards(), mock(PlatformTransactionManager.class),
+                meterRegistry);
+    }
+
+    @Test
+    void shouldRankExactThenFieldPrefixThenWordPrefixThenSubstringMatches() {
+        build(user(1, "Mary Johnson", "mary@email.com"),
+                user(2, "John", "jd@email.com"),
+                user(3, "Elton John", "elton@email.com"),
+                user(4, "Johnny Cash", "cash@email.com"),
+                user(5, "Peter", "peter@email.com"));
+
+        assertThat(search("JOHN")).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(search("ohn")).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(search("jo")).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(search("oh")).isEmpty();
+        assertThat(search("email.com")).hasSize(5);
+        assertThat(search("smith")).isEmpty();
+    }
+
+    @Test
+    void shouldPageMatchesAndCountThemAll() {
+        build(IntStream.rangeClosed(1, 50).mapToObj(i -> user(i, "User " + i, "user" + i + "@email.com"))
+                .toArray(UserDto[]::new));
+
+        UserSearchIndex.Hits first = searchIndex.search("user", 0, 20);
+        UserSearchIndex.Hits last = searchIndex.search("user", 40, 20);
+
+        assertThat(first.total()).isEqualTo(50);
+        assertThat(first.userIds()).hasSize(20).startsWith(1L, 2L);
+        assertThat(last.userIds()).hasSize(10).endsWith(50L);
+        assertThat(searchIndex.search("user", 60, 20).userIds()).isEmpty();
+    }
+
+    @Test
+    void shouldFollowUpdatesAndRemovalsAndIgnoreOutdatedChanges() {
+        build(user(1, "John", "john@email.com"), user(2, "Jane", "jane@email.com"));
+
+        searchIndex.index(1, 1, "Johnny", "johnny@email.com");
+        searchIndex.index(1, 0, "John", "john@email.com");
+        searchIndex.remove(2);
+        searchIndex.index(2, 1, "Jane", "jane@email.com");
+        searchIndex.index(3, 0, "Ann", "ann@email.com");
+
+        assertThat(search("johnny")).containsExactly(1L);
+        assertThat(search("john@")).isEmpty();
+        assertThat(search("jane")).isEmpty();
+        assertThat(search("ann")).containsExactly(3L);
+    }
+
+    @Test
+    void shouldCompactOnceRemovedUsersReachTheStaleRatio() {
+        properties.setStaleRatio(0.5);
+        build(IntStream.rangeClosed(1, 10).mapToObj(i -> user(i, "User " + i, "user" + i + "@email.com"))
+                .toArray(UserDto[]::new));
+
+        for (long userId = 1; userId <= 6; userId++) {
+            searchIndex.remove(userId);
+        }
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.get("users.search.index.dead").gauge().value() == 0);
+        assertThat(meterRegistry.get("users.search.index.users").gauge().value()).isEqualTo(4);
+        assertThat(meterRegistry.get("users.search.index.memory").gauge().value()).isPositive();
+        assertThat(search("user")).containsExactly(7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void shouldRejectBlankAndOverlongQueries() {
+        properties.setMaxQueryLength(5);
+
+        assertThat(searchIndex.normalizeQuery("  JoHn ")).isEqualTo("john");
+        assertThatThrownBy(() -> searchIndex.normalizeQuery(" "))
+                .isInstanceOf(UserException.class)
+                .hasMessage("Search query is mandatory");
+        assertThatThrownBy(() -> searchIndex.normalizeQuery("johnny"))
+                .isInstanceOf(UserException.class)
+                .hasMessage("Search query must not exceed 5 characters");
+    }
+
+    private void build(UserDto... users) {
+        when(userRepository.streamAll()).thenReturn(Stream.of(users));
+        searchIndex.scheduleRebuild(true);
+        await().atMost(Duration.ofSeconds(5)).until(searchIndex::isReady);
+    }
+
+    private List<Long> search(String query) {
+        return new ArrayList<>(searchIndex.search(searchIndex.normalizeQuery(query), 0, 100).userIds());
+    }
+
+    private static UserDto user(long id, String name, String email) {
+        return new UserDto(id, name, email, null, 0);
+    }
+}
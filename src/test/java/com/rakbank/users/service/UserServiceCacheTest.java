@@ -0,0 +1,98 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.config.CacheConfig;
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class UserServiceCacheTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EmailBloomFilter emailFilter;
+
+    Cache users;
+
+    Long userId;
+
+    @BeforeEach
+    void setUp() {
+        users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        String email = UUID.randomUUID() + "@email.com";
+        userId = userService.createUser(new UserRegistrationDto(null, "john", email, "Password456")).getId();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        UserDto first = userService.getUserById(userId);
+        UserDto second = userService.getUserById(userId);
+
+        assertThat(second).isSameAs(first);
+        assertThat(users.get(userId)).isNotNull();
+    }
+
+    @Test
+    void shouldEvictOnlyAfterTheUpdateCommits() {
+        userService.getUserById(userId);
+        UserUpdateDto update = new UserUpdateDto();
+        update.setName("jane");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.updateUser(userId, update, null);
+            assertThat(users.get(userId)).isNotNull();
+        });
+
+        assertThat(users.get(userId)).isNull();
+        assertThat(userService.getUserById(userId).getName()).isEqualTo("jane");
+    }
+
+    @Test
+    void shouldKeepAnEmailChangedWhileTheEmailFilterRebuilds() {
+        await().atMost(Duration.ofSeconds(10)).until(() -> emailFilter.isReady() && !emailFilter.isRebuilding());
+        String email = UUID.randomUUID() + "@email.com";
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.updateUser(userId, new UserUpdateDto(null, email), null);
+            // the rebuild cannot see the uncommitted email
+            emailFilter.scheduleRebuild();
+            await().atMost(Duration.ofSeconds(10)).until(() -> !emailFilter.isRebuilding());
+        });
+
+        assertThat(emailFilter.mightContain(email)).isTrue();
+        assertThat(userService.isEmailAvailable(email)).isFalse();
+    }
+
+    @Test
+    void shouldEvictOnDelete() {
+        userService.getUserById(userId);
+
+        userService.deleteUser(userId);
+
+        assertThat(users.get(userId)).isNull();
+    }
+}
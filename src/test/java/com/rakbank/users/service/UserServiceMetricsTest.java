@@ -0,0 +1,66 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.exceptions.UserException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class UserServiceMetricsTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void shouldTimeServiceMethodsByOutcome() {
+        long created = count("createUserAsync", UserServiceMetrics.SUCCESS);
+        long found = count("getUserById", UserServiceMetrics.SUCCESS);
+        long notFound = count("getUserById", UserServiceMetrics.NOT_FOUND);
+        long duplicates = count("createUser", UserServiceMetrics.DUPLICATE_EMAIL);
+        long invalid = count("isEmailAvailable", UserServiceMetrics.VALIDATION_FAILURE);
+
+        String email = UUID.randomUUID() + "@email.com";
+        Long userId = userService.createUserAsync(new UserRegistrationDto(null, "john", email, "Password456"))
+                .join().getId();
+        userService.getUserById(userId);
+        assertThatThrownBy(() -> userService.getUserById(-1L)).isInstanceOf(UserException.class);
+        assertThatThrownBy(() -> userService.createUser(new UserRegistrationDto(null, "jane", email, "Password456")))
+                .isInstanceOf(UserException.class);
+        assertThatThrownBy(() -> userService.isEmailAvailable(" ")).isInstanceOf(UserException.class);
+
+        assertThat(count("createUserAsync", UserServiceMetrics.SUCCESS)).isEqualTo(created + 1);
+        assertThat(count("getUserById", UserServiceMetrics.SUCCESS)).isEqualTo(found + 1);
+        assertThat(count("getUserById", UserServiceMetrics.NOT_FOUND)).isEqualTo(notFound + 1);
+        assertThat(count("createUser", UserServiceMetrics.DUPLICATE_EMAIL)).isEqualTo(duplicates + 1);
+        assertThat(count("isEmailAvailable", UserServiceMetrics.VALIDATION_FAILURE)).isEqualTo(invalid + 1);
+    }
+
+    @Test
+    void shouldTimeHashingAndRepositoryCalls() {
+        userService.createUser(new UserRegistrationDto(null, "john", UUID.randomUUID() + "@email.com", "Password456"));
+
+        assertThat(meterRegistry.get("users.password.hashing").tag("operation", "encode").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "UserRepository").tag("method", "save").timer().count())
+                .isPositive();
+    }
+
+    private long count(String method, String outcome) {
+        Timer timer = meterRegistry.find(UserServiceMetrics.TIMER).tag("method", method).tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
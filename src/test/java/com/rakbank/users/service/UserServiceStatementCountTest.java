@@ -0,0 +1,116 @@
+package com.rakbank.users.service;
+
+import com.rakbank.users.dto.UserDto;
+import com.rakbank.users.dto.UserPasswordDto;
+import com.rakbank.users.dto.UserRegistrationDto;
+import com.rakbank.users.dto.UserUpdateDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class UserServiceStatementCountTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    EmailBloomFilter emailFilter;
+
+    @Autowired
+    UserSearchIndex searchIndex;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    Long userId;
+
+    String email;
+
+    @BeforeEach
+    void setUp() {
+        await().atMost(Duration.ofSeconds(10)).until(emailFilter::isReady);
+        await().atMost(Duration.ofSeconds(10)).until(searchIndex::isReady);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        email = UUID.randomUUID() + "@email.com";
+        userId = userService.createUser(new UserRegistrationDto(null, "john", email, "Password456")).getId();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldReadUsersWithoutLoadingEntities() {
+        userService.getUsers(PageRequest.of(0, 20, Sort.by("name")));
+        userService.getUsersByCursor(null, Sort.by("createdAt"), 20);
+        userService.getUserById(userId);
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void shouldListASliceWithoutCounting() {
+        userService.createUser(new UserRegistrationDto(null, "jane", UUID.randomUUID() + "@email.com", "Password456"));
+        statistics.clear();
+
+        var result = userService.getUserSlice(PageRequest.of(0, 1, Sort.by("id")));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSearchWithOneQueryForThePage() {
+        var result = userService.searchUsers(email.substring(0, 13).toUpperCase(), PageRequest.of(0, 20));
+
+        assertThat(result.getContent()).extracting(UserDto::getId).containsExactly(userId);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDeleteWithOneStatement() {
+        userService.deleteUser(userId);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipTheWriteOfAnUnchangedUser() {
+        userService.updateUser(userId, new UserUpdateDto("john", email), null);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldUpdateWithoutLoadingTheEntity() {
+        userService.updateUser(userId, new UserUpdateDto("jane", null), null);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(userService.getUserById(userId).getName()).isEqualTo("jane");
+    }
+
+    @Test
+    void shouldChangePasswordWithoutLoadingTheEntity() {
+        userService.changePassword(userId, new UserPasswordDto("JohnDoe9876", "JohnDoe9876"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
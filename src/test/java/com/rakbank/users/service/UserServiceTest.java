@@ -1,10 +1,16 @@
 package com.rakbank.users.service;
 
+import com.rakbank.users.TestUtil;
+import com.rakbank.users.dto.BatchRegistrationResult;
+import com.rakbank.users.dto.CursorPage;
 import com.rakbank.users.dto.UserDto;
 import com.rakbank.users.dto.UserPasswordDto;
 import com.rakbank.users.dto.UserRegistrationDto;
 import com.rakbank.users.dto.UserUpdateDto;
 import com.rakbank.users.entity.User;
+import com.rakbank.users.exceptions.PreconditionFailedException;
+import com.rakbank.users.exceptions.UserException;
+import com.rakbank.users.repository.UserKeysetRepository.KeysetColumn;
 import com.rakbank.users.repository.UserRepository;
 import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,10 +23,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,7 +46,7 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userRepository, validator);
+        userService = TestUtil.userService(userRepository, validator, new BCryptPasswordEncoder(4));
     }
 
     @Test
@@ -65,13 +74,58 @@ class UserServiceTest {
         verify(userRepository, times(1)).save(any(User.class));
     }
 
+    @Test
+    void shouldCreateUserAsync() {
+        UserRegistrationDto userRegistrationDto = new UserRegistrationDto();
+        userRegistrationDto.setEmail("joh@email.com");
+        userRegistrationDto.setPassword("Password456");
+        userRegistrationDto.setName("john");
+        when(userRepository.existsByEmail(userRegistrationDto.getEmail())).thenReturn(false);
+
+        User savedUser = new User();
+        savedUser.setId(1L);
+        savedUser.setEmail(userRegistrationDto.getEmail());
+        savedUser.setName(userRegistrationDto.getName());
+        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+
+        UserDto result = userService.createUserAsync(userRegistrationDto).join();
+
+        assertThat(result.getEmail()).isEqualTo(userRegistrationDto.getEmail());
+        verify(userRepository, times(1)).save(argThat(user -> user.getPassword().startsWith("$2a$")));
+    }
+
+    @Test
+    void shouldRegisterBatchAndRejectDuplicates() {
+        List<UserRegistrationDto> batch = List.of(
+                new UserRegistrationDto(null, "john", "john@email.com", "Password456"),
+                new UserRegistrationDto(null, "jane", "jane@email.com", "Password456"),
+                new UserRegistrationDto(null, "john again", "john@email.com", "Password456"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of("jane@email.com"));
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(1L));
+            return users;
+        });
+
+        List<BatchRegistrationResult> results = userService.registerBatch(batch).join();
+
+        assertThat(results).extracting(BatchRegistrationResult::getStatus).containsExactly(
+                BatchRegistrationResult.Status.CREATED,
+                BatchRegistrationResult.Status.REJECTED,
+                BatchRegistrationResult.Status.REJECTED);
+        assertThat(results.get(0).getUser().getEmail()).isEqualTo("john@email.com");
+        assertThat(results.get(1).getError()).isEqualTo("Email already exist");
+        verify(userRepository, times(1)).findExistingEmails(anyCollection());
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
     @Test
     void shouldGetAllUsers() {
         // Given
         Pageable page = PageRequest.of(0, 10);
-        List<User> users = Arrays.asList(new User(), new User());
-        Page<User> usersPage = new PageImpl<>(users, page, users.size());
-        when(userRepository.findAll(page)).thenReturn(usersPage);
+        List<UserDto> users = Arrays.asList(new UserDto(), new UserDto());
+        Page<UserDto> usersPage = new PageImpl<>(users, page, users.size());
+        when(userRepository.findAllDtos(page)).thenReturn(usersPage);
 
         // When
         Page<UserDto> result = userService.getUsers(page);
@@ -80,7 +134,36 @@ class UserServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getTotalElements()).isEqualTo(users.size());
         assertThat(result.getContent()).hasSize(users.size());
-        verify(userRepository).findAll(page);
+        verify(userRepository).findAllDtos(page);
+        verify(userRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void shouldGetUsersByCursor() {
+        UserDto first = UserDto.builder().id(1L).name("john").email("john@email.com").build();
+        UserDto second = UserDto.builder().id(2L).name("jane").email("jane@email.com").build();
+        UserDto third = UserDto.builder().id(3L).name("doe").email("doe@email.com").build();
+        when(userRepository.findKeysetPage(KeysetColumn.ID, Sort.Direction.ASC, null, null, 3))
+                .thenReturn(List.of(first, second, third));
+        when(userRepository.findKeysetPage(KeysetColumn.ID, Sort.Direction.ASC, null, 2L, 3))
+                .thenReturn(List.of(third));
+
+        CursorPage<UserDto> firstPage = userService.getUsersByCursor(null, Sort.by("id"), 2);
+        CursorPage<UserDto> secondPage = userService.getUsersByCursor(firstPage.getNextCursor(), Sort.unsorted(), 2);
+
+        assertThat(firstPage.getContent()).extracting(UserDto::getId).containsExactly(1L, 2L);
+        assertThat(firstPage.getPrevCursor()).isNull();
+        assertThat(secondPage.getContent()).extracting(UserDto::getId).containsExactly(3L);
+        assertThat(secondPage.getNextCursor()).isNull();
+        assertThat(secondPage.getPrevCursor()).isNotNull();
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void shouldRejectCursorSortOnNonIndexedColumn() {
+        assertThatThrownBy(() -> userService.getUsersByCursor(null, Sort.by("name"), 10))
+                .isInstanceOf(UserException.class)
+                .hasMessage("Cursor pagination can only be sorted by id or createdAt");
     }
 
     @Test
@@ -91,11 +174,8 @@ class UserServiceTest {
         userRegistrationDto.setPassword("Password456");
         userRegistrationDto.setName("john");
 
-        User savedUser = new User();
-        savedUser.setId(1L);
-        savedUser.setEmail(userRegistrationDto.getEmail());
-        savedUser.setName(userRegistrationDto.getName());
-        when(userRepository.findById(1L)).thenReturn(Optional.of(savedUser));
+        UserDto savedUser = new UserDto(1L, userRegistrationDto.getName(), userRegistrationDto.getEmail(), null);
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(savedUser));
 
         UserDto result = userService.getUserById(1L);
 
@@ -104,7 +184,8 @@ class UserServiceTest {
         assertThat(result.getName()).isEqualTo(userRegistrationDto.getName());
         assertThat(result.getId()).isEqualTo(userRegistrationDto.getId());
 
-        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).findDtoById(1L);
+        verify(userRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -112,20 +193,40 @@ class UserServiceTest {
         UserUpdateDto userRegistrationDto = new UserUpdateDto();
         userRegistrationDto.setEmail("joh@email.com");
 
-        User savedUser = new User();
-        savedUser.setId(2L);
-        savedUser.setEmail(userRegistrationDto.getEmail());
-        when(userRepository.findById(2L)).thenReturn(Optional.of(savedUser));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        UserDto savedUser = new UserDto(2L, "john", "john@email.com", null);
+        when(userRepository.findDtoById(2L)).thenReturn(Optional.of(savedUser));
+        when(userRepository.updateProfile(2L, "john", "joh@email.com", null)).thenReturn(1);
 
-        Optional<UserDto> result = userService.updateUser(savedUser.getId(), userRegistrationDto);
+        Optional<UserDto> result = userService.updateUser(savedUser.getId(), userRegistrationDto, null);
 
         assertThat(result).isNotEmpty();
         assertThat(result.get().getEmail()).isEqualTo(userRegistrationDto.getEmail());
-        assertThat(result.get().getName()).isEqualTo(userRegistrationDto.getName());
+        assertThat(result.get().getName()).isEqualTo("john");
 
-        verify(userRepository, times(1)).findById(2L);
+        verify(userRepository, times(1)).findDtoById(2L);
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldSkipWriteWhenUpdateChangesNothing() {
+        UserUpdateDto userUpdateDto = new UserUpdateDto("john", "john@email.com");
+        when(userRepository.findDtoById(2L)).thenReturn(Optional.of(new UserDto(2L, "john", "john@email.com", null)));
 
+        Optional<UserDto> result = userService.updateUser(2L, userUpdateDto, null);
+
+        assertThat(result).isNotEmpty();
+        verify(userRepository, never()).updateProfile(anyLong(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void shouldRejectUpdateOfAnotherVersion() {
+        UserUpdateDto userUpdateDto = new UserUpdateDto("jane", null);
+        when(userRepository.findDtoById(2L))
+                .thenReturn(Optional.of(new UserDto(2L, "john", "john@email.com", null, 3)));
+
+        assertThatThrownBy(() -> userService.updateUser(2L, userUpdateDto, 2L))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(userRepository, never()).updateProfile(anyLong(), anyString(), anyString(), any());
     }
 
     @Test
@@ -134,32 +235,73 @@ class UserServiceTest {
         userPasswordDto.setPassword("JohnDoe9876");
         userPasswordDto.setConfirmPassword("JohnDoe9876");
 
-        User savedUser = new User();
-        savedUser.setId(2L);
-        savedUser.setPassword(userPasswordDto.getConfirmPassword());
-        when(userRepository.findById(2L)).thenReturn(Optional.of(savedUser));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        String currentPassword = new BCryptPasswordEncoder(4).encode("Password456");
+        when(userRepository.findPasswordById(2L)).thenReturn(Optional.of(currentPassword));
+        when(userRepository.updatePassword(eq(2L), anyString())).thenReturn(1);
 
-        String result = userService.changePassword(savedUser.getId(), userPasswordDto);
+        String result = userService.changePassword(2L, userPasswordDto);
 
         assertThat(result).isEqualTo("Your password was changed successfully");
-        verify(userRepository, times(1)).findById(2L);
+        verify(userRepository, times(1)).findPasswordById(2L);
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldUpgradeAnOutdatedHashOnPasswordChange() {
+        UserPasswordDto userPasswordDto = new UserPasswordDto();
+        userPasswordDto.setPassword("JohnDoe9876");
+        userPasswordDto.setConfirmPassword("JohnDoe9876");
+
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(6);
+        String outdatedHash = new BCryptPasswordEncoder(5).encode("Password456");
+        userService = TestUtil.userService(userRepository, validator, passwordEncoder);
+        when(userRepository.findPasswordById(2L)).thenReturn(Optional.of(outdatedHash));
+        when(userRepository.updatePassword(eq(2L), anyString())).thenReturn(1);
+
+        userService.changePassword(2L, userPasswordDto);
+
+        verify(userRepository).updatePassword(eq(2L), argThat(hash ->
+                hash.startsWith("$2a$06$") && passwordEncoder.matches("JohnDoe9876", hash)));
+    }
+
+    @Test
+    void shouldNotWriteAnythingWhenThePasswordIsUnchanged() {
+        UserPasswordDto userPasswordDto = new UserPasswordDto();
+        userPasswordDto.setPassword("JohnDoe9876");
+        userPasswordDto.setConfirmPassword("JohnDoe9876");
+
+        String outdatedHash = new BCryptPasswordEncoder(5).encode("JohnDoe9876");
+        userService = TestUtil.userService(userRepository, validator, new BCryptPasswordEncoder(6));
+        when(userRepository.findPasswordById(2L)).thenReturn(Optional.of(outdatedHash));
+
+        assertThatThrownBy(() -> userService.changePassword(2L, userPasswordDto))
+                .isInstanceOf(UserException.class)
+                .hasMessage("Your password must be different from your current password");
+
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
     }
 
     @Test
     void shouldDeleteUser() {
 
-        User savedUser = new User();
-        savedUser.setId(2L);
-        savedUser.setEmail("doe@email.com");
-        savedUser.setName("Doe");
-        when(userRepository.findById(2L)).thenReturn(Optional.of(savedUser));
+        when(userRepository.markDeleted(eq(2L), any())).thenReturn(1);
 
-        String result = userService.deleteUser(savedUser.getId());
+        String result = userService.deleteUser(2L);
 
-        assertThat(result).isEqualTo("User with Id " + savedUser.getId() + " was deleted successfully");
+        assertThat(result).isEqualTo("User with Id " + 2L + " was deleted successfully");
+
+        verify(userRepository, times(1)).markDeleted(eq(2L), any());
+        verify(userRepository, never()).removeById(anyLong());
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldRejectDeletingMissingUser() {
+        when(userRepository.markDeleted(eq(2L), any())).thenReturn(0);
 
-        verify(userRepository, times(1)).findById(2L);
+        assertThatThrownBy(() -> userService.deleteUser(2L))
+                .isInstanceOf(UserException.class)
+                .hasMessage("User not found");
 
     }
 }
\ No newline at end of file